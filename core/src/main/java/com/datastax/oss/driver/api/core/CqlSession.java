@@ -21,6 +21,7 @@ import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.ResultSet;
 import com.datastax.oss.driver.api.core.cql.SimpleStatement;
 import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.cql.reactive.ReactiveResultSet;
 import com.datastax.oss.driver.api.core.session.Request;
 import com.datastax.oss.driver.api.core.session.Session;
 import com.datastax.oss.driver.internal.core.cql.DefaultPrepareRequest;
@@ -75,6 +76,32 @@ public interface CqlSession extends Session {
     return executeAsync(SimpleStatement.newInstance(query));
   }
 
+  /**
+   * Executes a CQL statement reactively.
+   *
+   * <p>The statement is not executed when this method is called, but when the returned publisher
+   * gets subscribed to, and the first row is requested. Subsequent pages are fetched when the
+   * subscriber's demand exceeds the rows that were already received.
+   *
+   * @see ReactiveResultSet
+   */
+  @NonNull
+  default ReactiveResultSet executeReactive(@NonNull Statement<?> statement) {
+    return Objects.requireNonNull(
+        execute(statement, Statement.REACTIVE),
+        "The CQL processor should never return a null result");
+  }
+
+  /**
+   * Executes a CQL statement reactively.
+   *
+   * @see #executeReactive(Statement)
+   */
+  @NonNull
+  default ReactiveResultSet executeReactive(@NonNull String query) {
+    return executeReactive(SimpleStatement.newInstance(query));
+  }
+
   /**
    * Prepares a CQL statement synchronously (the calling thread blocks until the statement is
    * prepared).
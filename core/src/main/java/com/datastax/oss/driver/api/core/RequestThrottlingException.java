@@ -24,6 +24,10 @@ import edu.umd.cs.findbugs.annotations.NonNull;
  *
  * <p>This can happen either when the session is overloaded, or at shutdown for requests that had
  * been enqueued.
+ *
+ * <p>It is also used to report nodes that were skipped because they (or their datacenter) reached
+ * the per-node or per-datacenter concurrency limit; in that case it does not get thrown directly,
+ * but appears in {@link AllNodesFailedException#getErrors()} or {@link ExecutionInfo#getErrors()}.
  */
 public class RequestThrottlingException extends DriverException {
 
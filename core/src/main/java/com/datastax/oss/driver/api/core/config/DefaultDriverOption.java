@@ -173,6 +173,61 @@ public enum DefaultDriverOption implements DriverOption {
   NETTY_TIMER_TICKS_PER_WHEEL("advanced.netty.timer.ticks-per-wheel"),
 
   REQUEST_LOG_WARNINGS("advanced.request.log-warnings"),
+
+  NETTY_IO_NATIVE_TRANSPORT_ENABLED("advanced.netty.io-group.native-transport.enabled"),
+  NETTY_IO_NATIVE_TRANSPORT_EDGE_TRIGGERED(
+      "advanced.netty.io-group.native-transport.edge-triggered"),
+  SOCKET_TCP_QUICK_ACK("advanced.socket.tcp-quick-ack"),
+  SOCKET_BUSY_POLL("advanced.socket.busy-poll"),
+
+  COALESCER_CLASS("advanced.coalescer.class"),
+  COALESCER_QUEUE_CAPACITY("advanced.coalescer.queue-capacity"),
+  COALESCER_BATCH_THRESHOLD("advanced.coalescer.batch-threshold"),
+  METRICS_SESSION_COALESCER_FLUSH_LATENCY_HIGHEST(
+      "advanced.metrics.session.coalescer.flush-latency.highest-latency"),
+  METRICS_SESSION_COALESCER_FLUSH_LATENCY_DIGITS(
+      "advanced.metrics.session.coalescer.flush-latency.significant-digits"),
+  METRICS_SESSION_COALESCER_FLUSH_LATENCY_INTERVAL(
+      "advanced.metrics.session.coalescer.flush-latency.refresh-interval"),
+
+  PROTOCOL_COMPACT_ROWS("advanced.protocol.compact-rows"),
+  CONNECTION_POOL_CHANNEL_SELECTOR_CLASS("advanced.connection.pool.channel-selector.class"),
+  CONNECTION_POOL_ELASTIC_ENABLED("advanced.connection.pool.elastic.enabled"),
+  CONNECTION_POOL_ELASTIC_LOCAL_MAX_SIZE("advanced.connection.pool.elastic.local.max-size"),
+  CONNECTION_POOL_ELASTIC_REMOTE_MAX_SIZE("advanced.connection.pool.elastic.remote.max-size"),
+  CONNECTION_POOL_ELASTIC_HIGH_WATER_MARK("advanced.connection.pool.elastic.high-water-mark"),
+  CONNECTION_POOL_ELASTIC_LOW_WATER_MARK("advanced.connection.pool.elastic.low-water-mark"),
+  CONNECTION_POOL_ELASTIC_CHECK_INTERVAL("advanced.connection.pool.elastic.check-interval"),
+  CONNECTION_POOL_ELASTIC_SHRINK_DELAY("advanced.connection.pool.elastic.shrink-delay"),
+  NETTY_ALLOCATOR_TYPE("advanced.netty.allocator.type"),
+  NETTY_ALLOCATOR_ARENA_COUNT("advanced.netty.allocator.arena-count"),
+  NETTY_ALLOCATOR_CHUNK_SIZE("advanced.netty.allocator.chunk-size"),
+  REQUEST_PREFETCH_THRESHOLD("advanced.request.prefetch.threshold"),
+  REQUEST_PREFETCH_MAX_PAGES("advanced.request.prefetch.max-pages"),
+  SPECULATIVE_EXECUTION_PERCENTILE("advanced.speculative-execution-policy.percentile"),
+  SPECULATIVE_EXECUTION_MIN_DELAY("advanced.speculative-execution-policy.min-delay"),
+  SPECULATIVE_EXECUTION_MAX_DELAY("advanced.speculative-execution-policy.max-delay"),
+  SPECULATIVE_EXECUTION_MIN_SAMPLES("advanced.speculative-execution-policy.min-samples"),
+  SPECULATIVE_EXECUTION_REFRESH_INTERVAL("advanced.speculative-execution-policy.refresh-interval"),
+  LOAD_BALANCING_LATENCY_EXCLUSION_THRESHOLD(
+      "basic.load-balancing-policy.latency-awareness.exclusion-threshold"),
+  LOAD_BALANCING_LATENCY_SCALE("basic.load-balancing-policy.latency-awareness.scale"),
+  LOAD_BALANCING_LATENCY_RETRY_PERIOD("basic.load-balancing-policy.latency-awareness.retry-period"),
+  LOAD_BALANCING_LATENCY_UPDATE_RATE("basic.load-balancing-policy.latency-awareness.update-rate"),
+  LOAD_BALANCING_LATENCY_MIN_MEASURES("basic.load-balancing-policy.latency-awareness.min-measures"),
+  LOAD_BALANCING_IN_FLIGHT_AWARE_REPLICAS("basic.load-balancing-policy.in-flight-aware-replicas"),
+  REQUEST_THROTTLER_ADAPTIVE_INITIAL_LIMIT("advanced.throttler.adaptive.initial-limit"),
+  REQUEST_THROTTLER_ADAPTIVE_MIN_LIMIT("advanced.throttler.adaptive.min-limit"),
+  REQUEST_THROTTLER_ADAPTIVE_MAX_LIMIT("advanced.throttler.adaptive.max-limit"),
+  REQUEST_THROTTLER_ADAPTIVE_SAMPLE_WINDOW("advanced.throttler.adaptive.sample-window"),
+  REQUEST_THROTTLER_ADAPTIVE_LONG_WINDOW("advanced.throttler.adaptive.long-window"),
+  REQUEST_THROTTLER_ADAPTIVE_RTT_TOLERANCE("advanced.throttler.adaptive.rtt-tolerance"),
+  REQUEST_THROTTLER_ADAPTIVE_SMOOTHING("advanced.throttler.adaptive.smoothing"),
+  REQUEST_THROTTLER_ADAPTIVE_BACKOFF_RATIO("advanced.throttler.adaptive.backoff-ratio"),
+  REQUEST_THROTTLER_PER_NODE_MAX_CONCURRENT_REQUESTS(
+      "advanced.throttler.per-node.max-concurrent-requests"),
+  REQUEST_THROTTLER_PER_DATACENTER_MAX_CONCURRENT_REQUESTS(
+      "advanced.throttler.per-datacenter.max-concurrent-requests"),
   ;
 
   private final String path;
@@ -22,6 +22,7 @@ import com.datastax.oss.driver.api.core.NoNodeAvailableException;
 import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
 import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
 import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.cql.reactive.ReactiveResultSet;
 import com.datastax.oss.driver.api.core.loadbalancing.LoadBalancingPolicy;
 import com.datastax.oss.driver.api.core.loadbalancing.NodeDistance;
 import com.datastax.oss.driver.api.core.metadata.Node;
@@ -67,6 +68,15 @@ public interface Statement<SelfT extends Statement<SelfT>> extends Request {
   GenericType<CompletionStage<AsyncResultSet>> ASYNC =
       new GenericType<CompletionStage<AsyncResultSet>>() {};
 
+  /**
+   * The type returned when a CQL statement is executed reactively.
+   *
+   * <p>Most users won't use this explicitly. It is needed for the generic execute method ({@link
+   * Session#execute(Request, GenericType)}), but CQL statements will generally be run with one of
+   * the driver's built-in helper methods (such as {@link CqlSession#executeReactive(Statement)}).
+   */
+  GenericType<ReactiveResultSet> REACTIVE = GenericType.of(ReactiveResultSet.class);
+
   /**
    * Sets the name of the execution profile that will be used for this statement.
    *
@@ -0,0 +1,83 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.api.core.cql.batching;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Groups single-partition statements into {@link DefaultBatchType#UNLOGGED unlogged} batches, to
+ * reduce the number of requests sent to the cluster.
+ *
+ * <p>Statements are grouped by partition, as identified by their {@linkplain
+ * Statement#getRoutingKeyspace() routing keyspace} and {@linkplain Statement#getRoutingKey()
+ * routing key} (or {@linkplain Statement#getRoutingToken() routing token} if they don't have a
+ * key). Each batch therefore targets a single partition: it is routed to a replica of that
+ * partition like the individual statements would have been, and the coordinator does not have to
+ * forward it to other nodes.
+ *
+ * <p>A pending batch is sent as soon as one of these conditions is met:
+ *
+ * <ul>
+ *   <li>it contains the maximum number of statements;
+ *   <li>its estimated size reaches the maximum size;
+ *   <li>the maximum delay has elapsed since its first statement was added.
+ * </ul>
+ *
+ * Each call to {@link #add(BatchableStatement)} returns its own future, which completes with the
+ * result of the batch that the statement ended up in. Statements that can't be associated with a
+ * partition are executed on their own, immediately.
+ *
+ * <p>Statements are only batched together if they also agree on the options that apply to the whole
+ * batch: execution profile, consistency level, serial consistency level, query timestamp, timeout
+ * and target node. Otherwise they end up in separate batches, and each batch is executed with the
+ * options of its statements. The execution profile of the batcher is used for the statements that
+ * don't specify one.
+ *
+ * @see CqlSession#executeAsync(Statement)
+ */
+public interface StatementBatcher extends AutoCloseable {
+
+  /** Starts building a batcher for the given session. */
+  @NonNull
+  static StatementBatcherBuilder builder(@NonNull CqlSession session) {
+    return new StatementBatcherBuilder(session);
+  }
+
+  /**
+   * Adds a statement to the batch of its partition.
+   *
+   * @return a future that completes when the batch containing the statement has been executed. If
+   *     the batcher is closed, the future fails immediately with an {@link IllegalStateException}.
+   */
+  @NonNull
+  CompletionStage<AsyncResultSet> add(@NonNull BatchableStatement<?> statement);
+
+  /** Sends all pending batches immediately. */
+  void flush();
+
+  /**
+   * Sends all pending batches, and rejects any statement added after this call. This method does
+   * not wait for the batches to complete.
+   */
+  @Override
+  void close();
+}
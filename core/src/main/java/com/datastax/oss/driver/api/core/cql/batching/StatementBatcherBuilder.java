@@ -0,0 +1,93 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.api.core.cql.batching;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.internal.core.cql.batching.DefaultStatementBatcher;
+import com.datastax.oss.driver.shaded.guava.common.base.Preconditions;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.time.Duration;
+import net.jcip.annotations.NotThreadSafe;
+
+/** Builds a {@link StatementBatcher}. */
+@NotThreadSafe
+public class StatementBatcherBuilder {
+
+  @NonNull private final CqlSession session;
+  private int maxStatements = 100;
+  private int maxSizeInBytes = 5 * 1024;
+  @NonNull private Duration maxDelay = Duration.ofMillis(10);
+  @Nullable private String executionProfileName;
+
+  public StatementBatcherBuilder(@NonNull CqlSession session) {
+    this.session = session;
+  }
+
+  /** The maximum number of statements in a batch (100 by default). */
+  @NonNull
+  public StatementBatcherBuilder withMaxStatements(int maxStatements) {
+    Preconditions.checkArgument(
+        maxStatements > 0, "maxStatements must be strictly positive (got %s)", maxStatements);
+    this.maxStatements = maxStatements;
+    return this;
+  }
+
+  /**
+   * The maximum estimated size of a batch, in bytes (5 KB by default, which matches Cassandra's
+   * default {@code batch_size_warn_threshold_in_kb}).
+   *
+   * <p>A statement that is bigger than this limit on its own is still batched, but it will be alone
+   * in its batch.
+   */
+  @NonNull
+  public StatementBatcherBuilder withMaxSizeInBytes(int maxSizeInBytes) {
+    Preconditions.checkArgument(
+        maxSizeInBytes > 0, "maxSizeInBytes must be strictly positive (got %s)", maxSizeInBytes);
+    this.maxSizeInBytes = maxSizeInBytes;
+    return this;
+  }
+
+  /**
+   * How long a statement can wait for its batch to fill up, before the batch is sent anyway (10
+   * milliseconds by default).
+   */
+  @NonNull
+  public StatementBatcherBuilder withMaxDelay(@NonNull Duration maxDelay) {
+    Preconditions.checkArgument(
+        !maxDelay.isNegative() && !maxDelay.isZero(),
+        "maxDelay must be strictly positive (got %s)",
+        maxDelay);
+    this.maxDelay = maxDelay;
+    return this;
+  }
+
+  /**
+   * The execution profile to use for the statements that don't specify one, whether they are
+   * batched or executed on their own. If it is not set, the default profile is used.
+   */
+  @NonNull
+  public StatementBatcherBuilder withExecutionProfileName(@Nullable String executionProfileName) {
+    this.executionProfileName = executionProfileName;
+    return this;
+  }
+
+  @NonNull
+  public StatementBatcher build() {
+    return new DefaultStatementBatcher(
+        session, maxStatements, maxSizeInBytes, maxDelay, executionProfileName);
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.api.core.cql.reactive;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.reactivestreams.Publisher;
+
+/**
+ * The result of a reactive CQL query: a <a href="http://www.reactive-streams.org/">Reactive
+ * Streams</a> publisher of rows.
+ *
+ * <p>The query is executed when the publisher is subscribed to, and the subscriber requests its
+ * first row. Pages are then fetched one at a time, and only when the rows of the current page are
+ * not enough to satisfy the subscriber's demand. Cancelling the subscription stops the fetching,
+ * and cancels the page request that is currently in progress, if any.
+ *
+ * <p>This publisher only supports a single subscriber; any additional subscriber is immediately
+ * notified with an {@link IllegalStateException}. To re-execute the query, call {@link
+ * CqlSession#executeReactive(Statement)} again.
+ *
+ * <p>The metadata of the result is available through {@linkplain #getColumnDefinitions() side
+ * channels}. They are fed as the main publisher fetches pages, so they won't emit anything until
+ * the rows are subscribed to. They also support a single subscriber each.
+ */
+public interface ReactiveResultSet extends Publisher<Row> {
+
+  /**
+   * Returns a publisher that emits the column definitions of the result once, as soon as the first
+   * page has been received, and then completes.
+   *
+   * <p>If the query fails, the publisher emits the error instead. If the main subscription is
+   * cancelled before the first page is received, it completes without emitting any item.
+   */
+  @NonNull
+  Publisher<ColumnDefinitions> getColumnDefinitions();
+
+  /**
+   * Returns a publisher that emits the execution information of each page, as soon as it has been
+   * received. It completes after the last page.
+   *
+   * <p>If the query fails, the publisher emits the error after the execution information of all the
+   * pages that were successfully received. If the main subscription is cancelled, it completes.
+   */
+  @NonNull
+  Publisher<ExecutionInfo> getExecutionInfos();
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.api.core.cql.scan;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.Row;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A full scan of a table, executed as a set of token range queries that run in parallel.
+ *
+ * <p>The ring is split according to the driver's {@linkplain
+ * com.datastax.oss.driver.api.core.metadata.TokenMap token map}: each token range is divided into
+ * sub-ranges ("splits"), and each split is assigned to one of the replicas of its range, balancing
+ * the number of splits per node. The splits are queried in parallel, with a bounded number of
+ * concurrent splits per node, and each query is sent directly to the assigned replica.
+ *
+ * <p>The rows are returned in no particular order: rows from different splits are interleaved as
+ * their pages are received. Within a split, the next page is requested as soon as the current one
+ * is handed to the client, so that fetching overlaps with processing.
+ *
+ * <p>If a query fails, only the split that it belongs to is retried, from the last page that was
+ * successfully received; the retry is routed by the load balancing policy, so that it can go to
+ * another replica. If a split exhausts its retries, the scan is stopped and the error is thrown to
+ * the client.
+ *
+ * <p>The scan is started when {@link #iterator()} is called for the first time; it can only be
+ * iterated once. This is a synchronous API, it must not be used from a driver thread.
+ *
+ * <pre>
+ * try (TableScan scan = TableScan.builder(session, "ks", "tbl").withColumns("id", "v").build()) {
+ *   scan.stream().forEach(row -&gt; ...);
+ * }
+ * </pre>
+ */
+public interface TableScan extends Iterable<Row>, AutoCloseable {
+
+  /** Starts building a scan of the given table. */
+  @NonNull
+  static TableScanBuilder builder(
+      @NonNull CqlSession session, @NonNull CqlIdentifier keyspace, @NonNull CqlIdentifier table) {
+    return new TableScanBuilder(session, keyspace, table);
+  }
+
+  /**
+   * Shortcut for {@link #builder(CqlSession, CqlIdentifier, CqlIdentifier) builder(session,
+   * CqlIdentifier.fromCql(keyspaceName), CqlIdentifier.fromCql(tableName))}.
+   */
+  @NonNull
+  static TableScanBuilder builder(
+      @NonNull CqlSession session, @NonNull String keyspaceName, @NonNull String tableName) {
+    return builder(session, CqlIdentifier.fromCql(keyspaceName), CqlIdentifier.fromCql(tableName));
+  }
+
+  /**
+   * Starts the scan, and returns an iterator over its rows.
+   *
+   * <p>This method can only be called once.
+   *
+   * @throws IllegalStateException if the scan was already started, or if the token map is not
+   *     available (see {@code advanced.metadata.token-map.enabled} in the configuration).
+   */
+  @NonNull
+  @Override
+  Iterator<Row> iterator();
+
+  /**
+   * Returns a sequential stream over the rows of the scan. Closing the stream closes the scan.
+   *
+   * @see #iterator()
+   */
+  @NonNull
+  default Stream<Row> stream() {
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(iterator(), Spliterator.NONNULL), false)
+        .onClose(this::close);
+  }
+
+  /**
+   * Stops the scan: no new split will be started, and the requests that are in progress are
+   * cancelled. The iterator won't return any more rows.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.api.core.cql.scan;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.internal.core.cql.scan.DefaultTableScan;
+import com.datastax.oss.driver.shaded.guava.common.base.Preconditions;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableList;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.List;
+import net.jcip.annotations.NotThreadSafe;
+
+/** Builds a {@link TableScan}. */
+@NotThreadSafe
+public class TableScanBuilder {
+
+  @NonNull private final CqlSession session;
+  @NonNull private final CqlIdentifier keyspace;
+  @NonNull private final CqlIdentifier table;
+  @NonNull private List<CqlIdentifier> columns = ImmutableList.of();
+  private int splitsPerRange = 1;
+  private int maxConcurrentSplitsPerNode = 1;
+  private int maxRetries = 3;
+  @Nullable private String executionProfileName;
+
+  public TableScanBuilder(
+      @NonNull CqlSession session, @NonNull CqlIdentifier keyspace, @NonNull CqlIdentifier table) {
+    this.session = session;
+    this.keyspace = keyspace;
+    this.table = table;
+  }
+
+  /**
+   * Selects the given columns. By default, or if the list is empty, all columns are selected
+   * ({@code SELECT *}).
+   */
+  @NonNull
+  public TableScanBuilder withColumns(@NonNull List<CqlIdentifier> columns) {
+    this.columns = ImmutableList.copyOf(columns);
+    return this;
+  }
+
+  /**
+   * Shortcut for {@link #withColumns(List)} with column names that get converted with {@link
+   * CqlIdentifier#fromCql(String)}.
+   */
+  @NonNull
+  public TableScanBuilder withColumns(@NonNull String... columnNames) {
+    ImmutableList.Builder<CqlIdentifier> builder = ImmutableList.builder();
+    for (String columnName : columnNames) {
+      builder.add(CqlIdentifier.fromCql(columnName));
+    }
+    return withColumns(builder.build());
+  }
+
+  /**
+   * The number of splits that each token range of the ring is divided into (1 by default).
+   *
+   * <p>With vnodes, the ring already has many small ranges, so the default is generally enough.
+   * Otherwise, a higher value produces smaller queries that can be distributed more evenly across
+   * the replicas, and retried at a lower cost.
+   */
+  @NonNull
+  public TableScanBuilder withSplitsPerRange(int splitsPerRange) {
+    Preconditions.checkArgument(
+        splitsPerRange > 0, "splitsPerRange must be strictly positive (got %s)", splitsPerRange);
+    this.splitsPerRange = splitsPerRange;
+    return this;
+  }
+
+  /** The maximum number of splits that are queried concurrently on each node (1 by default). */
+  @NonNull
+  public TableScanBuilder withMaxConcurrentSplitsPerNode(int maxConcurrentSplitsPerNode) {
+    Preconditions.checkArgument(
+        maxConcurrentSplitsPerNode > 0,
+        "maxConcurrentSplitsPerNode must be strictly positive (got %s)",
+        maxConcurrentSplitsPerNode);
+    this.maxConcurrentSplitsPerNode = maxConcurrentSplitsPerNode;
+    return this;
+  }
+
+  /**
+   * How many times a split is retried after a failed query, before the whole scan fails (3 by
+   * default). The count is reset each time a page of the split is received successfully.
+   */
+  @NonNull
+  public TableScanBuilder withMaxRetries(int maxRetries) {
+    Preconditions.checkArgument(
+        maxRetries >= 0, "maxRetries must be positive or zero (got %s)", maxRetries);
+    this.maxRetries = maxRetries;
+    return this;
+  }
+
+  /**
+   * The execution profile to use for the queries of the scan. If it is not set, the default profile
+   * is used.
+   */
+  @NonNull
+  public TableScanBuilder withExecutionProfileName(@Nullable String executionProfileName) {
+    this.executionProfileName = executionProfileName;
+    return this;
+  }
+
+  @NonNull
+  public TableScan build() {
+    return new DefaultTableScan(
+        session,
+        keyspace,
+        table,
+        columns,
+        splitsPerRange,
+        maxConcurrentSplitsPerNode,
+        maxRetries,
+        executionProfileName);
+  }
+}
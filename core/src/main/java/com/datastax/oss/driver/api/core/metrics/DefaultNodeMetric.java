@@ -49,6 +49,7 @@ public enum DefaultNodeMetric implements NodeMetric {
   SPECULATIVE_EXECUTIONS("speculative-executions"),
   CONNECTION_INIT_ERRORS("errors.connection.init"),
   AUTHENTICATION_ERRORS("errors.connection.auth"),
+  PENDING_OUTBOUND_BYTES("pool.pending-outbound-bytes"),
   ;
 
   private static final Map<String, DefaultNodeMetric> BY_PATH = sortByPath();
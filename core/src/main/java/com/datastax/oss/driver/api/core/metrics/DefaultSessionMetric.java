@@ -30,6 +30,13 @@ public enum DefaultSessionMetric implements SessionMetric {
   THROTTLING_QUEUE_SIZE("throttling.queue-size"),
   THROTTLING_ERRORS("throttling.errors"),
   CQL_PREPARED_CACHE_SIZE("cql-prepared-cache-size"),
+  COALESCER_WRITES_PER_FLUSH("coalescer.writes-per-flush"),
+  COALESCER_FLUSH_LATENCY("coalescer.flush-latency"),
+  ALLOCATOR_USED_DIRECT_MEMORY("allocator.used-direct-memory"),
+  ALLOCATOR_USED_HEAP_MEMORY("allocator.used-heap-memory"),
+  ALLOCATOR_ACTIVE_DIRECT_MEMORY("allocator.active-direct-memory"),
+  ALLOCATOR_ACTIVE_HEAP_MEMORY("allocator.active-heap-memory"),
+  THROTTLING_CONCURRENCY_LIMIT("throttling.concurrency-limit"),
   ;
 
   private static final Map<String, DefaultSessionMetric> BY_PATH = sortByPath();
@@ -0,0 +1,194 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.channel;
+
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.metrics.DefaultSessionMetric;
+import com.datastax.oss.driver.internal.core.context.InternalDriverContext;
+import com.datastax.oss.driver.internal.core.metrics.SessionMetricUpdater;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.util.internal.PlatformDependent;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A write coalescer that adapts its flush policy to the load.
+ *
+ * <p>Like {@link DefaultWriteCoalescer}, it maintains a queue per event loop, and the first write
+ * enqueued triggers a task that writes and flushes everything in the queue. The differences are:
+ *
+ * <ul>
+ *   <li>the queues are bounded, array-backed MPSC queues, so enqueuing does not allocate a node per
+ *       write. If a queue is full, the producer does not wait: the write goes to an unbounded
+ *       overflow queue that the event loop processes after the bounded one. Subsequent writes also
+ *       go to the overflow queue until it is empty, to preserve the ordering;
+ *   <li>at low load (the task wrote less than {@code batch-threshold} messages), the task stops
+ *       right away, so the next write is flushed immediately instead of waiting for a reschedule.
+ *       At high load, the task reschedules itself after {@code reschedule-interval} in order to
+ *       accumulate larger batches. There are no idle runs.
+ * </ul>
+ *
+ * It also reports the number of writes per flush and the flush latency (the time that the oldest
+ * write of each batch spent in the queue) as session metrics, if they are enabled.
+ */
+@ThreadSafe
+public class AdaptiveWriteCoalescer implements WriteCoalescer {
+
+  private final int queueCapacity;
+  private final int batchThreshold;
+  private final long rescheduleIntervalNanos;
+  private final SessionMetricUpdater metricUpdater;
+  private final boolean recordWritesPerFlush;
+  private final boolean recordFlushLatency;
+  private final ConcurrentMap<EventLoop, Flusher> flushers = new ConcurrentHashMap<>();
+
+  public AdaptiveWriteCoalescer(DriverContext context) {
+    DriverExecutionProfile config = context.getConfig().getDefaultProfile();
+    queueCapacity = config.getInt(DefaultDriverOption.COALESCER_QUEUE_CAPACITY);
+    batchThreshold = config.getInt(DefaultDriverOption.COALESCER_BATCH_THRESHOLD);
+    rescheduleIntervalNanos = config.getDuration(DefaultDriverOption.COALESCER_INTERVAL).toNanos();
+    metricUpdater = ((InternalDriverContext) context).getMetricsFactory().getSessionUpdater();
+    recordWritesPerFlush =
+        metricUpdater.isEnabled(DefaultSessionMetric.COALESCER_WRITES_PER_FLUSH, null);
+    recordFlushLatency =
+        metricUpdater.isEnabled(DefaultSessionMetric.COALESCER_FLUSH_LATENCY, null);
+  }
+
+  @Override
+  public ChannelFuture writeAndFlush(Channel channel, Object message) {
+    ChannelPromise writePromise = channel.newPromise();
+    Write write =
+        new Write(channel, message, writePromise, recordFlushLatency ? System.nanoTime() : 0);
+    EventLoop eventLoop = channel.eventLoop();
+    Flusher flusher = flushers.computeIfAbsent(eventLoop, Flusher::new);
+    flusher.enqueue(write);
+    return writePromise;
+  }
+
+  private class Flusher {
+    private final EventLoop eventLoop;
+
+    // These variables are accessed both from client threads and the event loop
+    private final Queue<Write> writes = PlatformDependent.newFixedMpscQueue(queueCapacity);
+    // Only used when the bounded queue is full (see enqueue)
+    private final Queue<Write> overflow = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // These variables are accessed only from the event loop, they don't need to be thread-safe
+    private final Set<Channel> channels = new HashSet<>();
+
+    private Flusher(EventLoop eventLoop) {
+      this.eventLoop = eventLoop;
+    }
+
+    private void enqueue(Write write) {
+      // If previous writes have overflowed, this one must follow them (the event loop only drains
+      // the overflow queue after the bounded one).
+      if (!overflow.isEmpty() || !writes.offer(write)) {
+        overflow.offer(write);
+      }
+      if (running.compareAndSet(false, true)) {
+        eventLoop.execute(this::runOnEventLoop);
+      }
+    }
+
+    private void runOnEventLoop() {
+      assert eventLoop.inEventLoop();
+
+      while (true) {
+        int count = drain();
+        if (count >= batchThreshold) {
+          // High load: give more writes a chance to accumulate before the next flush
+          if (!eventLoop.isShuttingDown()) {
+            eventLoop.schedule(this::runOnEventLoop, rescheduleIntervalNanos, TimeUnit.NANOSECONDS);
+            return;
+          }
+        }
+        // Low load: stop now, so that the next write gets flushed immediately
+        running.set(false);
+        // If no new writes have been enqueued since the previous line, we can return safely
+        if (writes.isEmpty() && overflow.isEmpty()) {
+          return;
+        }
+        // Otherwise check if those writes have triggered a new run. If not, we need to do that
+        // ourselves (i.e. not return yet)
+        if (!running.compareAndSet(false, true)) {
+          return;
+        }
+      }
+    }
+
+    /** @return the number of writes that were processed. */
+    private int drain() {
+      int count = 0;
+      long oldestEnqueueNanos = 0;
+      Write write;
+      while ((write = writes.poll()) != null || (write = overflow.poll()) != null) {
+        if (count == 0) {
+          oldestEnqueueNanos = write.enqueueNanos;
+        }
+        Channel channel = write.channel;
+        channels.add(channel);
+        channel.write(write.message, write.writePromise);
+        count += 1;
+      }
+      if (count > 0) {
+        for (Channel channel : channels) {
+          channel.flush();
+        }
+        channels.clear();
+        if (recordWritesPerFlush) {
+          metricUpdater.updateHistogram(
+              DefaultSessionMetric.COALESCER_WRITES_PER_FLUSH, null, count);
+        }
+        if (recordFlushLatency) {
+          metricUpdater.updateTimer(
+              DefaultSessionMetric.COALESCER_FLUSH_LATENCY,
+              null,
+              System.nanoTime() - oldestEnqueueNanos,
+              TimeUnit.NANOSECONDS);
+        }
+      }
+      return count;
+    }
+  }
+
+  private static class Write {
+    private final Channel channel;
+    private final Object message;
+    private final ChannelPromise writePromise;
+    private final long enqueueNanos;
+
+    private Write(Channel channel, Object message, ChannelPromise writePromise, long enqueueNanos) {
+      this.channel = channel;
+      this.message = message;
+      this.writePromise = writePromise;
+      this.enqueueNanos = enqueueNanos;
+    }
+  }
+}
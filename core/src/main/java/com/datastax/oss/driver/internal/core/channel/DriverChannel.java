@@ -23,6 +23,7 @@ import com.datastax.oss.protocol.internal.Message;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.EventLoop;
 import io.netty.util.AttributeKey;
 import io.netty.util.concurrent.Future;
@@ -146,6 +147,36 @@ public class DriverChannel {
     return inFlightHandler.getOrphanIds();
   }
 
+  /**
+   * @return a moving average of the response time of the requests on this channel, in nanoseconds,
+   *     or 0 if no response has been received yet. To keep the overhead low, only one request at a
+   *     time is measured.
+   */
+  public long getLatencyNanos() {
+    return inFlightHandler.getLatencyNanos();
+  }
+
+  /**
+   * Whether the underlying Netty channel can accept more writes without queuing them.
+   *
+   * <p>This becomes false when the outbound buffer exceeds its high water mark (typically because
+   * the socket's send buffer is full), and true again when it drains below the low water mark.
+   *
+   * @see Channel#isWritable()
+   */
+  public boolean isWritable() {
+    return channel.isWritable();
+  }
+
+  /**
+   * @return the number of bytes that have been written to the channel but not yet flushed to the
+   *     socket.
+   */
+  public long getPendingOutboundBytes() {
+    ChannelOutboundBuffer outboundBuffer = channel.unsafe().outboundBuffer();
+    return (outboundBuffer == null) ? 0 : outboundBuffer.totalPendingWriteBytes();
+  }
+
   public EventLoop eventLoop() {
     return channel.eventLoop();
   }
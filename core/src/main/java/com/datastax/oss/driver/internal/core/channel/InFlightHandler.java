@@ -25,9 +25,6 @@ import com.datastax.oss.driver.internal.core.channel.DriverChannel.RequestMessag
 import com.datastax.oss.driver.internal.core.channel.DriverChannel.SetKeyspaceEvent;
 import com.datastax.oss.driver.internal.core.protocol.FrameDecodingException;
 import com.datastax.oss.driver.internal.core.util.Loggers;
-import com.datastax.oss.driver.shaded.guava.common.collect.BiMap;
-import com.datastax.oss.driver.shaded.guava.common.collect.HashBiMap;
-import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableSet;
 import com.datastax.oss.protocol.internal.Frame;
 import com.datastax.oss.protocol.internal.Message;
 import com.datastax.oss.protocol.internal.request.Query;
@@ -38,9 +35,7 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.util.concurrent.Promise;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.List;
 import net.jcip.annotations.NotThreadSafe;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,12 +49,15 @@ public class InFlightHandler extends ChannelDuplexHandler {
   private final StreamIdGenerator streamIds;
   final ChannelPromise closeStartedFuture;
   private final String ownerLogPrefix;
-  private final BiMap<Integer, ResponseCallback> inFlight;
-  private final Map<Integer, ResponseCallback> orphaned;
+  private final InFlightTable inFlight;
   private volatile int orphanedSize; // thread-safe view for metrics
   private final long setKeyspaceTimeoutMillis;
   private final EventCallback eventCallback;
   private final int maxOrphanStreamIds;
+  // Latency is sampled on one request at a time, see write() and channelRead()
+  private int probeStreamId = -1;
+  private long probeStartNanos;
+  private volatile long latencyNanos; // thread-safe view for channel selectors
   private boolean closingGracefully;
   private SetKeyspaceRequest setKeyspaceRequest;
   private String logPrefix;
@@ -78,8 +76,7 @@ public class InFlightHandler extends ChannelDuplexHandler {
     this.closeStartedFuture = closeStartedFuture;
     this.ownerLogPrefix = ownerLogPrefix;
     this.logPrefix = ownerLogPrefix + "|connecting...";
-    this.inFlight = HashBiMap.create(streamIds.getMaxAvailableIds());
-    this.orphaned = new HashMap<>(maxOrphanStreamIds);
+    this.inFlight = new InFlightTable(streamIds.getMaxAvailableIds());
     this.setKeyspaceTimeoutMillis = setKeyspaceTimeoutMillis;
     this.eventCallback = eventCallback;
   }
@@ -125,13 +122,15 @@ public class InFlightHandler extends ChannelDuplexHandler {
       return;
     }
 
-    if (inFlight.containsKey(streamId)) {
+    if (inFlight.isUsed(streamId)) {
       promise.setFailure(
           new IllegalStateException("Found pending callback for stream id " + streamId));
       return;
     }
 
-    LOG.trace("[{}] Writing {} on stream id {}", logPrefix, message.responseCallback, streamId);
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("[{}] Writing {} on stream id {}", logPrefix, message.responseCallback, streamId);
+    }
     Frame frame =
         Frame.forRequest(
             protocolVersion.getCode(),
@@ -140,7 +139,11 @@ public class InFlightHandler extends ChannelDuplexHandler {
             message.customPayload,
             message.request);
 
-    inFlight.put(streamId, message.responseCallback);
+    inFlight.putInFlight(streamId, message.responseCallback);
+    if (probeStreamId < 0) {
+      probeStreamId = streamId;
+      probeStartNanos = System.nanoTime();
+    }
     ChannelFuture writeFuture = ctx.write(frame, promise);
     writeFuture.addListener(
         future -> {
@@ -154,8 +157,12 @@ public class InFlightHandler extends ChannelDuplexHandler {
 
   private void cancel(
       ChannelHandlerContext ctx, ResponseCallback responseCallback, ChannelPromise promise) {
-    Integer streamId = inFlight.inverse().remove(responseCallback);
-    if (streamId == null) {
+    int streamId = inFlight.removeInFlight(responseCallback);
+    if (streamId == probeStreamId) {
+      // Don't measure cancelled requests, their response (if any) doesn't reflect the latency
+      probeStreamId = -1;
+    }
+    if (streamId < 0) {
       LOG.trace(
           "[{}] Received cancellation for unknown or already cancelled callback {}, skipping",
           logPrefix,
@@ -163,22 +170,22 @@ public class InFlightHandler extends ChannelDuplexHandler {
     } else {
       LOG.trace(
           "[{}] Cancelled callback {} for stream id {}", logPrefix, responseCallback, streamId);
-      if (closingGracefully && inFlight.isEmpty()) {
+      if (closingGracefully && inFlight.getInFlightCount() == 0) {
         LOG.debug("[{}] Last pending query was cancelled, closing channel", logPrefix);
         ctx.channel().close();
       } else {
         // We can't release the stream id, because a response might still come back from the server.
         // Keep track of those "orphaned" ids, to release them later if we get a response and the
         // callback says it's the last one.
-        orphaned.put(streamId, responseCallback);
-        if (orphaned.size() > maxOrphanStreamIds) {
+        inFlight.putOrphaned(streamId, responseCallback);
+        if (inFlight.getOrphanedCount() > maxOrphanStreamIds) {
           LOG.debug(
               "[{}] Orphan stream ids exceeded the configured threshold ({}), closing gracefully",
               logPrefix,
               maxOrphanStreamIds);
           startGracefulShutdown(ctx);
         } else {
-          orphanedSize = orphaned.size();
+          orphanedSize = inFlight.getOrphanedCount();
         }
       }
     }
@@ -186,7 +193,7 @@ public class InFlightHandler extends ChannelDuplexHandler {
   }
 
   private void startGracefulShutdown(ChannelHandlerContext ctx) {
-    if (inFlight.isEmpty()) {
+    if (inFlight.getInFlightCount() == 0) {
       LOG.debug("[{}] No pending queries, completing graceful shutdown now", logPrefix);
       ctx.channel().close();
     } else {
@@ -222,10 +229,10 @@ public class InFlightHandler extends ChannelDuplexHandler {
       }
     } else {
       boolean wasInFlight = true;
-      ResponseCallback callback = inFlight.get(streamId);
+      ResponseCallback callback = inFlight.getInFlight(streamId);
       if (callback == null) {
         wasInFlight = false;
-        callback = orphaned.get(streamId);
+        callback = inFlight.getOrphaned(streamId);
         if (callback == null) {
           LOG.trace("[{}] Got response on unknown stream id {}, skipping", streamId);
           return;
@@ -233,13 +240,18 @@ public class InFlightHandler extends ChannelDuplexHandler {
       }
       try {
         if (callback.isLastResponse(responseFrame)) {
-          LOG.debug(
-              "[{}] Got last response on {} stream id {}, completing and releasing",
-              logPrefix,
-              wasInFlight ? "in-flight" : "orphaned",
-              streamId);
+          if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                "[{}] Got last response on {} stream id {}, completing and releasing",
+                logPrefix,
+                wasInFlight ? "in-flight" : "orphaned",
+                streamId);
+          }
+          if (wasInFlight && streamId == probeStreamId) {
+            recordLatency(System.nanoTime() - probeStartNanos);
+          }
           release(streamId, ctx);
-        } else {
+        } else if (LOG.isTraceEnabled()) {
           LOG.trace(
               "[{}] Got non-last response on {} stream id {}, still holding",
               logPrefix,
@@ -274,7 +286,7 @@ public class InFlightHandler extends ChannelDuplexHandler {
       LOG.debug("[{}] Error while decoding response on stream id {}", logPrefix, streamId);
       if (streamId >= 0) {
         // We know which request matches the failing response, fail that one only
-        ResponseCallback responseCallback = inFlight.get(streamId);
+        ResponseCallback responseCallback = inFlight.getInFlight(streamId);
         if (responseCallback != null) {
           try {
             responseCallback.onFailure(exception.getCause());
@@ -330,18 +342,23 @@ public class InFlightHandler extends ChannelDuplexHandler {
   }
 
   private void release(int streamId, ChannelHandlerContext ctx) {
-    LOG.trace("[{}] Releasing stream id {}", logPrefix, streamId);
-    if (inFlight.remove(streamId) != null) {
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("[{}] Releasing stream id {}", logPrefix, streamId);
+    }
+    if (streamId == probeStreamId) {
+      probeStreamId = -1;
+    }
+    if (inFlight.removeInFlight(streamId) != null) {
       // If we're in the middle of an orderly close and this was the last request, actually close
       // the channel now
-      if (closingGracefully && inFlight.isEmpty()) {
+      if (closingGracefully && inFlight.getInFlightCount() == 0) {
         LOG.debug("[{}] Done handling the last pending query, closing channel", logPrefix);
         ctx.channel().close();
       }
-    } else if (orphaned.remove(streamId) != null) {
-      orphanedSize = orphaned.size();
+    } else if (inFlight.removeOrphaned(streamId) != null) {
+      orphanedSize = inFlight.getOrphanedCount();
     }
-    // Note: it's possible that the callback is in neither map, if we get here after a call to
+    // Note: it's possible that the callback is in neither state, if we get here after a call to
     // abortAllInFlight that already cleared the map (see JAVA-2000)
     streamIds.release(streamId);
   }
@@ -355,11 +372,10 @@ public class InFlightHandler extends ChannelDuplexHandler {
    *     loop)
    */
   private void abortAllInFlight(DriverException cause, ResponseCallback ignore) {
-    if (!inFlight.isEmpty()) {
-      // Clear the map now and iterate on a copy, in case one of the onFailure calls below recurses
-      // back into this method
-      Set<ResponseCallback> toAbort = ImmutableSet.copyOf(inFlight.values());
-      inFlight.clear();
+    if (inFlight.getInFlightCount() > 0) {
+      // Clear the table now and iterate on a copy, in case one of the onFailure calls below
+      // recurses back into this method
+      List<ResponseCallback> toAbort = inFlight.clearInFlight();
       for (ResponseCallback responseCallback : toAbort) {
         if (responseCallback != ignore) {
           responseCallback.onFailure(cause);
@@ -370,10 +386,25 @@ public class InFlightHandler extends ChannelDuplexHandler {
     }
   }
 
+  /**
+   * Updates the exponentially weighted moving average of the response time, with the same weight as
+   * TCP's smoothed round-trip time (1/8 for the new sample).
+   */
+  @SuppressWarnings("NonAtomicVolatileUpdate") // only updated from the event loop
+  private void recordLatency(long sampleNanos) {
+    long current = latencyNanos;
+    latencyNanos =
+        (current == 0) ? Math.max(sampleNanos, 1) : current + (sampleNanos - current) / 8;
+  }
+
   int getAvailableIds() {
     return streamIds.getAvailableIds();
   }
 
+  long getLatencyNanos() {
+    return latencyNanos;
+  }
+
   int getInFlight() {
     return streamIds.getMaxAvailableIds() - streamIds.getAvailableIds();
   }
@@ -0,0 +1,243 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.channel;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Tracks the callbacks of the requests that are currently executing on a channel, indexed by stream
+ * id.
+ *
+ * <p>Each stream id is either free, in-flight (a request was written and we're waiting for its
+ * response) or orphaned (the request was cancelled, but the server might still reply so the id
+ * can't be reused yet).
+ *
+ * <p>Callbacks are stored in a plain array, so that lookups by stream id (on every read and write)
+ * don't box the id or allocate map entries. Cancellation needs the reverse lookup (callback to
+ * stream id), which is served by an identity-based open addressing table; it grows with the peak
+ * number of concurrent requests, but never allocates in steady state.
+ *
+ * <p>This class is not thread safe, it is only accessed from the channel's event loop.
+ */
+@NotThreadSafe
+class InFlightTable {
+
+  private static final int MIN_INDEX_CAPACITY = 16;
+
+  private final ResponseCallback[] callbacks;
+  private final BitSet orphaned;
+  private int inFlightCount;
+  private int orphanedCount;
+
+  // Reverse index for in-flight callbacks: linear probing, capacity is always a power of two
+  private ResponseCallback[] indexKeys;
+  private int[] indexIds;
+
+  InFlightTable(int maxStreamIds) {
+    this.callbacks = new ResponseCallback[maxStreamIds];
+    this.orphaned = new BitSet(maxStreamIds);
+    this.indexKeys = new ResponseCallback[MIN_INDEX_CAPACITY];
+    this.indexIds = new int[MIN_INDEX_CAPACITY];
+  }
+
+  /** Whether the stream id is in use, either by an in-flight or an orphaned request. */
+  boolean isUsed(int streamId) {
+    return isInRange(streamId) && callbacks[streamId] != null;
+  }
+
+  /**
+   * @return the in-flight callback for this stream id, or null if there is none (including if the
+   *     id is out of range, for example if the server replied with an invalid id).
+   */
+  ResponseCallback getInFlight(int streamId) {
+    return (!isInRange(streamId) || orphaned.get(streamId)) ? null : callbacks[streamId];
+  }
+
+  /** @return the orphaned callback for this stream id, or null if there is none. */
+  ResponseCallback getOrphaned(int streamId) {
+    return (isInRange(streamId) && orphaned.get(streamId)) ? callbacks[streamId] : null;
+  }
+
+  private boolean isInRange(int streamId) {
+    return streamId >= 0 && streamId < callbacks.length;
+  }
+
+  /**
+   * Registers a new in-flight request.
+   *
+   * @throws IllegalStateException if the stream id is already used, or if the callback is already
+   *     in flight on another stream id.
+   */
+  void putInFlight(int streamId, ResponseCallback callback) {
+    if (callbacks[streamId] != null) {
+      throw new IllegalStateException("Found pending callback for stream id " + streamId);
+    }
+    if ((inFlightCount + 1) * 2 > indexKeys.length) {
+      resizeIndex(indexKeys.length * 2);
+    }
+    int mask = indexKeys.length - 1;
+    int i = hash(callback) & mask;
+    while (indexKeys[i] != null) {
+      if (indexKeys[i] == callback) {
+        throw new IllegalStateException(
+            "Callback " + callback + " is already in flight on stream id " + indexIds[i]);
+      }
+      i = (i + 1) & mask;
+    }
+    indexKeys[i] = callback;
+    indexIds[i] = streamId;
+    callbacks[streamId] = callback;
+    inFlightCount += 1;
+  }
+
+  /**
+   * Removes an in-flight request by its stream id.
+   *
+   * @return the callback, or null if that stream id was not in flight.
+   */
+  ResponseCallback removeInFlight(int streamId) {
+    ResponseCallback callback = getInFlight(streamId);
+    if (callback != null) {
+      callbacks[streamId] = null;
+      inFlightCount -= 1;
+      removeFromIndex(callback);
+    }
+    return callback;
+  }
+
+  /**
+   * Removes an in-flight request by its callback.
+   *
+   * @return the stream id that the callback was using, or -1 if it was not in flight.
+   */
+  int removeInFlight(ResponseCallback callback) {
+    int streamId = removeFromIndex(callback);
+    if (streamId >= 0) {
+      callbacks[streamId] = null;
+      inFlightCount -= 1;
+    }
+    return streamId;
+  }
+
+  /** Marks a stream id as orphaned; it must not be in flight. */
+  void putOrphaned(int streamId, ResponseCallback callback) {
+    callbacks[streamId] = callback;
+    orphaned.set(streamId);
+    orphanedCount += 1;
+  }
+
+  /**
+   * Removes an orphaned request.
+   *
+   * @return the callback, or null if that stream id was not orphaned.
+   */
+  ResponseCallback removeOrphaned(int streamId) {
+    ResponseCallback callback = getOrphaned(streamId);
+    if (callback != null) {
+      callbacks[streamId] = null;
+      orphaned.clear(streamId);
+      orphanedCount -= 1;
+    }
+    return callback;
+  }
+
+  /**
+   * Removes all in-flight requests (orphaned ones are left untouched).
+   *
+   * @return the callbacks that were removed.
+   */
+  List<ResponseCallback> clearInFlight() {
+    List<ResponseCallback> result = new ArrayList<>(inFlightCount);
+    for (int i = 0; i < indexKeys.length; i++) {
+      ResponseCallback callback = indexKeys[i];
+      if (callback != null) {
+        result.add(callback);
+        callbacks[indexIds[i]] = null;
+        indexKeys[i] = null;
+      }
+    }
+    inFlightCount = 0;
+    return result;
+  }
+
+  int getInFlightCount() {
+    return inFlightCount;
+  }
+
+  int getOrphanedCount() {
+    return orphanedCount;
+  }
+
+  private int removeFromIndex(ResponseCallback callback) {
+    int mask = indexKeys.length - 1;
+    int i = hash(callback) & mask;
+    while (indexKeys[i] != callback) {
+      if (indexKeys[i] == null) {
+        return -1;
+      }
+      i = (i + 1) & mask;
+    }
+    int streamId = indexIds[i];
+    // Backward shift deletion: move up any subsequent entry of the probe sequence that would
+    // become unreachable because of the hole
+    int hole = i;
+    int j = i;
+    while (true) {
+      j = (j + 1) & mask;
+      ResponseCallback key = indexKeys[j];
+      if (key == null) {
+        break;
+      }
+      int home = hash(key) & mask;
+      // Move the entry if its home slot is not cyclically in (hole, j]
+      if ((j > hole) ? (home <= hole || home > j) : (home <= hole && home > j)) {
+        indexKeys[hole] = key;
+        indexIds[hole] = indexIds[j];
+        hole = j;
+      }
+    }
+    indexKeys[hole] = null;
+    return streamId;
+  }
+
+  private void resizeIndex(int newCapacity) {
+    ResponseCallback[] oldKeys = indexKeys;
+    int[] oldIds = indexIds;
+    indexKeys = new ResponseCallback[newCapacity];
+    indexIds = new int[newCapacity];
+    int mask = newCapacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      ResponseCallback key = oldKeys[i];
+      if (key != null) {
+        int j = hash(key) & mask;
+        while (indexKeys[j] != null) {
+          j = (j + 1) & mask;
+        }
+        indexKeys[j] = key;
+        indexIds[j] = oldIds[i];
+      }
+    }
+  }
+
+  private static int hash(ResponseCallback callback) {
+    // Spread the bits, identity hash codes are not uniformly distributed in the low bits
+    int h = System.identityHashCode(callback) * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -23,7 +23,7 @@ import com.datastax.oss.protocol.internal.Frame;
  * <p>This comes into play after the request has been successfully written to the channel.
  *
  * <p>Due to internal implementation constraints, different instances of this type must not be equal
- * to each other (they are stored in a {@code BiMap} in {@link InFlightHandler}); reference equality
+ * to each other (they are indexed by identity in {@link InFlightHandler}); reference equality
  * should be appropriate in all cases.
  */
 public interface ResponseCallback {
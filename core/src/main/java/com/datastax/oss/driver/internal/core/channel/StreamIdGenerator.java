@@ -15,12 +15,18 @@
  */
 package com.datastax.oss.driver.internal.core.channel;
 
-import java.util.BitSet;
 import net.jcip.annotations.NotThreadSafe;
 
 /**
  * Manages the set of identifiers used to distinguish multiplexed requests on a channel.
  *
+ * <p>Ids are tracked in a bitmap, and allocated with a rotating cursor: each acquisition resumes
+ * the search right after the last id that was handed out, and wraps around at the end. This makes
+ * {@link #acquire()} O(1) amortized (it skips 64 ids at a time over fully borrowed words), and
+ * spreads ids over the whole range, so that a recently released id is not reused right away. The
+ * latter reduces the risk of matching a late response (for example on an id that was orphaned and
+ * then released) with the wrong request.
+ *
  * <p>This class is not thread safe: calls to {@link #acquire()} and {@link #release(int)} must be
  * properly synchronized (in practice this is done by only calling them from the I/O thread).
  * However, {@link #getAvailableIds()} has volatile semantics.
@@ -30,34 +36,56 @@ class StreamIdGenerator {
 
   private final int maxAvailableIds;
   // unset = available, set = borrowed (note that this is the opposite of the 3.x implementation)
-  private final BitSet ids;
+  private final long[] words;
+  // the next id to try
+  private int cursor;
   private volatile int availableIds;
 
   StreamIdGenerator(int maxAvailableIds) {
     this.maxAvailableIds = maxAvailableIds;
-    this.ids = new BitSet(this.maxAvailableIds);
+    this.words = new long[(maxAvailableIds + 63) >>> 6];
+    // Mark the trailing bits of the last word as borrowed, so that they are never handed out
+    int trailing = maxAvailableIds & 63;
+    if (trailing != 0) {
+      words[words.length - 1] = -1L << trailing;
+    }
     this.availableIds = this.maxAvailableIds;
   }
 
   @SuppressWarnings("NonAtomicVolatileUpdate") // see explanation in class Javadoc
   int acquire() {
-    int id = ids.nextClearBit(0);
-    if (id >= maxAvailableIds) {
+    if (availableIds == 0) {
       return -1;
     }
-    ids.set(id);
+    int wordIndex = cursor >>> 6;
+    // In the first word, ignore the ids before the cursor (they'll be checked last if we wrap)
+    long free = ~words[wordIndex] & (-1L << cursor);
+    // We know there is at least one available id, so this always terminates in at most
+    // words.length + 1 iterations
+    while (free == 0) {
+      wordIndex += 1;
+      if (wordIndex == words.length) {
+        wordIndex = 0;
+      }
+      free = ~words[wordIndex];
+    }
+    int id = (wordIndex << 6) + Long.numberOfTrailingZeros(free);
+    words[wordIndex] |= 1L << id;
+    cursor = (id + 1 == maxAvailableIds) ? 0 : id + 1;
     availableIds--;
     return id;
   }
 
   @SuppressWarnings("NonAtomicVolatileUpdate")
   void release(int id) {
-    if (ids.get(id)) {
+    int wordIndex = id >>> 6;
+    long mask = 1L << id;
+    if (id < maxAvailableIds && (words[wordIndex] & mask) != 0) {
       availableIds++;
     } else {
       throw new IllegalStateException("Tried to release id that hadn't been borrowed: " + id);
     }
-    ids.clear(id);
+    words[wordIndex] &= ~mask;
   }
 
   int getAvailableIds() {
@@ -0,0 +1,110 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.config;
+
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.internal.core.config.typesafe.TypesafeDriverExecutionProfile;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Duration;
+import net.jcip.annotations.Immutable;
+
+/**
+ * The values of the options that are read for every request, extracted from an execution profile at
+ * a given point in time.
+ *
+ * <p>Looking up an option in a profile involves a map lookup on its path; this class allows the
+ * request path to read them as plain fields instead.
+ *
+ * @see #of(DriverExecutionProfile)
+ */
+@Immutable
+public class RequestOptionsSnapshot {
+
+  /**
+   * Returns the snapshot for the given profile.
+   *
+   * <p>For profiles built from the driver's configuration, the snapshot is cached in the profile,
+   * and rebuilt if the configuration gets reloaded. For other implementations, a new instance is
+   * created every time.
+   */
+  @NonNull
+  public static RequestOptionsSnapshot of(@NonNull DriverExecutionProfile profile) {
+    return (profile instanceof TypesafeDriverExecutionProfile)
+        ? ((TypesafeDriverExecutionProfile) profile).getRequestOptions()
+        : new RequestOptionsSnapshot(profile);
+  }
+
+  private final Duration timeout;
+  private final String consistency;
+  private final int pageSize;
+  private final String serialConsistency;
+  private final boolean defaultIdempotence;
+  private final boolean logWarnings;
+  private final int prefetchThreshold;
+  private final int prefetchMaxPages;
+
+  public RequestOptionsSnapshot(@NonNull DriverExecutionProfile profile) {
+    this.timeout = profile.getDuration(DefaultDriverOption.REQUEST_TIMEOUT);
+    this.consistency = profile.getString(DefaultDriverOption.REQUEST_CONSISTENCY);
+    this.pageSize = profile.getInt(DefaultDriverOption.REQUEST_PAGE_SIZE);
+    this.serialConsistency = profile.getString(DefaultDriverOption.REQUEST_SERIAL_CONSISTENCY);
+    this.defaultIdempotence = profile.getBoolean(DefaultDriverOption.REQUEST_DEFAULT_IDEMPOTENCE);
+    this.logWarnings = profile.getBoolean(DefaultDriverOption.REQUEST_LOG_WARNINGS);
+    this.prefetchThreshold = profile.getInt(DefaultDriverOption.REQUEST_PREFETCH_THRESHOLD, 0);
+    this.prefetchMaxPages = profile.getInt(DefaultDriverOption.REQUEST_PREFETCH_MAX_PAGES, 1);
+  }
+
+  /** @see DefaultDriverOption#REQUEST_TIMEOUT */
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  /** @see DefaultDriverOption#REQUEST_CONSISTENCY */
+  public String getConsistency() {
+    return consistency;
+  }
+
+  /** @see DefaultDriverOption#REQUEST_PAGE_SIZE */
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  /** @see DefaultDriverOption#REQUEST_SERIAL_CONSISTENCY */
+  public String getSerialConsistency() {
+    return serialConsistency;
+  }
+
+  /** @see DefaultDriverOption#REQUEST_DEFAULT_IDEMPOTENCE */
+  public boolean isDefaultIdempotence() {
+    return defaultIdempotence;
+  }
+
+  /** @see DefaultDriverOption#REQUEST_LOG_WARNINGS */
+  public boolean isLogWarnings() {
+    return logWarnings;
+  }
+
+  /** @see DefaultDriverOption#REQUEST_PREFETCH_THRESHOLD */
+  public int getPrefetchThreshold() {
+    return prefetchThreshold;
+  }
+
+  /** @see DefaultDriverOption#REQUEST_PREFETCH_MAX_PAGES */
+  public int getPrefetchMaxPages() {
+    return prefetchMaxPages;
+  }
+}
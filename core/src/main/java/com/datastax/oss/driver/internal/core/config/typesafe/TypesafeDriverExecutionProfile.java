@@ -17,6 +17,7 @@ package com.datastax.oss.driver.internal.core.config.typesafe;
 
 import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
 import com.datastax.oss.driver.api.core.config.DriverOption;
+import com.datastax.oss.driver.internal.core.config.RequestOptionsSnapshot;
 import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableMap;
 import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableSortedSet;
 import com.datastax.oss.driver.shaded.guava.common.collect.MapMaker;
@@ -38,6 +39,7 @@ import java.util.SortedSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
+import net.jcip.annotations.Immutable;
 import net.jcip.annotations.ThreadSafe;
 
 @ThreadSafe
@@ -54,6 +56,8 @@ public abstract class TypesafeDriverExecutionProfile implements DriverExecutionP
 
   protected final ConcurrentMap<String, Object> cache = new ConcurrentHashMap<>();
 
+  private volatile CachedRequestOptions requestOptions;
+
   @Override
   public boolean isDefined(@NonNull DriverOption option) {
     return getEffectiveOptions().hasPath(option.getPath());
@@ -284,6 +288,23 @@ public abstract class TypesafeDriverExecutionProfile implements DriverExecutionP
     return builder.build();
   }
 
+  /**
+   * Returns a snapshot of the request options. It is cached until the effective options of this
+   * profile change.
+   */
+  @NonNull
+  public RequestOptionsSnapshot getRequestOptions() {
+    Config options = getEffectiveOptions();
+    CachedRequestOptions cached = requestOptions;
+    if (cached == null || cached.source != options) {
+      // Read from a standalone profile over the options we just got: the regular cache could be
+      // cleared concurrently by a refresh, and we don't want a mix of old and new values.
+      RequestOptionsSnapshot snapshot = new RequestOptionsSnapshot(new Base(getName(), options));
+      requestOptions = cached = new CachedRequestOptions(options, snapshot);
+    }
+    return cached.snapshot;
+  }
+
   private <T> T getCached(String path, Function<String, T> compute) {
     // compute's signature guarantees we get a T, and this is the only place where we mutate the
     // entry
@@ -302,6 +323,17 @@ public abstract class TypesafeDriverExecutionProfile implements DriverExecutionP
     return derived;
   }
 
+  @Immutable
+  private static class CachedRequestOptions {
+    private final Config source;
+    private final RequestOptionsSnapshot snapshot;
+
+    private CachedRequestOptions(Config source, RequestOptionsSnapshot snapshot) {
+      this.source = source;
+      this.snapshot = snapshot;
+    }
+  }
+
   /** A profile that was loaded directly from the driver's configuration. */
   @ThreadSafe
   static class Base extends TypesafeDriverExecutionProfile {
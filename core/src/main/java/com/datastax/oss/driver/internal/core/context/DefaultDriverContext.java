@@ -40,7 +40,6 @@ import com.datastax.oss.driver.internal.core.ConsistencyLevelRegistry;
 import com.datastax.oss.driver.internal.core.DefaultConsistencyLevelRegistry;
 import com.datastax.oss.driver.internal.core.ProtocolVersionRegistry;
 import com.datastax.oss.driver.internal.core.channel.ChannelFactory;
-import com.datastax.oss.driver.internal.core.channel.DefaultWriteCoalescer;
 import com.datastax.oss.driver.internal.core.channel.WriteCoalescer;
 import com.datastax.oss.driver.internal.core.control.ControlConnection;
 import com.datastax.oss.driver.internal.core.metadata.DefaultTopologyMonitor;
@@ -59,6 +58,7 @@ import com.datastax.oss.driver.internal.core.metrics.DropwizardMetricsFactory;
 import com.datastax.oss.driver.internal.core.metrics.MetricsFactory;
 import com.datastax.oss.driver.internal.core.pool.ChannelPoolFactory;
 import com.datastax.oss.driver.internal.core.protocol.ByteBufPrimitiveCodec;
+import com.datastax.oss.driver.internal.core.protocol.CompactRowsSubCodec;
 import com.datastax.oss.driver.internal.core.protocol.Lz4Compressor;
 import com.datastax.oss.driver.internal.core.protocol.SnappyCompressor;
 import com.datastax.oss.driver.internal.core.servererrors.DefaultWriteTypeRegistry;
@@ -67,6 +67,7 @@ import com.datastax.oss.driver.internal.core.session.PoolManager;
 import com.datastax.oss.driver.internal.core.session.RequestProcessorRegistry;
 import com.datastax.oss.driver.internal.core.ssl.JdkSslHandlerFactory;
 import com.datastax.oss.driver.internal.core.ssl.SslHandlerFactory;
+import com.datastax.oss.driver.internal.core.tracker.MultiplexingRequestTracker;
 import com.datastax.oss.driver.internal.core.tracker.RequestLogFormatter;
 import com.datastax.oss.driver.internal.core.type.codec.registry.DefaultCodecRegistry;
 import com.datastax.oss.driver.internal.core.util.Reflection;
@@ -74,9 +75,13 @@ import com.datastax.oss.driver.internal.core.util.concurrent.CycleDetector;
 import com.datastax.oss.driver.internal.core.util.concurrent.LazyReference;
 import com.datastax.oss.protocol.internal.Compressor;
 import com.datastax.oss.protocol.internal.FrameCodec;
+import com.datastax.oss.protocol.internal.ProtocolV3ClientCodecs;
+import com.datastax.oss.protocol.internal.ProtocolV4ClientCodecs;
+import com.datastax.oss.protocol.internal.ProtocolV5ClientCodecs;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import io.netty.buffer.ByteBuf;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -354,8 +359,19 @@ public class DefaultDriverContext implements InternalDriverContext {
   }
 
   protected FrameCodec<ByteBuf> buildFrameCodec() {
-    return FrameCodec.defaultClient(
-        new ByteBufPrimitiveCodec(getNettyOptions().allocator()), getCompressor());
+    ByteBufPrimitiveCodec primitiveCodec = new ByteBufPrimitiveCodec(getNettyOptions().allocator());
+    if (getConfig().getDefaultProfile().getBoolean(DefaultDriverOption.PROTOCOL_COMPACT_ROWS)) {
+      return new FrameCodec<>(
+          primitiveCodec,
+          getCompressor(),
+          new ProtocolV3ClientCodecs(),
+          new ProtocolV4ClientCodecs(),
+          new ProtocolV5ClientCodecs(),
+          // must come last to override the default RESULT decoders
+          CompactRowsSubCodec.CODEC_GROUP);
+    } else {
+      return FrameCodec.defaultClient(primitiveCodec, getCompressor());
+    }
   }
 
   protected ProtocolVersionRegistry buildProtocolVersionRegistry() {
@@ -383,7 +399,17 @@ public class DefaultDriverContext implements InternalDriverContext {
   }
 
   protected WriteCoalescer buildWriteCoalescer() {
-    return new DefaultWriteCoalescer(this);
+    return Reflection.buildFromConfig(
+            this,
+            DefaultDriverOption.COALESCER_CLASS,
+            WriteCoalescer.class,
+            "com.datastax.oss.driver.internal.core.channel")
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException(
+                    String.format(
+                        "Missing write coalescer, check your configuration (%s)",
+                        DefaultDriverOption.COALESCER_CLASS)));
   }
 
   protected ChannelFactory buildChannelFactory() {
@@ -488,19 +514,41 @@ public class DefaultDriverContext implements InternalDriverContext {
   }
 
   protected RequestTracker buildRequestTracker(RequestTracker requestTrackerFromBuilder) {
-    return (requestTrackerFromBuilder != null)
-        ? requestTrackerFromBuilder
-        : Reflection.buildFromConfig(
-                this,
-                DefaultDriverOption.REQUEST_TRACKER_CLASS,
-                RequestTracker.class,
-                "com.datastax.oss.driver.internal.core.tracker")
-            .orElseThrow(
-                () ->
-                    new IllegalArgumentException(
-                        String.format(
-                            "Missing request tracker, check your configuration (%s)",
-                            DefaultDriverOption.REQUEST_TRACKER_CLASS)));
+    RequestTracker clientTracker =
+        (requestTrackerFromBuilder != null)
+            ? requestTrackerFromBuilder
+            : Reflection.buildFromConfig(
+                    this,
+                    DefaultDriverOption.REQUEST_TRACKER_CLASS,
+                    RequestTracker.class,
+                    "com.datastax.oss.driver.internal.core.tracker")
+                .orElseThrow(
+                    () ->
+                        new IllegalArgumentException(
+                            String.format(
+                                "Missing request tracker, check your configuration (%s)",
+                                DefaultDriverOption.REQUEST_TRACKER_CLASS)));
+    // Policies that need to observe request latencies implement RequestTracker: plug them in
+    // alongside the client's tracker. Note that they are still closed as policies, not as part of
+    // the request tracker.
+    List<RequestTracker> policyTrackers = new ArrayList<>();
+    for (LoadBalancingPolicy policy : getLoadBalancingPolicies().values()) {
+      addPolicyTracker(policyTrackers, policy);
+    }
+    for (SpeculativeExecutionPolicy policy : getSpeculativeExecutionPolicies().values()) {
+      addPolicyTracker(policyTrackers, policy);
+    }
+    return policyTrackers.isEmpty()
+        ? clientTracker
+        : new MultiplexingRequestTracker(clientTracker, policyTrackers);
+  }
+
+  private static void addPolicyTracker(List<RequestTracker> trackers, Object policy) {
+    // Policy instances can be shared by multiple profiles, only add them once
+    if (policy instanceof RequestTracker
+        && trackers.stream().noneMatch(tracker -> tracker == policy)) {
+      trackers.add((RequestTracker) policy);
+    }
   }
 
   @NonNull
@@ -17,10 +17,14 @@ package com.datastax.oss.driver.internal.core.context;
 
 import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
 import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.internal.core.util.Reflection;
 import com.datastax.oss.driver.internal.core.util.concurrent.BlockingOperation;
+import com.datastax.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
 import com.datastax.oss.driver.shaded.guava.common.util.concurrent.ThreadFactoryBuilder;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.DefaultEventLoopGroup;
 import io.netty.channel.EventLoopGroup;
@@ -36,9 +40,23 @@ import io.netty.util.concurrent.PromiseCombiner;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import net.jcip.annotations.Immutable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @Immutable
 public class DefaultNettyOptions implements NettyOptions {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DefaultNettyOptions.class);
+
+  // Go through a class literal, so that the name is correct if Netty is shaded
+  private static final String EPOLL_CLASS_NAME =
+      Channel.class.getPackage().getName() + ".epoll.Epoll";
+
+  // The maximum value accepted by PooledByteBufAllocator
+  private static final int MAX_ORDER = 14;
+
+  private final InternalDriverContext context;
+  private final boolean useNativeTransport;
   private final EventLoopGroup ioEventLoopGroup;
   private final EventLoopGroup adminEventLoopGroup;
   private final int ioShutdownQuietPeriod;
@@ -48,8 +66,10 @@ public class DefaultNettyOptions implements NettyOptions {
   private final int adminShutdownTimeout;
   private final TimeUnit adminShutdownUnit;
   private final Timer timer;
+  private final ByteBufAllocator allocator;
 
   public DefaultNettyOptions(InternalDriverContext context) {
+    this.context = context;
     DriverExecutionProfile config = context.getConfig().getDefaultProfile();
     int ioGroupSize = config.getInt(DefaultDriverOption.NETTY_IO_SIZE);
     this.ioShutdownQuietPeriod = config.getInt(DefaultDriverOption.NETTY_IO_SHUTDOWN_QUIET_PERIOD);
@@ -69,7 +89,13 @@ public class DefaultNettyOptions implements NettyOptions {
             .setThreadFactory(safeFactory)
             .setNameFormat(context.getSessionName() + "-io-%d")
             .build();
-    this.ioEventLoopGroup = new NioEventLoopGroup(ioGroupSize, ioThreadFactory);
+    this.useNativeTransport =
+        config.getBoolean(DefaultDriverOption.NETTY_IO_NATIVE_TRANSPORT_ENABLED)
+            && isNativeTransportAvailable(EPOLL_CLASS_NAME, context.getSessionName());
+    this.ioEventLoopGroup =
+        useNativeTransport
+            ? NativeTransport.newEventLoopGroup(ioGroupSize, ioThreadFactory)
+            : new NioEventLoopGroup(ioGroupSize, ioThreadFactory);
 
     ThreadFactory adminThreadFactory =
         new ThreadFactoryBuilder()
@@ -89,6 +115,97 @@ public class DefaultNettyOptions implements NettyOptions {
             config.getDuration(DefaultDriverOption.NETTY_TIMER_TICK_DURATION).toNanos(),
             TimeUnit.NANOSECONDS,
             config.getInt(DefaultDriverOption.NETTY_TIMER_TICKS_PER_WHEEL));
+    this.allocator = buildAllocator(config, context.getSessionName());
+  }
+
+  @VisibleForTesting
+  static ByteBufAllocator buildAllocator(DriverExecutionProfile config, String logPrefix) {
+    String type = config.getString(DefaultDriverOption.NETTY_ALLOCATOR_TYPE);
+    switch (type) {
+      case "DEFAULT":
+        return ByteBufAllocator.DEFAULT;
+      case "UNPOOLED":
+        return new UnpooledByteBufAllocator(true);
+      case "POOLED_DIRECT":
+      case "POOLED_HEAP":
+        boolean preferDirect = type.equals("POOLED_DIRECT");
+        int heapArenas = PooledByteBufAllocator.defaultNumHeapArena();
+        int directArenas = PooledByteBufAllocator.defaultNumDirectArena();
+        if (config.isDefined(DefaultDriverOption.NETTY_ALLOCATOR_ARENA_COUNT)) {
+          heapArenas =
+              directArenas = config.getInt(DefaultDriverOption.NETTY_ALLOCATOR_ARENA_COUNT);
+        }
+        int pageSize = PooledByteBufAllocator.defaultPageSize();
+        int maxOrder = PooledByteBufAllocator.defaultMaxOrder();
+        if (config.isDefined(DefaultDriverOption.NETTY_ALLOCATOR_CHUNK_SIZE)) {
+          long chunkSize = config.getBytes(DefaultDriverOption.NETTY_ALLOCATOR_CHUNK_SIZE);
+          int configuredMaxOrder = computeMaxOrder(chunkSize, pageSize);
+          if (configuredMaxOrder < 0) {
+            LOG.warn(
+                "[{}] Invalid chunk size {}, it must be a power-of-two multiple of the page size "
+                    + "({}), and at most {}. Falling back to Netty's default ({}), "
+                    + "check your configuration ({})",
+                logPrefix,
+                chunkSize,
+                pageSize,
+                (long) pageSize << MAX_ORDER,
+                (long) pageSize << maxOrder,
+                DefaultDriverOption.NETTY_ALLOCATOR_CHUNK_SIZE);
+          } else {
+            maxOrder = configuredMaxOrder;
+          }
+        }
+        return new PooledByteBufAllocator(
+            preferDirect,
+            heapArenas,
+            directArenas,
+            pageSize,
+            maxOrder,
+            PooledByteBufAllocator.defaultTinyCacheSize(),
+            PooledByteBufAllocator.defaultSmallCacheSize(),
+            PooledByteBufAllocator.defaultNormalCacheSize(),
+            PooledByteBufAllocator.defaultUseCacheForAllThreads());
+      default:
+        LOG.warn(
+            "[{}] Unknown allocator type {}, falling back to DEFAULT, "
+                + "check your configuration ({})",
+            logPrefix,
+            type,
+            DefaultDriverOption.NETTY_ALLOCATOR_TYPE);
+        return ByteBufAllocator.DEFAULT;
+    }
+  }
+
+  /**
+   * Netty expresses the chunk size as {@code pageSize << maxOrder}.
+   *
+   * @return the max order, or -1 if the chunk size is not a power-of-two multiple of the page size
+   *     or exceeds Netty's maximum.
+   */
+  @VisibleForTesting
+  static int computeMaxOrder(long chunkSize, int pageSize) {
+    int maxOrder = 0;
+    while (maxOrder <= MAX_ORDER && ((long) pageSize << maxOrder) < chunkSize) {
+      maxOrder += 1;
+    }
+    return (maxOrder <= MAX_ORDER && ((long) pageSize << maxOrder) == chunkSize) ? maxOrder : -1;
+  }
+
+  @VisibleForTesting
+  static boolean isNativeTransportAvailable(String epollClassName, String logPrefix) {
+    if (Reflection.loadClass(null, epollClassName) == null) {
+      LOG.warn(
+          "[{}] Native transport was requested, but {} is not in the classpath. "
+              + "Falling back to NIO.",
+          logPrefix,
+          epollClassName);
+      return false;
+    } else if (NativeTransport.isAvailable(logPrefix)) {
+      LOG.debug("[{}] Using native epoll transport", logPrefix);
+      return true;
+    } else {
+      return false;
+    }
   }
 
   @Override
@@ -103,17 +220,19 @@ public class DefaultNettyOptions implements NettyOptions {
 
   @Override
   public Class<? extends Channel> channelClass() {
-    return NioSocketChannel.class;
+    return useNativeTransport ? NativeTransport.channelClass() : NioSocketChannel.class;
   }
 
   @Override
   public ByteBufAllocator allocator() {
-    return ByteBufAllocator.DEFAULT;
+    return allocator;
   }
 
   @Override
   public void afterBootstrapInitialized(Bootstrap bootstrap) {
-    // nothing to do
+    if (useNativeTransport) {
+      NativeTransport.configure(bootstrap, context.getConfig().getDefaultProfile());
+    }
   }
 
   @Override
@@ -0,0 +1,85 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.context;
+
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollSocketChannel;
+import java.util.concurrent.ThreadFactory;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Isolates all references to Netty's native epoll transport, which is an optional dependency.
+ *
+ * <p>This class must only be loaded if {@link DefaultNettyOptions} found the epoll classes in the
+ * classpath, otherwise it will fail with a {@link NoClassDefFoundError}.
+ */
+@ThreadSafe
+class NativeTransport {
+
+  private static final Logger LOG = LoggerFactory.getLogger(NativeTransport.class);
+
+  /**
+   * Checks that the native library could be loaded on this platform. If not, logs a warning
+   * indicating why.
+   */
+  static boolean isAvailable(String logPrefix) {
+    if (Epoll.isAvailable()) {
+      return true;
+    } else {
+      LOG.warn(
+          "[{}] Native transport was requested, but it is not available on this platform. "
+              + "Falling back to NIO.",
+          logPrefix,
+          Epoll.unavailabilityCause());
+      return false;
+    }
+  }
+
+  static EventLoopGroup newEventLoopGroup(int size, ThreadFactory threadFactory) {
+    return new EpollEventLoopGroup(size, threadFactory);
+  }
+
+  static Class<? extends Channel> channelClass() {
+    return EpollSocketChannel.class;
+  }
+
+  /** Applies the epoll-specific options from the configuration to a new bootstrap. */
+  static void configure(Bootstrap bootstrap, DriverExecutionProfile config) {
+    boolean edgeTriggered =
+        config.getBoolean(DefaultDriverOption.NETTY_IO_NATIVE_TRANSPORT_EDGE_TRIGGERED);
+    bootstrap.option(
+        EpollChannelOption.EPOLL_MODE,
+        edgeTriggered ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED);
+    if (config.isDefined(DefaultDriverOption.SOCKET_TCP_QUICK_ACK)) {
+      boolean quickAck = config.getBoolean(DefaultDriverOption.SOCKET_TCP_QUICK_ACK);
+      bootstrap.option(EpollChannelOption.TCP_QUICKACK, quickAck);
+    }
+    if (config.isDefined(DefaultDriverOption.SOCKET_BUSY_POLL)) {
+      int busyPoll = config.getInt(DefaultDriverOption.SOCKET_BUSY_POLL);
+      bootstrap.option(EpollChannelOption.SO_BUSY_POLL, busyPoll);
+    }
+  }
+}
@@ -19,7 +19,6 @@ import com.datastax.oss.driver.api.core.ConsistencyLevel;
 import com.datastax.oss.driver.api.core.CqlIdentifier;
 import com.datastax.oss.driver.api.core.CqlSession;
 import com.datastax.oss.driver.api.core.ProtocolVersion;
-import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
 import com.datastax.oss.driver.api.core.config.DriverConfig;
 import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
 import com.datastax.oss.driver.api.core.context.DriverContext;
@@ -59,6 +58,7 @@ import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
 import com.datastax.oss.driver.internal.core.ConsistencyLevelRegistry;
 import com.datastax.oss.driver.internal.core.DefaultProtocolFeature;
 import com.datastax.oss.driver.internal.core.ProtocolVersionRegistry;
+import com.datastax.oss.driver.internal.core.config.RequestOptionsSnapshot;
 import com.datastax.oss.driver.internal.core.context.InternalDriverContext;
 import com.datastax.oss.driver.internal.core.metadata.token.ByteOrderedToken;
 import com.datastax.oss.driver.internal.core.metadata.token.Murmur3Token;
@@ -114,22 +114,25 @@ public class Conversions {
 
   public static Message toMessage(
       Statement<?> statement, DriverExecutionProfile config, InternalDriverContext context) {
+    return toMessage(statement, RequestOptionsSnapshot.of(config), context);
+  }
+
+  public static Message toMessage(
+      Statement<?> statement, RequestOptionsSnapshot config, InternalDriverContext context) {
     ConsistencyLevelRegistry consistencyLevelRegistry = context.getConsistencyLevelRegistry();
     ConsistencyLevel consistency = statement.getConsistencyLevel();
     int consistencyCode =
         (consistency == null)
-            ? consistencyLevelRegistry.nameToCode(
-                config.getString(DefaultDriverOption.REQUEST_CONSISTENCY))
+            ? consistencyLevelRegistry.nameToCode(config.getConsistency())
             : consistency.getProtocolCode();
     int pageSize = statement.getPageSize();
     if (pageSize <= 0) {
-      pageSize = config.getInt(DefaultDriverOption.REQUEST_PAGE_SIZE);
+      pageSize = config.getPageSize();
     }
     ConsistencyLevel serialConsistency = statement.getSerialConsistencyLevel();
     int serialConsistencyCode =
         (serialConsistency == null)
-            ? consistencyLevelRegistry.nameToCode(
-                config.getString(DefaultDriverOption.REQUEST_SERIAL_CONSISTENCY))
+            ? consistencyLevelRegistry.nameToCode(config.getSerialConsistency())
             : serialConsistency.getProtocolCode();
     long timestamp = statement.getQueryTimestamp();
     if (timestamp == Long.MIN_VALUE) {
@@ -318,12 +321,28 @@ public class Conversions {
       ExecutionInfo executionInfo,
       CqlSession session,
       InternalDriverContext context) {
+    return toResultSet(result, executionInfo, session, context, 0, 0);
+  }
+
+  public static AsyncResultSet toResultSet(
+      Result result,
+      ExecutionInfo executionInfo,
+      CqlSession session,
+      InternalDriverContext context,
+      int prefetchThreshold,
+      int prefetchMaxPages) {
     if (result instanceof Rows) {
       Rows rows = (Rows) result;
       Statement<?> statement = executionInfo.getStatement();
       ColumnDefinitions columnDefinitions = getResultDefinitions(rows, statement, context);
       return new DefaultAsyncResultSet(
-          columnDefinitions, executionInfo, rows.getData(), session, context);
+          columnDefinitions,
+          executionInfo,
+          rows.getData(),
+          session,
+          context,
+          prefetchThreshold,
+          prefetchMaxPages);
     } else if (result instanceof Prepared) {
       // This should never happen
       throw new IllegalArgumentException("Unexpected PREPARED response to a CQL query");
@@ -47,12 +47,14 @@ import com.datastax.oss.driver.internal.core.adminrequest.ThrottledAdminRequestH
 import com.datastax.oss.driver.internal.core.adminrequest.UnexpectedResponseException;
 import com.datastax.oss.driver.internal.core.channel.DriverChannel;
 import com.datastax.oss.driver.internal.core.channel.ResponseCallback;
+import com.datastax.oss.driver.internal.core.config.RequestOptionsSnapshot;
 import com.datastax.oss.driver.internal.core.context.InternalDriverContext;
 import com.datastax.oss.driver.internal.core.metadata.DefaultNode;
 import com.datastax.oss.driver.internal.core.metrics.NodeMetricUpdater;
 import com.datastax.oss.driver.internal.core.metrics.SessionMetricUpdater;
 import com.datastax.oss.driver.internal.core.session.DefaultSession;
 import com.datastax.oss.driver.internal.core.session.RepreparePayload;
+import com.datastax.oss.driver.internal.core.session.throttling.NodeConcurrencyLimiter;
 import com.datastax.oss.driver.internal.core.tracker.NoopRequestTracker;
 import com.datastax.oss.driver.internal.core.tracker.RequestLogger;
 import com.datastax.oss.driver.internal.core.util.Loggers;
@@ -78,15 +80,17 @@ import io.netty.util.concurrent.GenericFutureListener;
 import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import net.jcip.annotations.ThreadSafe;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -97,13 +101,27 @@ public class CqlRequestHandler implements Throttled {
   private static final Logger LOG = LoggerFactory.getLogger(CqlRequestHandler.class);
   private static final long NANOTIME_NOT_MEASURED_YET = -1;
 
+  private static final AtomicIntegerFieldUpdater<CqlRequestHandler> ACTIVE_EXECUTIONS_COUNT =
+      AtomicIntegerFieldUpdater.newUpdater(CqlRequestHandler.class, "activeExecutionsCount");
+  private static final AtomicIntegerFieldUpdater<CqlRequestHandler>
+      STARTED_SPECULATIVE_EXECUTIONS_COUNT =
+          AtomicIntegerFieldUpdater.newUpdater(
+              CqlRequestHandler.class, "startedSpeculativeExecutionsCount");
+  private static final AtomicReferenceFieldUpdater<CqlRequestHandler, NodeResponseCallback>
+      IN_FLIGHT_CALLBACK =
+          AtomicReferenceFieldUpdater.newUpdater(
+              CqlRequestHandler.class, NodeResponseCallback.class, "inFlightCallback");
+
   private final long startTimeNanos;
-  private final String logPrefix;
+  private final String sessionLogPrefix;
+  // Only built if something gets logged, see toString(). Racy initialization is fine, all threads
+  // compute the same value.
+  private String logPrefix;
   private final Statement<?> statement;
   private final DefaultSession session;
-  private final CqlIdentifier keyspace;
   private final InternalDriverContext context;
   @NonNull private final DriverExecutionProfile executionProfile;
+  private final RequestOptionsSnapshot requestOptions;
   private final boolean isIdempotent;
   protected final CompletableFuture<AsyncResultSet> result;
   private final Message message;
@@ -113,24 +131,33 @@ public class CqlRequestHandler implements Throttled {
    * track this in order to know when to fail the request if all executions have reached the end of
    * the query plan.
    */
-  private final AtomicInteger activeExecutionsCount;
+  private volatile int activeExecutionsCount;
   /**
    * How many speculative executions have started (excluding the initial execution), whether they
    * have completed or not. We track this in order to fill {@link
    * ExecutionInfo#getSpeculativeExecutionCount()}.
    */
-  private final AtomicInteger startedSpeculativeExecutionsCount;
+  private volatile int startedSpeculativeExecutionsCount;
 
   private final Duration timeout;
   final Timeout scheduledTimeout;
-  final List<Timeout> scheduledExecutions;
-  private final List<NodeResponseCallback> inFlightCallbacks;
+  // The speculative executions that were scheduled (lazily initialized on the first one)
+  private volatile List<Timeout> scheduledExecutions;
+  // The executions that are waiting for a response. In the nominal case there is only one, which
+  // gets stored in the first field; the list is only created if there are concurrent executions.
+  private volatile NodeResponseCallback inFlightCallback;
+  private volatile List<NodeResponseCallback> otherInFlightCallbacks;
   private final RetryPolicy retryPolicy;
   private final SpeculativeExecutionPolicy speculativeExecutionPolicy;
   private final RequestThrottler throttler;
+  private final NodeConcurrencyLimiter nodeLimiter;
   private final RequestTracker requestTracker;
   private final SessionMetricUpdater sessionMetricUpdater;
 
+  // The nodes that were skipped because their connection was not writable, and that can still be
+  // tried once the query plan is exhausted (lazily initialized, shared with all executions).
+  private volatile Queue<Node> deferredNodes;
+
   // The errors on the nodes that were already tried (lazily initialized on the first error).
   // We don't use a map because nodes can appear multiple times.
   private volatile List<Map.Entry<Node, Throwable>> errors;
@@ -142,51 +169,36 @@ public class CqlRequestHandler implements Throttled {
       String sessionLogPrefix) {
 
     this.startTimeNanos = System.nanoTime();
-    this.logPrefix = sessionLogPrefix + "|" + this.hashCode();
-    LOG.trace("[{}] Creating new handler for request {}", logPrefix, statement);
+    this.sessionLogPrefix = sessionLogPrefix;
+    LOG.trace("[{}] Creating new handler for request {}", this, statement);
 
     this.statement = statement;
     this.session = session;
-    this.keyspace = session.getKeyspace().orElse(null);
     this.context = context;
     this.executionProfile = Conversions.resolveExecutionProfile(statement, context);
+    this.requestOptions = RequestOptionsSnapshot.of(executionProfile);
     this.retryPolicy = context.getRetryPolicy(executionProfile.getName());
     this.speculativeExecutionPolicy =
         context.getSpeculativeExecutionPolicy(executionProfile.getName());
     Boolean statementIsIdempotent = statement.isIdempotent();
     this.isIdempotent =
         (statementIsIdempotent == null)
-            ? executionProfile.getBoolean(DefaultDriverOption.REQUEST_DEFAULT_IDEMPOTENCE)
+            ? requestOptions.isDefaultIdempotence()
             : statementIsIdempotent;
-    this.result = new CompletableFuture<>();
-    this.result.exceptionally(
-        t -> {
-          try {
-            if (t instanceof CancellationException) {
-              cancelScheduledTasks();
-            }
-          } catch (Throwable t2) {
-            Loggers.warnWithException(LOG, "[{}] Uncaught exception", logPrefix, t2);
-          }
-          return null;
-        });
-    this.message = Conversions.toMessage(statement, executionProfile, context);
+    this.result = new ResultFuture();
+    this.message = Conversions.toMessage(statement, requestOptions, context);
     this.timer = context.getNettyOptions().getTimer();
 
     this.timeout =
-        statement.getTimeout() != null
-            ? statement.getTimeout()
-            : executionProfile.getDuration(DefaultDriverOption.REQUEST_TIMEOUT);
+        statement.getTimeout() != null ? statement.getTimeout() : requestOptions.getTimeout();
     this.scheduledTimeout = scheduleTimeout(timeout);
 
-    this.activeExecutionsCount = new AtomicInteger(1);
-    this.startedSpeculativeExecutionsCount = new AtomicInteger(0);
-    this.scheduledExecutions = isIdempotent ? new CopyOnWriteArrayList<>() : null;
-    this.inFlightCallbacks = new CopyOnWriteArrayList<>();
+    this.activeExecutionsCount = 1;
 
     this.requestTracker = context.getRequestTracker();
     this.sessionMetricUpdater = session.getMetricUpdater();
 
+    this.nodeLimiter = session.getNodeLimiter();
     this.throttler = context.getRequestThrottler();
     this.throttler.register(this);
   }
@@ -261,17 +273,64 @@ public class CqlRequestHandler implements Throttled {
     }
     Node node = retriedNode;
     DriverChannel channel = null;
-    if (node == null || (channel = session.getChannel(node, logPrefix)) == null) {
-      while (!result.isDone() && (node = queryPlan.poll()) != null) {
-        channel = session.getChannel(node, logPrefix);
+    NodeConcurrencyLimiter.Permit permit = null;
+    if (node == null
+        || (channel = session.getChannel(node, sessionLogPrefix)) == null
+        || (permit = acquireNodePermit(node)) == null) {
+      channel = null;
+      // If a node's connection is not writable (its outbound buffer is full), prefer the next nodes
+      // in the plan. We only come back to it if none of them is any better. The other non-writable
+      // nodes are not lost: they are deferred, and tried by subsequent attempts once the plan is
+      // exhausted.
+      Node fallbackNode = null;
+      DriverChannel fallbackChannel = null;
+      NodeConcurrencyLimiter.Permit fallbackPermit = null;
+      List<Node> skippedNodes = null;
+      while (!result.isDone() && (node = nextNode(queryPlan)) != null) {
+        channel = session.getChannel(node, sessionLogPrefix);
         if (channel != null) {
-          break;
+          if ((permit = acquireNodePermit(node)) == null) {
+            channel = null;
+          } else if (channel.isWritable()) {
+            break;
+          } else {
+            LOG.trace("[{}] Connection to {} is not writable, trying next node", this, node);
+            if (fallbackChannel == null) {
+              fallbackNode = node;
+              fallbackChannel = channel;
+              fallbackPermit = permit;
+            } else {
+              permit.release();
+              if (skippedNodes == null) {
+                skippedNodes = new ArrayList<>();
+              }
+              skippedNodes.add(node);
+            }
+            channel = null;
+          }
+        }
+      }
+      if (fallbackChannel != null) {
+        if (channel == null && !result.isDone()) {
+          node = fallbackNode;
+          channel = fallbackChannel;
+          permit = fallbackPermit;
+        } else {
+          fallbackPermit.release();
+          if (skippedNodes == null) {
+            skippedNodes = new ArrayList<>();
+          }
+          skippedNodes.add(0, fallbackNode);
         }
       }
+      // Only publish them now, otherwise the loop above would poll them again
+      if (skippedNodes != null) {
+        deferNodes(skippedNodes);
+      }
     }
     if (channel == null) {
       // We've reached the end of the query plan without finding any node to write to
-      if (!result.isDone() && activeExecutionsCount.decrementAndGet() == 0) {
+      if (!result.isDone() && ACTIVE_EXECUTIONS_COUNT.decrementAndGet(this) == 0) {
         // We're the last execution so fail the result
         setFinalError(AllNodesFailedException.fromErrors(this.errors), null, -1);
       }
@@ -279,18 +338,69 @@ public class CqlRequestHandler implements Throttled {
       NodeResponseCallback nodeResponseCallback =
           new NodeResponseCallback(
               node,
+              permit,
               queryPlan,
               channel,
               currentExecutionIndex,
               retryCount,
-              scheduleNextExecution,
-              logPrefix);
+              scheduleNextExecution);
       channel
           .write(message, statement.isTracing(), statement.getCustomPayload(), nodeResponseCallback)
           .addListener(nodeResponseCallback);
     }
   }
 
+  /**
+   * Returns the next node to try: first from the query plan, then from the nodes that were skipped
+   * because their connection was not writable.
+   */
+  private Node nextNode(Queue<Node> queryPlan) {
+    Node node = queryPlan.poll();
+    if (node == null) {
+      Queue<Node> deferredNodesSnapshot = this.deferredNodes;
+      if (deferredNodesSnapshot != null) {
+        node = deferredNodesSnapshot.poll();
+      }
+    }
+    return node;
+  }
+
+  private void deferNodes(List<Node> nodes) {
+    Queue<Node> deferredNodesSnapshot = this.deferredNodes;
+    if (deferredNodesSnapshot == null) {
+      synchronized (this) {
+        deferredNodesSnapshot = this.deferredNodes;
+        if (deferredNodesSnapshot == null) {
+          this.deferredNodes = deferredNodesSnapshot = new ConcurrentLinkedQueue<>();
+        }
+      }
+    }
+    deferredNodesSnapshot.addAll(nodes);
+  }
+
+  /**
+   * Reserves capacity on the given node, if per-node or per-datacenter limits are enabled.
+   *
+   * <p>The permit is released by the {@link NodeResponseCallback} that handles the write (or by the
+   * caller if it ends up not writing to the node).
+   *
+   * @return null if the node or its datacenter is saturated.
+   */
+  private NodeConcurrencyLimiter.Permit acquireNodePermit(Node node) {
+    NodeConcurrencyLimiter.Permit permit = nodeLimiter.tryAcquire(node);
+    if (permit != null) {
+      return permit;
+    }
+    LOG.trace("[{}] {} is saturated, trying next node", this, node);
+    recordError(
+        node,
+        new RequestThrottlingException(
+            String.format(
+                "%s or its datacenter has reached its maximum number of concurrent requests",
+                node)));
+    return null;
+  }
+
   private void recordError(Node node, Throwable error) {
     // Use a local variable to do only a single single volatile read in the nominal case
     List<Map.Entry<Node, Throwable>> errorsSnapshot = this.errors;
@@ -309,14 +419,59 @@ public class CqlRequestHandler implements Throttled {
     if (this.scheduledTimeout != null) {
       this.scheduledTimeout.cancel();
     }
-    if (scheduledExecutions != null) {
-      for (Timeout scheduledExecution : scheduledExecutions) {
+    List<Timeout> scheduledExecutionsSnapshot = this.scheduledExecutions;
+    if (scheduledExecutionsSnapshot != null) {
+      for (Timeout scheduledExecution : scheduledExecutionsSnapshot) {
         scheduledExecution.cancel();
       }
     }
-    for (NodeResponseCallback callback : inFlightCallbacks) {
+    NodeResponseCallback callback = this.inFlightCallback;
+    if (callback != null) {
       callback.cancel();
     }
+    List<NodeResponseCallback> otherCallbacks = this.otherInFlightCallbacks;
+    if (otherCallbacks != null) {
+      for (NodeResponseCallback otherCallback : otherCallbacks) {
+        otherCallback.cancel();
+      }
+    }
+  }
+
+  private void addInFlight(NodeResponseCallback callback) {
+    if (!IN_FLIGHT_CALLBACK.compareAndSet(this, null, callback)) {
+      List<NodeResponseCallback> otherCallbacks = this.otherInFlightCallbacks;
+      if (otherCallbacks == null) {
+        synchronized (this) {
+          otherCallbacks = this.otherInFlightCallbacks;
+          if (otherCallbacks == null) {
+            this.otherInFlightCallbacks = otherCallbacks = new CopyOnWriteArrayList<>();
+          }
+        }
+      }
+      otherCallbacks.add(callback);
+    }
+  }
+
+  private void removeInFlight(NodeResponseCallback callback) {
+    if (!IN_FLIGHT_CALLBACK.compareAndSet(this, callback, null)) {
+      List<NodeResponseCallback> otherCallbacks = this.otherInFlightCallbacks;
+      if (otherCallbacks != null) {
+        otherCallbacks.remove(callback);
+      }
+    }
+  }
+
+  private void addScheduledExecution(Timeout scheduledExecution) {
+    List<Timeout> scheduledExecutionsSnapshot = this.scheduledExecutions;
+    if (scheduledExecutionsSnapshot == null) {
+      synchronized (this) {
+        scheduledExecutionsSnapshot = this.scheduledExecutions;
+        if (scheduledExecutionsSnapshot == null) {
+          this.scheduledExecutions = scheduledExecutionsSnapshot = new CopyOnWriteArrayList<>();
+        }
+      }
+    }
+    scheduledExecutionsSnapshot.add(scheduledExecution);
   }
 
   private void setFinalResult(
@@ -328,7 +483,13 @@ public class CqlRequestHandler implements Throttled {
       ExecutionInfo executionInfo =
           buildExecutionInfo(callback, resultMessage, responseFrame, schemaInAgreement);
       AsyncResultSet resultSet =
-          Conversions.toResultSet(resultMessage, executionInfo, session, context);
+          Conversions.toResultSet(
+              resultMessage,
+              executionInfo,
+              session,
+              context,
+              requestOptions.getPrefetchThreshold(),
+              requestOptions.getPrefetchMaxPages());
       if (result.complete(resultSet)) {
         cancelScheduledTasks();
         throttler.signalSuccess(this);
@@ -359,7 +520,7 @@ public class CqlRequestHandler implements Throttled {
       }
       // log the warnings if they have NOT been disabled
       if (!executionInfo.getWarnings().isEmpty()
-          && executionProfile.getBoolean(DefaultDriverOption.REQUEST_LOG_WARNINGS)
+          && requestOptions.isLogWarnings()
           && LOG.isWarnEnabled()) {
         logServerWarnings(executionInfo.getWarnings());
       }
@@ -404,7 +565,7 @@ public class CqlRequestHandler implements Throttled {
     return new DefaultExecutionInfo(
         statement,
         callback.node,
-        startedSpeculativeExecutionsCount.get(),
+        startedSpeculativeExecutionsCount,
         callback.execution,
         errors,
         pagingState,
@@ -429,7 +590,7 @@ public class CqlRequestHandler implements Throttled {
               new DefaultExecutionInfo(
                   statement,
                   node,
-                  startedSpeculativeExecutionsCount.get(),
+                  startedSpeculativeExecutionsCount,
                   execution,
                   errors,
                   null,
@@ -455,6 +616,42 @@ public class CqlRequestHandler implements Throttled {
     }
   }
 
+  private String logPrefix() {
+    String prefix = this.logPrefix;
+    if (prefix == null) {
+      this.logPrefix = prefix = sessionLogPrefix + "|" + this.hashCode();
+    }
+    return prefix;
+  }
+
+  /**
+   * Returns the log prefix of this handler. Log statements pass the handler itself as an argument,
+   * so that the prefix only gets built if the message is actually logged.
+   */
+  @Override
+  public String toString() {
+    return logPrefix();
+  }
+
+  /**
+   * The future returned to the client. We override cancel() instead of registering a callback, in
+   * order to avoid allocating a dependent stage for each request.
+   */
+  private class ResultFuture extends CompletableFuture<AsyncResultSet> {
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+      if (cancelled) {
+        try {
+          cancelScheduledTasks();
+        } catch (Throwable t) {
+          Loggers.warnWithException(LOG, "[{}] Uncaught exception", CqlRequestHandler.this, t);
+        }
+      }
+      return cancelled;
+    }
+  }
+
   /**
    * Handles the interaction with a single node in the query plan.
    *
@@ -465,6 +662,7 @@ public class CqlRequestHandler implements Throttled {
 
     private final long nodeStartTimeNanos = System.nanoTime();
     private final Node node;
+    private final NodeConcurrencyLimiter.Permit nodePermit;
     private final Queue<Node> queryPlan;
     private final DriverChannel channel;
     // The identifier of the current execution (0 for the initial execution, 1 for the first
@@ -474,29 +672,29 @@ public class CqlRequestHandler implements Throttled {
     // the first attempt of each execution).
     private final int retryCount;
     private final boolean scheduleNextExecution;
-    private final String logPrefix;
 
     private NodeResponseCallback(
         Node node,
+        NodeConcurrencyLimiter.Permit nodePermit,
         Queue<Node> queryPlan,
         DriverChannel channel,
         int execution,
         int retryCount,
-        boolean scheduleNextExecution,
-        String logPrefix) {
+        boolean scheduleNextExecution) {
       this.node = node;
+      this.nodePermit = nodePermit;
       this.queryPlan = queryPlan;
       this.channel = channel;
       this.execution = execution;
       this.retryCount = retryCount;
       this.scheduleNextExecution = scheduleNextExecution;
-      this.logPrefix = logPrefix + "|" + execution;
     }
 
     // this gets invoked once the write completes.
     @Override
     public void operationComplete(Future<java.lang.Void> future) throws Exception {
       if (!future.isSuccess()) {
+        releaseNodePermit();
         Throwable error = future.cause();
         if (error instanceof EncoderException
             && error.getCause() instanceof FrameTooLongException) {
@@ -505,7 +703,7 @@ public class CqlRequestHandler implements Throttled {
         } else {
           LOG.trace(
               "[{}] Failed to send request on {}, trying next node (cause: {})",
-              logPrefix,
+              this,
               channel,
               error);
           recordError(node, error);
@@ -517,15 +715,16 @@ public class CqlRequestHandler implements Throttled {
               null, queryPlan, execution, retryCount, scheduleNextExecution); // try next node
         }
       } else {
-        LOG.trace("[{}] Request sent on {}", logPrefix, channel);
+        LOG.trace("[{}] Request sent on {}", this, channel);
         if (result.isDone()) {
           // If the handler completed since the last time we checked, cancel directly because we
           // don't know if cancelScheduledTasks() has run yet
           cancel();
         } else {
-          inFlightCallbacks.add(this);
+          addInFlight(this);
           if (scheduleNextExecution && isIdempotent) {
             int nextExecution = execution + 1;
+            CqlIdentifier keyspace = session.getKeyspace().orElse(null);
             long nextDelay =
                 speculativeExecutionPolicy.nextExecution(node, keyspace, statement, nextExecution);
             if (nextDelay >= 0) {
@@ -533,7 +732,7 @@ public class CqlRequestHandler implements Throttled {
             } else {
               LOG.trace(
                   "[{}] Speculative execution policy returned {}, no next execution",
-                  logPrefix,
+                  this,
                   nextDelay);
             }
           }
@@ -542,18 +741,16 @@ public class CqlRequestHandler implements Throttled {
     }
 
     private void scheduleSpeculativeExecution(int index, long delay) {
-      LOG.trace("[{}] Scheduling speculative execution {} in {} ms", logPrefix, index, delay);
+      LOG.trace("[{}] Scheduling speculative execution {} in {} ms", this, index, delay);
       try {
-        scheduledExecutions.add(
+        addScheduledExecution(
             timer.newTimeout(
                 (Timeout timeout1) -> {
                   if (!result.isDone()) {
                     LOG.trace(
-                        "[{}] Starting speculative execution {}",
-                        CqlRequestHandler.this.logPrefix,
-                        index);
-                    activeExecutionsCount.incrementAndGet();
-                    startedSpeculativeExecutionsCount.incrementAndGet();
+                        "[{}] Starting speculative execution {}", CqlRequestHandler.this, index);
+                    ACTIVE_EXECUTIONS_COUNT.incrementAndGet(CqlRequestHandler.this);
+                    STARTED_SPECULATIVE_EXECUTIONS_COUNT.incrementAndGet(CqlRequestHandler.this);
                     // Note that `node` is the first node of the execution, it might not be the
                     // "slow" one if there were retries, but in practice retries are rare.
                     ((DefaultNode) node)
@@ -570,7 +767,7 @@ public class CqlRequestHandler implements Throttled {
         // to schedule more executions anyway, so swallow the error.
         if (!"cannot be started once stopped".equals(e.getMessage())) {
           Loggers.warnWithException(
-              LOG, "[{}] Error while scheduling speculative execution", logPrefix, e);
+              LOG, "[{}] Error while scheduling speculative execution", this, e);
         }
       }
     }
@@ -588,7 +785,8 @@ public class CqlRequestHandler implements Throttled {
             nodeLatency,
             TimeUnit.NANOSECONDS);
       }
-      inFlightCallbacks.remove(this);
+      removeInFlight(this);
+      releaseNodePermit();
       if (result.isDone()) {
         return;
       }
@@ -609,7 +807,7 @@ public class CqlRequestHandler implements Throttled {
                                 LOG,
                                 "[{}] Error while refreshing schema after DDL query, "
                                     + "new metadata might be incomplete",
-                                logPrefix,
+                                this,
                                 error);
                             return null;
                           }),
@@ -623,10 +821,10 @@ public class CqlRequestHandler implements Throttled {
               .setKeyspace(CqlIdentifier.fromInternal(setKeyspace.keyspace))
               .whenComplete((v, error) -> setFinalResult(setKeyspace, responseFrame, true, this));
         } else if (responseMessage instanceof Result) {
-          LOG.trace("[{}] Got result, completing", logPrefix);
+          LOG.trace("[{}] Got result, completing", this);
           setFinalResult((Result) responseMessage, responseFrame, true, this);
         } else if (responseMessage instanceof Error) {
-          LOG.trace("[{}] Got error response, processing", logPrefix);
+          LOG.trace("[{}] Got error response, processing", this);
           processErrorResponse((Error) responseMessage);
         } else {
           trackNodeError(
@@ -644,7 +842,7 @@ public class CqlRequestHandler implements Throttled {
 
     private void processErrorResponse(Error errorMessage) {
       if (errorMessage.code == ProtocolConstants.ErrorCode.UNPREPARED) {
-        LOG.trace("[{}] Statement is not prepared on {}, repreparing", logPrefix, node);
+        LOG.trace("[{}] Statement is not prepared on {}, repreparing", this, node);
         ByteBuffer id = ByteBuffer.wrap(((Unprepared) errorMessage).id);
         RepreparePayload repreparePayload = session.getRepreparePayloads().get(id);
         if (repreparePayload == null) {
@@ -662,7 +860,7 @@ public class CqlRequestHandler implements Throttled {
                 timeout,
                 throttler,
                 sessionMetricUpdater,
-                logPrefix,
+                logPrefix(),
                 "Reprepare " + reprepareMessage.toString());
         reprepareHandler
             .start()
@@ -679,7 +877,7 @@ public class CqlRequestHandler implements Throttled {
                         if (prepareError instanceof QueryValidationException
                             || prepareError instanceof FunctionFailureException
                             || prepareError instanceof ProtocolError) {
-                          LOG.trace("[{}] Unrecoverable error on reprepare, rethrowing", logPrefix);
+                          LOG.trace("[{}] Unrecoverable error on reprepare, rethrowing", this);
                           trackNodeError(node, prepareError, NANOTIME_NOT_MEASURED_YET);
                           setFinalError(prepareError, node, execution);
                           return null;
@@ -691,10 +889,10 @@ public class CqlRequestHandler implements Throttled {
                     }
                     recordError(node, exception);
                     trackNodeError(node, exception, NANOTIME_NOT_MEASURED_YET);
-                    LOG.trace("[{}] Reprepare failed, trying next node", logPrefix);
+                    LOG.trace("[{}] Reprepare failed, trying next node", this);
                     sendRequest(null, queryPlan, execution, retryCount, false);
                   } else {
-                    LOG.trace("[{}] Reprepare sucessful, retrying", logPrefix);
+                    LOG.trace("[{}] Reprepare sucessful, retrying", this);
                     sendRequest(node, queryPlan, execution, retryCount, false);
                   }
                   return null;
@@ -704,14 +902,14 @@ public class CqlRequestHandler implements Throttled {
       CoordinatorException error = Conversions.toThrowable(node, errorMessage, context);
       NodeMetricUpdater metricUpdater = ((DefaultNode) node).getMetricUpdater();
       if (error instanceof BootstrappingException) {
-        LOG.trace("[{}] {} is bootstrapping, trying next node", logPrefix, node);
+        LOG.trace("[{}] {} is bootstrapping, trying next node", this, node);
         recordError(node, error);
         trackNodeError(node, error, NANOTIME_NOT_MEASURED_YET);
         sendRequest(null, queryPlan, execution, retryCount, false);
       } else if (error instanceof QueryValidationException
           || error instanceof FunctionFailureException
           || error instanceof ProtocolError) {
-        LOG.trace("[{}] Unrecoverable error, rethrowing", logPrefix);
+        LOG.trace("[{}] Unrecoverable error, rethrowing", this);
         metricUpdater.incrementCounter(DefaultNodeMetric.OTHER_ERRORS, executionProfile.getName());
         trackNodeError(node, error, NANOTIME_NOT_MEASURED_YET);
         setFinalError(error, node, execution);
@@ -783,7 +981,7 @@ public class CqlRequestHandler implements Throttled {
     }
 
     private void processRetryDecision(RetryDecision decision, Throwable error) {
-      LOG.trace("[{}] Processing retry decision {}", logPrefix, decision);
+      LOG.trace("[{}] Processing retry decision {}", this, decision);
       switch (decision) {
         case RETRY_SAME:
           recordError(node, error);
@@ -829,11 +1027,12 @@ public class CqlRequestHandler implements Throttled {
 
     @Override
     public void onFailure(Throwable error) {
-      inFlightCallbacks.remove(this);
+      removeInFlight(this);
+      releaseNodePermit();
       if (result.isDone()) {
         return;
       }
-      LOG.trace("[{}] Request failure, processing: {}", logPrefix, error.toString());
+      LOG.trace("[{}] Request failure, processing: {}", this, error);
       RetryDecision decision;
       if (!isIdempotent || error instanceof FrameTooLongException) {
         decision = RetryDecision.RETHROW;
@@ -855,8 +1054,15 @@ public class CqlRequestHandler implements Throttled {
           this.channel.cancel(this);
         }
       } catch (Throwable t) {
-        Loggers.warnWithException(LOG, "[{}] Error cancelling", logPrefix, t);
+        Loggers.warnWithException(LOG, "[{}] Error cancelling", this, t);
       }
+      releaseNodePermit();
+    }
+
+    // Can be invoked from multiple paths (response, failure, cancellation), the permit ensures
+    // that only the first one counts.
+    private void releaseNodePermit() {
+      nodePermit.release();
     }
 
     /**
@@ -875,9 +1081,13 @@ public class CqlRequestHandler implements Throttled {
       requestTracker.onNodeError(statement, error, latencyNanos, executionProfile, node);
     }
 
+    private String logPrefix() {
+      return CqlRequestHandler.this.logPrefix() + "|" + execution;
+    }
+
     @Override
     public String toString() {
-      return logPrefix;
+      return logPrefix();
     }
   }
 }
@@ -44,6 +44,14 @@ public class DefaultAsyncResultSet implements AsyncResultSet {
   private final CqlSession session;
   private final CountingIterator<Row> iterator;
   private final Iterable<Row> currentPage;
+  private final int prefetchThreshold;
+  private final int prefetchMaxPages;
+  private volatile boolean prefetchTriggered;
+
+  // The next page if it was prefetched and not handed out yet. It is cleared by fetchNextPage(), so
+  // that a result set does not pin the pages that follow it. Guarded by `this`, because prefetches
+  // can be chained from the driver's internal threads.
+  private CompletionStage<AsyncResultSet> prefetchedPage;
 
   public DefaultAsyncResultSet(
       ColumnDefinitions definitions,
@@ -51,15 +59,40 @@ public class DefaultAsyncResultSet implements AsyncResultSet {
       Queue<List<ByteBuffer>> data,
       CqlSession session,
       InternalDriverContext context) {
+    this(definitions, executionInfo, data, session, context, 0, 0);
+  }
+
+  /**
+   * @param prefetchThreshold if positive, the next page is requested in the background as soon as
+   *     fewer rows than this remain in the current page.
+   * @param prefetchMaxPages the maximum number of pages to request ahead of this one when
+   *     prefetching.
+   */
+  public DefaultAsyncResultSet(
+      ColumnDefinitions definitions,
+      ExecutionInfo executionInfo,
+      Queue<List<ByteBuffer>> data,
+      CqlSession session,
+      InternalDriverContext context,
+      int prefetchThreshold,
+      int prefetchMaxPages) {
     this.definitions = definitions;
     this.executionInfo = executionInfo;
     this.session = session;
+    this.prefetchThreshold = prefetchThreshold;
+    this.prefetchMaxPages = prefetchMaxPages;
     this.iterator =
         new CountingIterator<Row>(data.size()) {
           @Override
           protected Row computeNext() {
             List<ByteBuffer> rowData = data.poll();
-            return (rowData == null) ? endOfData() : new DefaultRow(definitions, rowData, context);
+            if (rowData == null) {
+              return endOfData();
+            }
+            if (prefetchThreshold > 0 && !prefetchTriggered && data.size() < prefetchThreshold) {
+              prefetch(prefetchMaxPages);
+            }
+            return new DefaultRow(definitions, rowData, context);
           }
         };
     this.currentPage = () -> iterator;
@@ -101,12 +134,54 @@ public class DefaultAsyncResultSet implements AsyncResultSet {
       throw new IllegalStateException(
           "No next page. Use #hasMorePages before calling this method to avoid this error.");
     }
+    synchronized (this) {
+      // Once the client has asked for the next page, there is no point in prefetching it
+      prefetchTriggered = true;
+      CompletionStage<AsyncResultSet> prefetched = prefetchedPage;
+      if (prefetched != null) {
+        prefetchedPage = null;
+        // If the prefetch failed, start a new request to allow the client to retry
+        if (!prefetched.toCompletableFuture().isCompletedExceptionally()) {
+          return prefetched;
+        }
+      }
+    }
+    return executeNextPage(nextState);
+  }
+
+  private CompletionStage<AsyncResultSet> executeNextPage(ByteBuffer nextState) {
     Statement<?> statement = executionInfo.getStatement();
     LOG.trace("Fetching next page for {}", statement);
     Statement<?> nextStatement = statement.copy(nextState);
     return session.executeAsync(nextStatement);
   }
 
+  /**
+   * Requests the next page in the background, and recursively the following ones up to the given
+   * number of pages. This has no effect if the next page was already requested.
+   */
+  private void prefetch(int pages) {
+    ByteBuffer nextState = executionInfo.getPagingState();
+    if (pages > 0 && nextState != null) {
+      CompletionStage<AsyncResultSet> next;
+      synchronized (this) {
+        if (prefetchTriggered) {
+          return;
+        }
+        prefetchTriggered = true;
+        next = prefetchedPage = executeNextPage(nextState);
+      }
+      if (pages > 1) {
+        next.thenAccept(
+            page -> {
+              if (page instanceof DefaultAsyncResultSet) {
+                ((DefaultAsyncResultSet) page).prefetch(pages - 1);
+              }
+            });
+      }
+    }
+  }
+
   @Override
   public boolean wasApplied() {
     if (!definitions.contains("[applied]")
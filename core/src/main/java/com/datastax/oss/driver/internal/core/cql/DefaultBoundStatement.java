@@ -26,6 +26,8 @@ import com.datastax.oss.driver.api.core.metadata.Node;
 import com.datastax.oss.driver.api.core.metadata.token.Token;
 import com.datastax.oss.driver.api.core.type.DataType;
 import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3TokenFactory;
+import com.datastax.oss.driver.internal.core.metadata.token.TokenFactory;
 import com.datastax.oss.driver.internal.core.util.RoutingKey;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
@@ -60,6 +62,11 @@ public class DefaultBoundStatement implements BoundStatement {
   private final ProtocolVersion protocolVersion;
   private final Node node;
 
+  // Computed lazily from the bound values. Races are benign: concurrent callers compute the same
+  // values.
+  private volatile ByteBuffer computedRoutingKey;
+  private volatile ComputedToken computedToken;
+
   public DefaultBoundStatement(
       PreparedStatement preparedStatement,
       ColumnDefinitions variableDefinitions,
@@ -326,25 +333,80 @@ public class DefaultBoundStatement implements BoundStatement {
     if (routingKey != null) {
       return routingKey;
     } else {
-      List<Integer> indices = preparedStatement.getPartitionKeyIndices();
-      if (indices.isEmpty()) {
+      ByteBuffer key = computedRoutingKey;
+      if (key == null) {
+        List<Integer> indices = preparedStatement.getPartitionKeyIndices();
+        if (indices.size() == 1) {
+          return getBytesUnsafe(indices.get(0));
+        }
+        ByteBuffer[] components = getRoutingKeyComponents(indices);
+        if (components == null) {
+          return null;
+        }
+        key = RoutingKey.compose(components);
+        computedRoutingKey = key;
+      }
+      return key;
+    }
+  }
+
+  /**
+   * Returns the token of this statement's routing key, as computed by the given factory.
+   *
+   * <p>This is equivalent to {@code getRoutingToken()}, or {@code
+   * tokenFactory.hash(getRoutingKey())} if it is null, but the result is computed only once per
+   * instance. In addition, for the Murmur3 partitioner, the token of a composite partition key is
+   * computed without building the routing key.
+   *
+   * @return the token, or null if this statement has no routing information.
+   */
+  @Nullable
+  public Token getRoutingToken(@NonNull TokenFactory tokenFactory) {
+    if (routingToken != null) {
+      return routingToken;
+    }
+    ComputedToken computed = this.computedToken;
+    if (computed != null && computed.tokenFactory == tokenFactory) {
+      return computed.token;
+    }
+    Token token;
+    List<Integer> indices;
+    if (routingKey == null
+        && computedRoutingKey == null
+        && tokenFactory instanceof Murmur3TokenFactory
+        && (indices = preparedStatement.getPartitionKeyIndices()).size() > 1) {
+      ByteBuffer[] components = getRoutingKeyComponents(indices);
+      if (components == null) {
+        return null;
+      }
+      token = ((Murmur3TokenFactory) tokenFactory).hashComposite(components);
+    } else {
+      ByteBuffer key = getRoutingKey();
+      if (key == null) {
+        return null;
+      }
+      token = tokenFactory.hash(key);
+    }
+    this.computedToken = new ComputedToken(tokenFactory, token);
+    return token;
+  }
+
+  /** @return the bound values of the partition key, or null if some of them are not set. */
+  private ByteBuffer[] getRoutingKeyComponents(List<Integer> indices) {
+    if (indices.isEmpty()) {
+      return null;
+    }
+    ByteBuffer[] components = new ByteBuffer[indices.size()];
+    for (int i = 0; i < components.length; i++) {
+      ByteBuffer value;
+      int index = indices.get(i);
+      if (!isSet(index) || (value = getBytesUnsafe(index)) == null) {
         return null;
-      } else if (indices.size() == 1) {
-        return getBytesUnsafe(indices.get(0));
       } else {
-        ByteBuffer[] components = new ByteBuffer[indices.size()];
-        for (int i = 0; i < components.length; i++) {
-          ByteBuffer value;
-          int index = indices.get(i);
-          if (!isSet(index) || (value = getBytesUnsafe(index)) == null) {
-            return null;
-          } else {
-            components[i] = value;
-          }
-        }
-        return RoutingKey.compose(components);
+        components[i] = value;
       }
     }
+    return components;
   }
 
   @NonNull
@@ -687,4 +749,15 @@ public class DefaultBoundStatement implements BoundStatement {
         protocolVersion,
         node);
   }
+
+  @Immutable
+  private static class ComputedToken {
+    private final TokenFactory tokenFactory;
+    private final Token token;
+
+    private ComputedToken(TokenFactory tokenFactory, Token token) {
+      this.tokenFactory = tokenFactory;
+      this.token = token;
+    }
+  }
 }
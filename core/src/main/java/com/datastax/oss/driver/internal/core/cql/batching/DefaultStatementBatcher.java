@@ -0,0 +1,325 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.cql.batching;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.cql.batching.StatementBatcher;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.token.Token;
+import com.datastax.oss.driver.internal.core.context.InternalDriverContext;
+import com.datastax.oss.driver.internal.core.util.concurrent.CompletableFutures;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * The default statement batcher implementation.
+ *
+ * <p>Pending batches are indexed by partition in a map, protected by the batcher's monitor. The
+ * batches are executed outside of the lock.
+ */
+@ThreadSafe
+public class DefaultStatementBatcher implements StatementBatcher {
+
+  private final CqlSession session;
+  private final InternalDriverContext context;
+  private final Timer timer;
+  private final int maxStatements;
+  private final int maxSizeInBytes;
+  private final long maxDelayNanos;
+  private final String executionProfileName;
+
+  @GuardedBy("this")
+  private final Map<PartitionKey, PendingBatch> pendingBatches = new HashMap<>();
+
+  @GuardedBy("this")
+  private boolean closed;
+
+  public DefaultStatementBatcher(
+      CqlSession session,
+      int maxStatements,
+      int maxSizeInBytes,
+      Duration maxDelay,
+      String executionProfileName) {
+    this.session = session;
+    this.context = (InternalDriverContext) session.getContext();
+    this.timer = context.getNettyOptions().getTimer();
+    this.maxStatements = maxStatements;
+    this.maxSizeInBytes = maxSizeInBytes;
+    this.maxDelayNanos = maxDelay.toNanos();
+    this.executionProfileName = executionProfileName;
+  }
+
+  @NonNull
+  @Override
+  public CompletionStage<AsyncResultSet> add(@NonNull BatchableStatement<?> statement) {
+    if (executionProfileName != null
+        && statement.getExecutionProfileName() == null
+        && statement.getExecutionProfile() == null) {
+      statement = statement.setExecutionProfileName(executionProfileName);
+    }
+    PartitionKey key = PartitionKey.of(statement);
+    if (key == null) {
+      synchronized (this) {
+        if (closed) {
+          return rejected();
+        }
+      }
+      return session.executeAsync(statement);
+    }
+    int size = statement.computeSizeInBytes(context);
+    CompletableFuture<AsyncResultSet> result = new CompletableFuture<>();
+    PendingBatch full = null;
+    PendingBatch overflowed = null;
+    synchronized (this) {
+      if (closed) {
+        return rejected();
+      }
+      PendingBatch batch = pendingBatches.get(key);
+      if (batch != null && batch.sizeInBytes + size > maxSizeInBytes) {
+        // The statement doesn't fit, send the current batch and start a new one
+        pendingBatches.remove(key);
+        overflowed = batch;
+        batch = null;
+      }
+      if (batch == null) {
+        batch = new PendingBatch(key);
+        pendingBatches.put(key, batch);
+        PendingBatch newBatch = batch;
+        batch.deadline =
+            timer.newTimeout(t -> onDeadline(newBatch), maxDelayNanos, TimeUnit.NANOSECONDS);
+      }
+      batch.add(statement, size, result);
+      if (batch.statements.size() >= maxStatements || batch.sizeInBytes >= maxSizeInBytes) {
+        pendingBatches.remove(key);
+        full = batch;
+      }
+    }
+    if (overflowed != null) {
+      send(overflowed);
+    }
+    if (full != null) {
+      send(full);
+    }
+    return result;
+  }
+
+  @Override
+  public void flush() {
+    List<PendingBatch> toSend;
+    synchronized (this) {
+      toSend = new ArrayList<>(pendingBatches.values());
+      pendingBatches.clear();
+    }
+    for (PendingBatch batch : toSend) {
+      send(batch);
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      closed = true;
+    }
+    flush();
+  }
+
+  private void onDeadline(PendingBatch batch) {
+    synchronized (this) {
+      // The batch might have been sent already because it filled up
+      if (!pendingBatches.remove(batch.key, batch)) {
+        return;
+      }
+    }
+    send(batch);
+  }
+
+  private void send(PendingBatch batch) {
+    batch.deadline.cancel();
+    Statement<?> statement;
+    if (batch.statements.size() == 1) {
+      // No need for a batch
+      statement = batch.statements.get(0);
+    } else {
+      // All the statements share the same options (they're part of the key), apply them to the
+      // batch
+      BatchableStatement<?> first = batch.statements.get(0);
+      BatchStatement batchStatement =
+          BatchStatement.newInstance(DefaultBatchType.UNLOGGED, batch.statements)
+              .setExecutionProfileName(first.getExecutionProfileName())
+              .setExecutionProfile(first.getExecutionProfile())
+              .setConsistencyLevel(first.getConsistencyLevel())
+              .setSerialConsistencyLevel(first.getSerialConsistencyLevel())
+              .setQueryTimestamp(first.getQueryTimestamp())
+              .setTimeout(first.getTimeout())
+              .setNode(first.getNode());
+      Boolean idempotent = batch.isIdempotent();
+      statement = (idempotent == null) ? batchStatement : batchStatement.setIdempotent(idempotent);
+    }
+    CompletionStage<AsyncResultSet> resultStage;
+    try {
+      resultStage = session.executeAsync(statement);
+    } catch (Throwable t) {
+      resultStage = CompletableFutures.failedFuture(t);
+    }
+    resultStage.whenComplete(
+        (resultSet, error) -> {
+          if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+          }
+          for (CompletableFuture<AsyncResultSet> result : batch.results) {
+            if (error == null) {
+              result.complete(resultSet);
+            } else {
+              result.completeExceptionally(error);
+            }
+          }
+        });
+  }
+
+  private static <T> CompletionStage<T> rejected() {
+    return CompletableFutures.failedFuture(
+        new IllegalStateException("This batcher is closed, it does not accept new statements"));
+  }
+
+  /**
+   * Identifies the partition targeted by a statement, and the options that it will be executed
+   * with: statements can only be batched together if they agree on all of them.
+   */
+  private static class PartitionKey {
+
+    /** @return null if the statement does not target a known partition. */
+    static PartitionKey of(Statement<?> statement) {
+      CqlIdentifier keyspace = statement.getRoutingKeyspace();
+      if (keyspace == null) {
+        keyspace = statement.getKeyspace();
+      }
+      ByteBuffer routingKey = statement.getRoutingKey();
+      Token routingToken = (routingKey == null) ? statement.getRoutingToken() : null;
+      return (routingKey == null && routingToken == null)
+          ? null
+          : new PartitionKey(keyspace, routingKey, routingToken, statement);
+    }
+
+    private final CqlIdentifier keyspace;
+    private final ByteBuffer routingKey;
+    private final Token routingToken;
+    private final String executionProfileName;
+    private final DriverExecutionProfile executionProfile;
+    private final ConsistencyLevel consistencyLevel;
+    private final ConsistencyLevel serialConsistencyLevel;
+    private final long queryTimestamp;
+    private final Duration timeout;
+    private final Node node;
+
+    private PartitionKey(
+        CqlIdentifier keyspace, ByteBuffer routingKey, Token routingToken, Statement<?> statement) {
+      this.keyspace = keyspace;
+      this.routingKey = routingKey;
+      this.routingToken = routingToken;
+      this.executionProfileName = statement.getExecutionProfileName();
+      this.executionProfile = statement.getExecutionProfile();
+      this.consistencyLevel = statement.getConsistencyLevel();
+      this.serialConsistencyLevel = statement.getSerialConsistencyLevel();
+      this.queryTimestamp = statement.getQueryTimestamp();
+      this.timeout = statement.getTimeout();
+      this.node = statement.getNode();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (other == this) {
+        return true;
+      } else if (other instanceof PartitionKey) {
+        PartitionKey that = (PartitionKey) other;
+        return Objects.equals(this.keyspace, that.keyspace)
+            && Objects.equals(this.routingKey, that.routingKey)
+            && Objects.equals(this.routingToken, that.routingToken)
+            && Objects.equals(this.executionProfileName, that.executionProfileName)
+            // Profiles don't override equals, compare by reference
+            && this.executionProfile == that.executionProfile
+            && Objects.equals(this.consistencyLevel, that.consistencyLevel)
+            && Objects.equals(this.serialConsistencyLevel, that.serialConsistencyLevel)
+            && this.queryTimestamp == that.queryTimestamp
+            && Objects.equals(this.timeout, that.timeout)
+            && Objects.equals(this.node, that.node);
+      } else {
+        return false;
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      // The options are almost always the same, the partition is enough to spread the keys
+      return Objects.hash(keyspace, routingKey, routingToken);
+    }
+  }
+
+  private static class PendingBatch {
+    private final PartitionKey key;
+    private final List<BatchableStatement<?>> statements = new ArrayList<>();
+    private final List<CompletableFuture<AsyncResultSet>> results = new ArrayList<>();
+    private int sizeInBytes;
+    private Timeout deadline;
+
+    private PendingBatch(PartitionKey key) {
+      this.key = key;
+    }
+
+    private void add(
+        BatchableStatement<?> statement, int size, CompletableFuture<AsyncResultSet> result) {
+      statements.add(statement);
+      results.add(result);
+      sizeInBytes += size;
+    }
+
+    // The batch is idempotent if all its statements are; if one of them is explicitly not
+    // idempotent, neither is the batch. Otherwise, let the request handler use the default.
+    private Boolean isIdempotent() {
+      boolean allIdempotent = true;
+      for (BatchableStatement<?> statement : statements) {
+        Boolean idempotent = statement.isIdempotent();
+        if (idempotent == null) {
+          allIdempotent = false;
+        } else if (!idempotent) {
+          return false;
+        }
+      }
+      return allIdempotent ? true : null;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.cql.reactive;
+
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.reactive.ReactiveResultSet;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import net.jcip.annotations.ThreadSafe;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+@ThreadSafe
+public class DefaultReactiveResultSet implements ReactiveResultSet {
+
+  private final Supplier<CompletionStage<AsyncResultSet>> firstPageSupplier;
+  private final UnicastPublisher<ColumnDefinitions> columnDefinitionsPublisher =
+      new UnicastPublisher<>();
+  private final UnicastPublisher<ExecutionInfo> executionInfosPublisher = new UnicastPublisher<>();
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  /**
+   * @param firstPageSupplier executes the query. It is only invoked once, when the subscriber
+   *     requests the first row.
+   */
+  public DefaultReactiveResultSet(Supplier<CompletionStage<AsyncResultSet>> firstPageSupplier) {
+    this.firstPageSupplier = firstPageSupplier;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super Row> subscriber) {
+    Objects.requireNonNull(subscriber, "Subscriber cannot be null");
+    if (subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(
+          new ReactiveResultSetSubscription(
+              subscriber, firstPageSupplier, columnDefinitionsPublisher, executionInfosPublisher));
+    } else {
+      subscriber.onSubscribe(EmptySubscription.INSTANCE);
+      subscriber.onError(
+          new IllegalStateException("This publisher does not support multiple subscriptions"));
+    }
+  }
+
+  @NonNull
+  @Override
+  public Publisher<ColumnDefinitions> getColumnDefinitions() {
+    return columnDefinitionsPublisher;
+  }
+
+  @NonNull
+  @Override
+  public Publisher<ExecutionInfo> getExecutionInfos() {
+    return executionInfosPublisher;
+  }
+}
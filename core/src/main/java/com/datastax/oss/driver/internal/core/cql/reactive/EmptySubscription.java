@@ -0,0 +1,36 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.cql.reactive;
+
+import org.reactivestreams.Subscription;
+
+/**
+ * A subscription that does nothing, used to reject a subscriber: the Reactive Streams specification
+ * requires {@code onSubscribe} to be called before {@code onError}.
+ */
+enum EmptySubscription implements Subscription {
+  INSTANCE;
+
+  @Override
+  public void request(long n) {
+    // nothing to do
+  }
+
+  @Override
+  public void cancel() {
+    // nothing to do
+  }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.cql.reactive;
+
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.internal.core.util.Loggers;
+import com.datastax.oss.driver.internal.core.util.concurrent.CompletableFutures;
+import java.util.Iterator;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import net.jcip.annotations.ThreadSafe;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The subscription to a {@link DefaultReactiveResultSet}.
+ *
+ * <p>All the signals to the subscriber are emitted from a drain loop, that only one thread can run
+ * at a time. The loop emits the rows of the current page while there is demand, and requests the
+ * next page when the current one is exhausted and there is still demand. There is at most one page
+ * request in flight at any time.
+ */
+@ThreadSafe
+public class ReactiveResultSetSubscription implements Subscription {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReactiveResultSetSubscription.class);
+
+  /** Adds to the demand of a subscription, capping at {@link Long#MAX_VALUE} (unbounded). */
+  static void addDemand(AtomicLong requested, long n) {
+    while (true) {
+      long current = requested.get();
+      if (current == Long.MAX_VALUE) {
+        return;
+      }
+      long next = current + n;
+      if (next < 0) {
+        next = Long.MAX_VALUE;
+      }
+      if (requested.compareAndSet(current, next)) {
+        return;
+      }
+    }
+  }
+
+  private final Subscriber<? super Row> subscriber;
+  private final Supplier<CompletionStage<AsyncResultSet>> firstPageSupplier;
+  private final UnicastPublisher<ColumnDefinitions> columnDefinitionsPublisher;
+  private final UnicastPublisher<ExecutionInfo> executionInfosPublisher;
+
+  private final AtomicLong requested = new AtomicLong();
+  // Guarantees that only one thread at a time runs drain()
+  private final AtomicInteger drainers = new AtomicInteger();
+
+  // Whether a page request is in flight. The two fields after it are written by the thread that
+  // completes the request, before it resets this flag; the drain loop only reads them after
+  // checking that the flag is reset, so they don't need to be volatile.
+  private volatile boolean fetching;
+  private AsyncResultSet currentPage;
+  private Iterator<Row> currentRows;
+
+  private volatile CompletionStage<AsyncResultSet> pendingPage;
+  private volatile Throwable error;
+  private volatile Throwable invalidRequest;
+  private volatile boolean cancelled;
+
+  ReactiveResultSetSubscription(
+      Subscriber<? super Row> subscriber,
+      Supplier<CompletionStage<AsyncResultSet>> firstPageSupplier,
+      UnicastPublisher<ColumnDefinitions> columnDefinitionsPublisher,
+      UnicastPublisher<ExecutionInfo> executionInfosPublisher) {
+    this.subscriber = subscriber;
+    this.firstPageSupplier = firstPageSupplier;
+    this.columnDefinitionsPublisher = columnDefinitionsPublisher;
+    this.executionInfosPublisher = executionInfosPublisher;
+  }
+
+  @Override
+  public void request(long n) {
+    if (n <= 0) {
+      invalidRequest =
+          new IllegalArgumentException(
+              "Invalid request: " + n + ", the number of requested items must be positive");
+    } else {
+      addDemand(requested, n);
+    }
+    drain();
+  }
+
+  @Override
+  public void cancel() {
+    if (!cancelled) {
+      cancelled = true;
+      columnDefinitionsPublisher.onComplete();
+      executionInfosPublisher.onComplete();
+      CompletionStage<AsyncResultSet> pendingPage = this.pendingPage;
+      if (pendingPage != null) {
+        // Cancels the request handler, if the page is not received yet
+        pendingPage.toCompletableFuture().cancel(true);
+      }
+      drain();
+    }
+  }
+
+  private void drain() {
+    if (drainers.getAndIncrement() != 0) {
+      // Another thread is draining, it will loop again
+      return;
+    }
+    int missed = 1;
+    while (true) {
+      if (cancelled) {
+        return;
+      }
+      Throwable invalidRequest = this.invalidRequest;
+      if (invalidRequest != null) {
+        cancel();
+        subscriber.onError(invalidRequest);
+        return;
+      }
+      if (!fetching) {
+        Throwable error = this.error;
+        if (error != null) {
+          cancelled = true;
+          subscriber.onError(error);
+          return;
+        }
+        if (currentPage == null) {
+          if (requested.get() > 0) {
+            fetch(true);
+          }
+        } else {
+          long r = requested.get();
+          long emitted = 0;
+          while (emitted != r && currentRows.hasNext()) {
+            Row row = currentRows.next();
+            try {
+              subscriber.onNext(row);
+            } catch (Throwable t) {
+              // The spec forbids onNext to throw, consider the subscription cancelled
+              Loggers.warnWithException(
+                  LOG, "Subscriber {} threw while processing a row, cancelling", subscriber, t);
+              cancel();
+              return;
+            }
+            emitted += 1;
+            if (cancelled) {
+              return;
+            }
+          }
+          if (emitted != 0 && r != Long.MAX_VALUE) {
+            requested.addAndGet(-emitted);
+          }
+          if (!currentRows.hasNext()) {
+            if (!currentPage.hasMorePages()) {
+              cancelled = true;
+              subscriber.onComplete();
+              return;
+            } else if (requested.get() > 0) {
+              fetch(false);
+            }
+          }
+        }
+      }
+      missed = drainers.addAndGet(-missed);
+      if (missed == 0) {
+        return;
+      }
+    }
+  }
+
+  private void fetch(boolean firstPage) {
+    fetching = true;
+    CompletionStage<AsyncResultSet> page;
+    try {
+      page = firstPage ? firstPageSupplier.get() : currentPage.fetchNextPage();
+    } catch (Throwable t) {
+      page = CompletableFutures.failedFuture(t);
+    }
+    pendingPage = page;
+    // If the page is already available, this runs synchronously; onPage will call drain(), which
+    // will just signal the current drain loop to run once more.
+    page.whenComplete(this::onPage);
+  }
+
+  private void onPage(AsyncResultSet page, Throwable error) {
+    pendingPage = null;
+    if (error != null) {
+      if (error instanceof CompletionException && error.getCause() != null) {
+        error = error.getCause();
+      }
+      columnDefinitionsPublisher.onError(error);
+      executionInfosPublisher.onError(error);
+      this.error = error;
+    } else {
+      if (currentPage == null) {
+        columnDefinitionsPublisher.onNext(page.getColumnDefinitions());
+        columnDefinitionsPublisher.onComplete();
+      }
+      executionInfosPublisher.onNext(page.getExecutionInfo());
+      if (!page.hasMorePages()) {
+        executionInfosPublisher.onComplete();
+      }
+      currentPage = page;
+      currentRows = page.currentPage().iterator();
+    }
+    fetching = false;
+    drain();
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.cql.reactive;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import net.jcip.annotations.ThreadSafe;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * A publisher that gets fed programmatically, buffers the items, and emits them to a single
+ * subscriber according to its demand.
+ *
+ * <p>This is used for the side channels of {@link DefaultReactiveResultSet}, which emit a handful
+ * of items at most (one per page), so the buffer is not bounded.
+ */
+@ThreadSafe
+class UnicastPublisher<T> implements Publisher<T>, Subscription {
+
+  private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+  private final AtomicLong requested = new AtomicLong();
+  // Guarantees that only one thread at a time emits signals to the subscriber
+  private final AtomicInteger drainers = new AtomicInteger();
+
+  private volatile Subscriber<? super T> subscriber;
+  private volatile boolean done;
+  private volatile Throwable error;
+  private volatile Throwable invalidRequest;
+  private volatile boolean cancelled;
+
+  @Override
+  public void subscribe(Subscriber<? super T> subscriber) {
+    Objects.requireNonNull(subscriber, "Subscriber cannot be null");
+    if (subscribed.compareAndSet(false, true)) {
+      this.subscriber = subscriber;
+      subscriber.onSubscribe(this);
+      drain();
+    } else {
+      subscriber.onSubscribe(EmptySubscription.INSTANCE);
+      subscriber.onError(
+          new IllegalStateException("This publisher does not support multiple subscriptions"));
+    }
+  }
+
+  void onNext(T item) {
+    if (!done && !cancelled) {
+      queue.offer(item);
+      drain();
+    }
+  }
+
+  void onComplete() {
+    if (!done) {
+      done = true;
+      drain();
+    }
+  }
+
+  void onError(Throwable error) {
+    if (!done) {
+      this.error = error;
+      done = true;
+      drain();
+    }
+  }
+
+  @Override
+  public void request(long n) {
+    if (n <= 0) {
+      invalidRequest =
+          new IllegalArgumentException(
+              "Invalid request: " + n + ", the number of requested items must be positive");
+    } else {
+      ReactiveResultSetSubscription.addDemand(requested, n);
+    }
+    drain();
+  }
+
+  @Override
+  public void cancel() {
+    cancelled = true;
+    drain();
+  }
+
+  private void drain() {
+    if (drainers.getAndIncrement() != 0) {
+      // Another thread is draining, it will loop again
+      return;
+    }
+    int missed = 1;
+    while (true) {
+      Subscriber<? super T> subscriber = this.subscriber;
+      if (subscriber != null) {
+        if (cancelled) {
+          clear();
+          return;
+        }
+        Throwable invalidRequest = this.invalidRequest;
+        if (invalidRequest != null) {
+          clear();
+          subscriber.onError(invalidRequest);
+          return;
+        }
+        long r = requested.get();
+        long emitted = 0;
+        while (emitted != r) {
+          boolean isDone = done;
+          T item = queue.poll();
+          if (item == null) {
+            if (isDone) {
+              terminate(subscriber);
+              return;
+            }
+            break;
+          }
+          subscriber.onNext(item);
+          emitted += 1;
+          if (cancelled) {
+            clear();
+            return;
+          }
+        }
+        if (done && queue.isEmpty()) {
+          terminate(subscriber);
+          return;
+        }
+        if (emitted != 0 && r != Long.MAX_VALUE) {
+          requested.addAndGet(-emitted);
+        }
+      }
+      missed = drainers.addAndGet(-missed);
+      if (missed == 0) {
+        return;
+      }
+    }
+  }
+
+  private void terminate(Subscriber<? super T> subscriber) {
+    clear();
+    Throwable error = this.error;
+    if (error == null) {
+      subscriber.onComplete();
+    } else {
+      subscriber.onError(error);
+    }
+  }
+
+  // Leaves drainers non-zero, so that no other signal will ever be emitted
+  private void clear() {
+    cancelled = true;
+    queue.clear();
+    subscriber = null;
+  }
+}
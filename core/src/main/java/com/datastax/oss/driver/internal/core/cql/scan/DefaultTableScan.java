@@ -0,0 +1,437 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.cql.scan;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.DriverException;
+import com.datastax.oss.driver.api.core.DriverExecutionException;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.scan.TableScan;
+import com.datastax.oss.driver.api.core.metadata.Metadata;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.datastax.oss.driver.api.core.metadata.schema.ColumnMetadata;
+import com.datastax.oss.driver.api.core.metadata.schema.TableMetadata;
+import com.datastax.oss.driver.api.core.metadata.token.TokenRange;
+import com.datastax.oss.driver.internal.core.util.concurrent.BlockingOperation;
+import com.datastax.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
+import com.datastax.oss.driver.shaded.guava.common.collect.AbstractIterator;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The default table scan implementation.
+ *
+ * <p>The splits are queued per assigned replica, and each node runs at most {@code
+ * maxConcurrentSplitsPerNode} of them at a time. A split holds its slot until the client has
+ * dequeued its last page: since a split only requests its next page when the previous one is
+ * dequeued, the number of pages buffered in memory is bounded by the total number of slots.
+ */
+@ThreadSafe
+public class DefaultTableScan implements TableScan {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DefaultTableScan.class);
+
+  // Put in the result queue when the scan gets closed, to wake up the client if it is blocked
+  private static final Object CLOSED = new Object();
+
+  private final CqlSession session;
+  private final CqlIdentifier keyspace;
+  private final CqlIdentifier table;
+  private final List<CqlIdentifier> columns;
+  private final int splitsPerRange;
+  private final int maxConcurrentSplitsPerNode;
+  private final int maxRetries;
+  private final String executionProfileName;
+  private final String logPrefix;
+
+  private final AtomicBoolean started = new AtomicBoolean();
+  // Contains Page instances, errors (Throwable) or CLOSED
+  private final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+
+  @GuardedBy("this")
+  private final Map<Node, NodeSplits> splitsByNode = new LinkedHashMap<>();
+
+  // Written once before the first request is sent, so that the request callbacks see them
+  private volatile PreparedStatement boundedQuery;
+  private volatile PreparedStatement openEndedQuery;
+  private volatile List<Split> splits = Collections.emptyList();
+  private volatile boolean closed;
+
+  public DefaultTableScan(
+      CqlSession session,
+      CqlIdentifier keyspace,
+      CqlIdentifier table,
+      List<CqlIdentifier> columns,
+      int splitsPerRange,
+      int maxConcurrentSplitsPerNode,
+      int maxRetries,
+      String executionProfileName) {
+    this.session = session;
+    this.keyspace = keyspace;
+    this.table = table;
+    this.columns = columns;
+    this.splitsPerRange = splitsPerRange;
+    this.maxConcurrentSplitsPerNode = maxConcurrentSplitsPerNode;
+    this.maxRetries = maxRetries;
+    this.executionProfileName = executionProfileName;
+    this.logPrefix = session.getName() + "|" + keyspace.asInternal() + "." + table.asInternal();
+  }
+
+  @NonNull
+  @Override
+  public Iterator<Row> iterator() {
+    if (!started.compareAndSet(false, true)) {
+      throw new IllegalStateException(
+          "This scan was already started, it can only be iterated once");
+    }
+    BlockingOperation.checkNotDriverThread();
+
+    Metadata metadata = session.getMetadata();
+    TableMetadata tableMetadata =
+        metadata
+            .getKeyspace(keyspace)
+            .flatMap(k -> k.getTable(table))
+            .orElseThrow(
+                () ->
+                    new IllegalArgumentException(
+                        String.format(
+                            "Unknown table %s.%s", keyspace.asCql(true), table.asCql(true))));
+    TokenMap tokenMap =
+        metadata
+            .getTokenMap()
+            .orElseThrow(
+                () ->
+                    new IllegalStateException(
+                        "Token metadata is not available, "
+                            + "check that advanced.metadata.token-map.enabled is true"));
+
+    List<CqlIdentifier> partitionKey = new ArrayList<>();
+    for (ColumnMetadata column : tableMetadata.getPartitionKey()) {
+      partitionKey.add(column.getName());
+    }
+    boundedQuery = session.prepare(buildQuery(keyspace, table, columns, partitionKey, true));
+    openEndedQuery = session.prepare(buildQuery(keyspace, table, columns, partitionKey, false));
+
+    List<Split> splits =
+        planSplits(
+            tokenMap.getTokenRanges(),
+            range -> tokenMap.getReplicas(keyspace, range),
+            splitsPerRange);
+    LOG.debug("[{}] Starting scan with {} splits", logPrefix, splits.size());
+    this.splits = splits;
+
+    List<Split> toStart = new ArrayList<>();
+    synchronized (this) {
+      for (Split split : splits) {
+        splitsByNode.computeIfAbsent(split.replica, n -> new NodeSplits()).pending.add(split);
+      }
+      for (NodeSplits nodeSplits : splitsByNode.values()) {
+        while (nodeSplits.running < maxConcurrentSplitsPerNode && !nodeSplits.pending.isEmpty()) {
+          nodeSplits.running += 1;
+          toStart.add(nodeSplits.pending.poll());
+        }
+      }
+    }
+    for (Split split : toStart) {
+      execute(split);
+    }
+    return new RowIterator(splits.size());
+  }
+
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      results.offer(CLOSED);
+      for (Split split : splits) {
+        CompletionStage<AsyncResultSet> pendingRequest = split.pendingRequest;
+        if (pendingRequest != null) {
+          pendingRequest.toCompletableFuture().cancel(true);
+        }
+      }
+    }
+  }
+
+  private void execute(Split split) {
+    if (closed) {
+      return;
+    }
+    // The first attempt of each request goes to the assigned replica. Retries go through the load
+    // balancing policy, which will use the routing token to pick another replica if possible.
+    BoundStatement statement =
+        split.isOpenEnded()
+            ? openEndedQuery.bind().setToken(0, split.range.getStart())
+            : boundedQuery
+                .bind()
+                .setToken(0, split.range.getStart())
+                .setToken(1, split.range.getEnd());
+    statement =
+        statement
+            .setNode(split.retries == 0 ? split.replica : null)
+            .setRoutingKeyspace(keyspace)
+            .setRoutingToken(split.range.getEnd())
+            .setIdempotent(true)
+            .setExecutionProfileName(executionProfileName)
+            .setPagingState(split.pagingState);
+    CompletionStage<AsyncResultSet> request = session.executeAsync(statement);
+    split.pendingRequest = request;
+    request.whenComplete((resultSet, error) -> onResponse(split, resultSet, error));
+  }
+
+  private void onResponse(Split split, AsyncResultSet resultSet, Throwable error) {
+    split.pendingRequest = null;
+    if (closed) {
+      return;
+    }
+    if (error == null) {
+      split.retries = 0;
+      split.pagingState = resultSet.getExecutionInfo().getPagingState();
+      results.offer(new Page(split, resultSet));
+    } else {
+      if (error instanceof CompletionException && error.getCause() != null) {
+        error = error.getCause();
+      }
+      if (split.retries < maxRetries) {
+        split.retries += 1;
+        LOG.debug(
+            "[{}] Error while querying split {}, retrying ({}/{})",
+            logPrefix,
+            split.range,
+            split.retries,
+            maxRetries,
+            error);
+        execute(split);
+      } else {
+        results.offer(error);
+      }
+    }
+  }
+
+  // Called when the client dequeues the last page of a split
+  private void onSplitDone(Split split) {
+    Split next;
+    synchronized (this) {
+      NodeSplits nodeSplits = splitsByNode.get(split.replica);
+      next = nodeSplits.pending.poll();
+      if (next == null) {
+        nodeSplits.running -= 1;
+      }
+    }
+    if (next != null) {
+      execute(next);
+    }
+  }
+
+  @VisibleForTesting
+  static String buildQuery(
+      CqlIdentifier keyspace,
+      CqlIdentifier table,
+      List<CqlIdentifier> columns,
+      List<CqlIdentifier> partitionKey,
+      boolean bounded) {
+    StringBuilder builder = new StringBuilder("SELECT ");
+    if (columns.isEmpty()) {
+      builder.append('*');
+    } else {
+      appendJoined(builder, columns);
+    }
+    builder.append(" FROM ").append(keyspace.asCql(true)).append('.').append(table.asCql(true));
+    StringBuilder token = new StringBuilder("token(");
+    appendJoined(token, partitionKey);
+    token.append(')');
+    builder.append(" WHERE ").append(token).append(" > ?");
+    if (bounded) {
+      builder.append(" AND ").append(token).append(" <= ?");
+    }
+    return builder.toString();
+  }
+
+  private static void appendJoined(StringBuilder builder, List<CqlIdentifier> identifiers) {
+    for (int i = 0; i < identifiers.size(); i++) {
+      if (i > 0) {
+        builder.append(',');
+      }
+      builder.append(identifiers.get(i).asCql(true));
+    }
+  }
+
+  /**
+   * Splits each range, and assigns each split to the replica of the range that has the fewest
+   * splits so far.
+   *
+   * <p>Wrapped-around splits are unwrapped, because a single query can't cover them.
+   */
+  @VisibleForTesting
+  static List<Split> planSplits(
+      Collection<TokenRange> ranges,
+      Function<TokenRange, Set<Node>> replicasFunction,
+      int splitsPerRange) {
+    List<Split> splits = new ArrayList<>();
+    Map<Node, Integer> splitsPerNode = new HashMap<>();
+    for (TokenRange range : ranges) {
+      Set<Node> replicas = replicasFunction.apply(range);
+      for (TokenRange split : range.splitEvenly(splitsPerRange)) {
+        for (TokenRange unwrapped : split.unwrap()) {
+          Node replica = null;
+          int minCount = Integer.MAX_VALUE;
+          for (Node candidate : replicas) {
+            int count = splitsPerNode.getOrDefault(candidate, 0);
+            if (count < minCount) {
+              replica = candidate;
+              minCount = count;
+            }
+          }
+          if (replica != null) {
+            splitsPerNode.put(replica, minCount + 1);
+          }
+          splits.add(new Split(unwrapped, replica));
+        }
+      }
+    }
+    return splits;
+  }
+
+  /** A sub-range of the ring, and the replica that it is assigned to. */
+  @VisibleForTesting
+  static class Split {
+    final TokenRange range;
+    // Null if the range has no known replica; the queries will be routed by the load balancing
+    // policy.
+    final Node replica;
+
+    // Only accessed by one request callback at a time
+    private volatile ByteBuffer pagingState;
+    private volatile int retries;
+    private volatile CompletionStage<AsyncResultSet> pendingRequest;
+
+    private Split(TokenRange range, Node replica) {
+      this.range = range;
+      this.replica = replica;
+    }
+
+    // The unwrapped range ends at the end of the ring (or is the full ring)
+    private boolean isOpenEnded() {
+      return range.getStart().compareTo(range.getEnd()) >= 0;
+    }
+  }
+
+  private static class NodeSplits {
+    private final Queue<Split> pending = new ArrayDeque<>();
+    private int running;
+  }
+
+  private static class Page {
+    private final Split split;
+    private final AsyncResultSet resultSet;
+
+    private Page(Split split, AsyncResultSet resultSet) {
+      this.split = split;
+      this.resultSet = resultSet;
+    }
+  }
+
+  private class RowIterator extends AbstractIterator<Row> {
+
+    private int remainingSplits;
+    private Iterator<Row> currentRows = Collections.emptyIterator();
+
+    private RowIterator(int splitCount) {
+      this.remainingSplits = splitCount;
+    }
+
+    @Override
+    protected Row computeNext() {
+      while (true) {
+        if (closed) {
+          return endOfData();
+        }
+        if (currentRows.hasNext()) {
+          return currentRows.next();
+        }
+        if (remainingSplits == 0) {
+          return endOfData();
+        }
+        Object result = take();
+        if (result instanceof Page) {
+          Page page = (Page) result;
+          // Request the next page right away, so that it gets fetched while the client processes
+          // this one.
+          if (page.resultSet.hasMorePages()) {
+            execute(page.split);
+          } else {
+            remainingSplits -= 1;
+            onSplitDone(page.split);
+          }
+          currentRows = page.resultSet.currentPage().iterator();
+        } else if (result instanceof Throwable) {
+          close();
+          Throwable error = (Throwable) result;
+          if (error instanceof DriverException) {
+            throw ((DriverException) error).copy();
+          } else if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+          } else {
+            throw new DriverExecutionException(error);
+          }
+        }
+        // else CLOSED: the check at the beginning of the loop will end the iteration
+      }
+    }
+
+    private Object take() {
+      boolean interrupted = false;
+      try {
+        while (true) {
+          try {
+            return results.take();
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+}
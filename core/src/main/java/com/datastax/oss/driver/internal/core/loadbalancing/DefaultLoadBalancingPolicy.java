@@ -28,8 +28,12 @@ import com.datastax.oss.driver.api.core.metadata.token.Token;
 import com.datastax.oss.driver.api.core.session.Request;
 import com.datastax.oss.driver.api.core.session.Session;
 import com.datastax.oss.driver.internal.core.context.InternalDriverContext;
+import com.datastax.oss.driver.internal.core.cql.DefaultBoundStatement;
 import com.datastax.oss.driver.internal.core.metadata.DefaultNode;
 import com.datastax.oss.driver.internal.core.metadata.MetadataManager;
+import com.datastax.oss.driver.internal.core.metadata.token.DefaultTokenMap;
+import com.datastax.oss.driver.internal.core.pool.ChannelPool;
+import com.datastax.oss.driver.internal.core.session.DefaultSession;
 import com.datastax.oss.driver.internal.core.util.ArrayUtils;
 import com.datastax.oss.driver.internal.core.util.Reflection;
 import com.datastax.oss.driver.internal.core.util.collection.QueryPlan;
@@ -45,6 +49,8 @@ import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntUnaryOperator;
@@ -82,7 +88,10 @@ public class DefaultLoadBalancingPolicy implements LoadBalancingPolicy {
   private final Predicate<Node> filter;
   private final AtomicInteger roundRobinAmount = new AtomicInteger();
   private final boolean isDefaultPolicy;
+  private final boolean inFlightAwareReplicas;
   @VisibleForTesting final CopyOnWriteArraySet<Node> localDcLiveNodes = new CopyOnWriteArraySet<>();
+  // A snapshot of localDcLiveNodes, replaced every time the set changes
+  private volatile LiveNodes liveNodes = LiveNodes.EMPTY;
 
   private volatile DistanceReporter distanceReporter;
   @VisibleForTesting volatile String localDc;
@@ -94,6 +103,8 @@ public class DefaultLoadBalancingPolicy implements LoadBalancingPolicy {
     DriverExecutionProfile config = context.getConfig().getProfile(profileName);
     this.localDc = getLocalDcFromConfig(internalContext, profileName, config);
     this.isDefaultPolicy = profileName.equals(DriverExecutionProfile.DEFAULT_NAME);
+    this.inFlightAwareReplicas =
+        config.getBoolean(DefaultDriverOption.LOAD_BALANCING_IN_FLIGHT_AWARE_REPLICAS, false);
 
     this.metadataManager = internalContext.getMetadataManager();
 
@@ -169,44 +180,91 @@ public class DefaultLoadBalancingPolicy implements LoadBalancingPolicy {
         distanceReporter.setDistance(node, NodeDistance.IGNORED);
       }
     }
+    refreshLiveNodes();
   }
 
   @NonNull
   @Override
   public Queue<Node> newQueryPlan(@Nullable Request request, @Nullable Session session) {
-    // Take a snapshot since the set is concurrent:
-    Object[] currentNodes = localDcLiveNodes.toArray();
+    LiveNodes liveNodes = this.liveNodes;
+    Object[] localReplicas = liveNodes.getLocalReplicas(getReplicas(request, session));
+    int replicaCount = localReplicas.length;
 
-    Set<Node> allReplicas = getReplicas(request, session);
-    int replicaCount = 0; // in currentNodes
+    // This is the only allocation (in addition to the QueryPlan that wraps it), the rest of the
+    // plan is built in place
+    Object[] currentNodes = new Object[liveNodes.nodes.length];
 
-    if (!allReplicas.isEmpty()) {
-      // Move replicas to the beginning
-      for (int i = 0; i < currentNodes.length; i++) {
-        Node node = (Node) currentNodes[i];
-        if (allReplicas.contains(node)) {
-          ArrayUtils.bubbleUp(currentNodes, i, replicaCount);
-          replicaCount += 1;
-        }
-      }
-
-      if (replicaCount > 1) {
-        shuffleHead(currentNodes, replicaCount);
+    // Replicas go first
+    System.arraycopy(localReplicas, 0, currentNodes, 0, replicaCount);
+    if (replicaCount > 1) {
+      // Even if we sort by load next, shuffle first so that ties are broken randomly
+      shuffleHead(currentNodes, replicaCount);
+      if (inFlightAwareReplicas && session instanceof DefaultSession) {
+        sortByLoad(currentNodes, replicaCount, ((DefaultSession) session).getPools());
       }
     }
 
     LOG.trace("[{}] Prioritizing {} local replicas", logPrefix, replicaCount);
 
     // Round-robin the remaining nodes
-    ArrayUtils.rotate(
+    fillRotated(
         currentNodes,
         replicaCount,
-        currentNodes.length - replicaCount,
+        liveNodes.nodes,
+        localReplicas,
         roundRobinAmount.getAndUpdate(INCREMENT));
 
+    reorderPlan(currentNodes, replicaCount);
+
     return new QueryPlan(currentNodes);
   }
 
+  /**
+   * Copies the nodes that are not replicas after the replicas, rotated by the given amount. This is
+   * equivalent to appending them in order and then calling {@link ArrayUtils#rotate}, but in a
+   * single pass.
+   */
+  private static void fillRotated(
+      Object[] currentNodes, int replicaCount, Object[] allNodes, Object[] replicas, int amount) {
+    int remaining = currentNodes.length - replicaCount;
+    if (remaining == 0) {
+      return;
+    }
+    int offset = remaining - amount % remaining;
+    int j = 0; // index among the non-replicas
+    for (Object node : allNodes) {
+      if (!contains(replicas, node)) {
+        currentNodes[replicaCount + (j + offset) % remaining] = node;
+        j += 1;
+      }
+    }
+  }
+
+  private static boolean contains(Object[] replicas, Object node) {
+    // Linear search, there are only a handful of replicas
+    for (Object replica : replicas) {
+      if (replica == node) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gives subclasses a chance to adjust a query plan before it is returned. When this is called,
+   * the local replicas (if any) have been moved to the front and shuffled, and the other nodes have
+   * been rotated.
+   *
+   * <p>The default implementation does nothing.
+   *
+   * @param currentNodes the nodes of the plan, in order. This array is not shared, it can be
+   *     modified in place.
+   * @param replicaCount the number of replicas at the beginning of the array.
+   */
+  protected void reorderPlan(@NonNull Object[] currentNodes, int replicaCount) {
+    // nothing to do
+  }
+
   private Set<Node> getReplicas(Request request, Session session) {
     if (request == null || session == null) {
       return Collections.emptySet();
@@ -227,14 +285,33 @@ public class DefaultLoadBalancingPolicy implements LoadBalancingPolicy {
     }
 
     Token token = request.getRoutingToken();
-    ByteBuffer key = (token == null) ? request.getRoutingKey() : null;
-    if (token == null && key == null) {
-      return Collections.emptySet();
+    ByteBuffer key = null;
+    DefaultBoundStatement boundStatement = null;
+    if (token == null) {
+      if (request instanceof DefaultBoundStatement) {
+        // Bound statements cache their token, we compute it below once we have the token map
+        boundStatement = (DefaultBoundStatement) request;
+      } else {
+        key = request.getRoutingKey();
+        if (key == null) {
+          return Collections.emptySet();
+        }
+      }
     }
 
     Optional<TokenMap> maybeTokenMap = metadataManager.getMetadata().getTokenMap();
     if (maybeTokenMap.isPresent()) {
       TokenMap tokenMap = maybeTokenMap.get();
+      if (boundStatement != null) {
+        if (tokenMap instanceof DefaultTokenMap) {
+          token = boundStatement.getRoutingToken(((DefaultTokenMap) tokenMap).getTokenFactory());
+        } else {
+          key = boundStatement.getRoutingKey();
+        }
+        if (token == null && key == null) {
+          return Collections.emptySet();
+        }
+      }
       return (token != null)
           ? tokenMap.getReplicas(keyspace, token)
           : tokenMap.getReplicas(keyspace, key);
@@ -243,6 +320,38 @@ public class DefaultLoadBalancingPolicy implements LoadBalancingPolicy {
     }
   }
 
+  /**
+   * Sorts the first {@code replicaCount} nodes by increasing load, with a stable insertion sort
+   * (the number of replicas is small, and this doesn't allocate).
+   *
+   * <p>The loads are read from the pools without synchronization, and might change while we sort;
+   * this is only a best-effort ordering.
+   */
+  @VisibleForTesting
+  static void sortByLoad(Object[] currentNodes, int replicaCount, Map<Node, ChannelPool> pools) {
+    for (int i = 1; i < replicaCount; i++) {
+      Object node = currentNodes[i];
+      int load = getLoad((Node) node, pools);
+      int j = i - 1;
+      while (j >= 0 && getLoad((Node) currentNodes[j], pools) > load) {
+        currentNodes[j + 1] = currentNodes[j];
+        j -= 1;
+      }
+      currentNodes[j + 1] = node;
+    }
+  }
+
+  private static int getLoad(Node node, Map<Node, ChannelPool> pools) {
+    ChannelPool pool = pools.get(node);
+    if (pool == null) {
+      // No pool yet (or anymore), the request handler will skip this node anyway
+      return Integer.MAX_VALUE;
+    }
+    // getInFlight() already includes the orphaned ids, add them again to penalize nodes that are
+    // failing to reply
+    return pool.getInFlight() + pool.getOrphanedIds();
+  }
+
   @VisibleForTesting
   protected void shuffleHead(Object[] currentNodes, int replicaCount) {
     ArrayUtils.shuffleHead(currentNodes, replicaCount);
@@ -268,6 +377,7 @@ public class DefaultLoadBalancingPolicy implements LoadBalancingPolicy {
       distanceReporter.setDistance(node, NodeDistance.LOCAL);
       if (localDcLiveNodes.add(node)) {
         LOG.debug("[{}] {} came back UP, added to live set", logPrefix, node);
+        refreshLiveNodes();
       }
     } else {
       distanceReporter.setDistance(node, NodeDistance.IGNORED);
@@ -278,6 +388,7 @@ public class DefaultLoadBalancingPolicy implements LoadBalancingPolicy {
   public void onDown(@NonNull Node node) {
     if (localDcLiveNodes.remove(node)) {
       LOG.debug("[{}] {} went DOWN, removed from live set", logPrefix, node);
+      refreshLiveNodes();
     }
   }
 
@@ -285,9 +396,15 @@ public class DefaultLoadBalancingPolicy implements LoadBalancingPolicy {
   public void onRemove(@NonNull Node node) {
     if (localDcLiveNodes.remove(node)) {
       LOG.debug("[{}] {} was removed, removed from live set", logPrefix, node);
+      refreshLiveNodes();
     }
   }
 
+  // Synchronized so that concurrent updates can't publish their snapshots out of order
+  private synchronized void refreshLiveNodes() {
+    liveNodes = new LiveNodes(localDcLiveNodes.toArray());
+  }
+
   @Override
   public void close() {
     // nothing to do
@@ -322,4 +439,59 @@ public class DefaultLoadBalancingPolicy implements LoadBalancingPolicy {
                     Predicate.class)
                 .orElse(INCLUDE_ALL_NODES);
   }
+
+  /**
+   * An immutable snapshot of the live nodes in the local DC.
+   *
+   * <p>It also caches, for each replica set returned by the token map, the replicas that are in the
+   * snapshot (in snapshot order). There are as many distinct replica sets as token ranges at most,
+   * so the cache stays small; it is discarded with the snapshot when the live nodes change.
+   */
+  @ThreadSafe
+  private static class LiveNodes {
+
+    private static final Object[] NO_NODES = new Object[0];
+    private static final LiveNodes EMPTY = new LiveNodes(NO_NODES);
+
+    private final Object[] nodes;
+    // Keyed by the sets returned by the token map, which are immutable
+    private final ConcurrentMap<Set<Node>, Object[]> localReplicas = new ConcurrentHashMap<>();
+
+    private LiveNodes(Object[] nodes) {
+      this.nodes = nodes;
+    }
+
+    private Object[] getLocalReplicas(Set<Node> allReplicas) {
+      if (allReplicas.isEmpty()) {
+        return NO_NODES;
+      }
+      Object[] result = localReplicas.get(allReplicas);
+      if (result == null) {
+        result = computeLocalReplicas(allReplicas);
+        // No need for atomicity, concurrent callers would compute the same result
+        localReplicas.put(allReplicas, result);
+      }
+      return result;
+    }
+
+    private Object[] computeLocalReplicas(Set<Node> allReplicas) {
+      int count = 0;
+      for (Object node : nodes) {
+        if (allReplicas.contains(node)) {
+          count += 1;
+        }
+      }
+      if (count == 0) {
+        return NO_NODES;
+      }
+      Object[] result = new Object[count];
+      int i = 0;
+      for (Object node : nodes) {
+        if (allReplicas.contains(node)) {
+          result[i++] = node;
+        }
+      }
+      return result;
+    }
+  }
 }
@@ -0,0 +1,279 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.loadbalancing;
+
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.servererrors.BootstrappingException;
+import com.datastax.oss.driver.api.core.servererrors.OverloadedException;
+import com.datastax.oss.driver.api.core.servererrors.QueryValidationException;
+import com.datastax.oss.driver.api.core.servererrors.UnavailableException;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.api.core.tracker.RequestTracker;
+import com.datastax.oss.driver.internal.core.util.ArrayUtils;
+import com.datastax.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A variant of the default load balancing policy that avoids slow nodes.
+ *
+ * <p>The policy collects the latency of the requests to each node, and maintains an
+ * exponentially-weighted moving average per node. Query plans are computed like in the parent
+ * class, then the nodes whose average exceeds the fastest average by a configurable factor are
+ * moved to the end of the plan (preserving the relative order of the other nodes, so that
+ * non-excluded replicas still come first). A node is excluded until its average improves, or until
+ * its last measurement is older than the retry period: at that point it is included again, so that
+ * it can prove that it recovered.
+ *
+ * <p>To activate this policy, modify the {@code basic.load-balancing-policy} section in the driver
+ * configuration, for example:
+ *
+ * <pre>
+ * datastax-java-driver {
+ *   basic.load-balancing-policy {
+ *     class = LatencyAwareLoadBalancingPolicy
+ *     local-datacenter = datacenter1
+ *     latency-awareness {
+ *       exclusion-threshold = 2.0
+ *       scale = 100 milliseconds
+ *       retry-period = 10 seconds
+ *       update-rate = 100 milliseconds
+ *       min-measures = 50
+ *     }
+ *   }
+ * }
+ * </pre>
+ *
+ * See {@code reference.conf} (in the manual or core driver JAR) for more details.
+ *
+ * <p>The latencies are collected through the {@link RequestTracker} interface: the driver
+ * automatically registers load balancing policies that implement it, in addition to the tracker
+ * defined in the configuration. The latencies of all requests are taken into account, regardless of
+ * their execution profile. Errors that don't reflect the node's responsiveness (for example an
+ * invalid query or an unavailable replica) are ignored.
+ */
+@ThreadSafe
+public class LatencyAwareLoadBalancingPolicy extends DefaultLoadBalancingPolicy
+    implements RequestTracker {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LatencyAwareLoadBalancingPolicy.class);
+
+  private final String logPrefix;
+  private final double exclusionThreshold;
+  private final long scaleNanos;
+  private final long retryPeriodNanos;
+  private final long updateRateNanos;
+  private final int minMeasures;
+
+  private final ConcurrentMap<Node, NodeLatencyTracker> latencies = new ConcurrentHashMap<>();
+  private final AtomicLong nextUpdateNanos = new AtomicLong(System.nanoTime());
+  // The average of the fastest node, or -1 if no node has enough measurements
+  private volatile long minAverageNanos = -1;
+
+  public LatencyAwareLoadBalancingPolicy(
+      @NonNull DriverContext context, @NonNull String profileName) {
+    super(context, profileName);
+    this.logPrefix = context.getSessionName() + "|" + profileName;
+    DriverExecutionProfile config = context.getConfig().getProfile(profileName);
+    this.exclusionThreshold =
+        config.getDouble(DefaultDriverOption.LOAD_BALANCING_LATENCY_EXCLUSION_THRESHOLD, 2.0);
+    if (exclusionThreshold < 1) {
+      throw new IllegalArgumentException("Exclusion threshold must be greater than or equal to 1");
+    }
+    this.scaleNanos =
+        config
+            .getDuration(DefaultDriverOption.LOAD_BALANCING_LATENCY_SCALE, Duration.ofMillis(100))
+            .toNanos();
+    if (scaleNanos <= 0) {
+      throw new IllegalArgumentException("Scale must be strictly positive");
+    }
+    this.retryPeriodNanos =
+        config
+            .getDuration(
+                DefaultDriverOption.LOAD_BALANCING_LATENCY_RETRY_PERIOD, Duration.ofSeconds(10))
+            .toNanos();
+    this.updateRateNanos =
+        config
+            .getDuration(
+                DefaultDriverOption.LOAD_BALANCING_LATENCY_UPDATE_RATE, Duration.ofMillis(100))
+            .toNanos();
+    this.minMeasures = config.getInt(DefaultDriverOption.LOAD_BALANCING_LATENCY_MIN_MEASURES, 50);
+  }
+
+  @Override
+  protected void reorderPlan(@NonNull Object[] currentNodes, int replicaCount) {
+    long now = System.nanoTime();
+    long minAverage = getMinAverage(now);
+    if (minAverage < 0) {
+      return;
+    }
+    long limit = (long) (minAverage * exclusionThreshold);
+    // Move the nodes that are not excluded to the front, preserving their order
+    int includedCount = 0;
+    for (int i = 0; i < currentNodes.length; i++) {
+      if (!isExcluded((Node) currentNodes[i], limit, now)) {
+        ArrayUtils.bubbleUp(currentNodes, i, includedCount);
+        includedCount += 1;
+      }
+    }
+    if (includedCount < currentNodes.length) {
+      LOG.trace(
+          "[{}] Moved {} slow nodes to the end of the query plan",
+          logPrefix,
+          currentNodes.length - includedCount);
+    }
+  }
+
+  private boolean isExcluded(Node node, long limit, long now) {
+    NodeLatencyTracker tracker = latencies.get(node);
+    if (tracker == null) {
+      return false;
+    }
+    TimestampedAverage average = tracker.current.get();
+    return average != null
+        && average.average >= 0
+        && now - average.timestamp <= retryPeriodNanos
+        && average.average > limit;
+  }
+
+  private long getMinAverage(long now) {
+    long next = nextUpdateNanos.get();
+    if (now - next >= 0 && nextUpdateNanos.compareAndSet(next, now + updateRateNanos)) {
+      long min = -1;
+      for (NodeLatencyTracker tracker : latencies.values()) {
+        TimestampedAverage average = tracker.current.get();
+        if (average != null
+            && average.average >= 0
+            && now - average.timestamp <= retryPeriodNanos
+            && (min < 0 || average.average < min)) {
+          min = average.average;
+        }
+      }
+      minAverageNanos = min;
+    }
+    return minAverageNanos;
+  }
+
+  @Override
+  public void onNodeSuccess(
+      @NonNull Request request,
+      long latencyNanos,
+      @NonNull DriverExecutionProfile executionProfile,
+      @NonNull Node node) {
+    getTracker(node).add(latencyNanos);
+  }
+
+  @Override
+  public void onNodeError(
+      @NonNull Request request,
+      @NonNull Throwable error,
+      long latencyNanos,
+      @NonNull DriverExecutionProfile executionProfile,
+      @NonNull Node node) {
+    if (!(error instanceof UnavailableException
+        || error instanceof OverloadedException
+        || error instanceof BootstrappingException
+        || error instanceof QueryValidationException)) {
+      getTracker(node).add(latencyNanos);
+    }
+  }
+
+  private NodeLatencyTracker getTracker(Node node) {
+    NodeLatencyTracker tracker = latencies.get(node);
+    if (tracker == null) {
+      tracker = latencies.computeIfAbsent(node, n -> new NodeLatencyTracker());
+    }
+    return tracker;
+  }
+
+  @Override
+  public void onDown(@NonNull Node node) {
+    super.onDown(node);
+    latencies.remove(node);
+  }
+
+  @Override
+  public void onRemove(@NonNull Node node) {
+    super.onRemove(node);
+    latencies.remove(node);
+  }
+
+  @VisibleForTesting
+  long getAverageNanos(Node node) {
+    NodeLatencyTracker tracker = latencies.get(node);
+    TimestampedAverage average = (tracker == null) ? null : tracker.current.get();
+    return (average == null) ? -1 : average.average;
+  }
+
+  private class NodeLatencyTracker {
+
+    private final AtomicReference<TimestampedAverage> current = new AtomicReference<>();
+
+    private void add(long latencyNanos) {
+      TimestampedAverage previous, next;
+      do {
+        previous = current.get();
+        next = computeNextAverage(previous, latencyNanos, System.nanoTime());
+      } while (next != null && !current.compareAndSet(previous, next));
+    }
+
+    private TimestampedAverage computeNextAverage(
+        TimestampedAverage previous, long latencyNanos, long now) {
+      long measures = (previous == null) ? 1 : previous.measures + 1;
+      if (measures < minMeasures) {
+        return new TimestampedAverage(now, -1, measures);
+      }
+      if (previous == null || previous.average < 0) {
+        return new TimestampedAverage(now, latencyNanos, measures);
+      }
+      long delay = now - previous.timestamp;
+      if (delay <= 0) {
+        // Two measurements at the same instant, ignore this one
+        return null;
+      }
+      // The weight of the previous average decreases as the time since the last measurement grows
+      double scaledDelay = ((double) delay) / scaleNanos;
+      double previousWeight = Math.log(scaledDelay + 1) / scaledDelay;
+      long average =
+          (long) ((1.0 - previousWeight) * latencyNanos + previousWeight * previous.average);
+      return new TimestampedAverage(now, average, measures);
+    }
+  }
+
+  @Immutable
+  private static class TimestampedAverage {
+    private final long timestamp;
+    private final long average;
+    private final long measures;
+
+    private TimestampedAverage(long timestamp, long average, long measures) {
+      this.timestamp = timestamp;
+      this.average = average;
+      this.measures = measures;
+    }
+  }
+}
@@ -22,6 +22,7 @@ import com.datastax.oss.driver.internal.core.util.NanoTime;
 import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableSetMultimap;
 import com.datastax.oss.driver.shaded.guava.common.collect.SetMultimap;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -82,6 +83,11 @@ class KeyspaceTokenMap {
   private final SetMultimap<Token, Node> replicasByToken;
   private final TokenFactory tokenFactory;
 
+  // For the Murmur3 partitioner (by far the most common), a primitive version of the ring, and the
+  // replicas of each token in a parallel array, so that lookups don't need to allocate or unbox
+  private final long[] murmur3Ring;
+  private final Set<Node>[] murmur3Replicas;
+
   private KeyspaceTokenMap(
       List<Token> ring,
       SetMultimap<Node, TokenRange> tokenRangesByNode,
@@ -91,6 +97,20 @@ class KeyspaceTokenMap {
     this.tokenRangesByNode = tokenRangesByNode;
     this.replicasByToken = replicasByToken;
     this.tokenFactory = tokenFactory;
+    if (tokenFactory instanceof Murmur3TokenFactory) {
+      this.murmur3Ring = new long[ring.size()];
+      @SuppressWarnings({"unchecked", "rawtypes"})
+      Set<Node>[] replicas = new Set[ring.size()];
+      for (int i = 0; i < ring.size(); i++) {
+        Token token = ring.get(i);
+        murmur3Ring[i] = ((Murmur3Token) token).getValue();
+        replicas[i] = replicasByToken.get(token);
+      }
+      this.murmur3Replicas = replicas;
+    } else {
+      this.murmur3Ring = null;
+      this.murmur3Replicas = null;
+    }
   }
 
   Set<TokenRange> getTokenRanges(Node replica) {
@@ -98,10 +118,15 @@ class KeyspaceTokenMap {
   }
 
   Set<Node> getReplicas(ByteBuffer partitionKey) {
-    return getReplicas(tokenFactory.hash(partitionKey));
+    return (murmur3Ring != null)
+        ? getMurmur3Replicas(((Murmur3TokenFactory) tokenFactory).hashToLong(partitionKey))
+        : getReplicas(tokenFactory.hash(partitionKey));
   }
 
   Set<Node> getReplicas(Token token) {
+    if (murmur3Ring != null && token instanceof Murmur3Token) {
+      return getMurmur3Replicas(((Murmur3Token) token).getValue());
+    }
     // If the token happens to be one of the "primary" tokens, get result directly
     Set<Node> nodes = replicasByToken.get(token);
     if (!nodes.isEmpty()) {
@@ -118,6 +143,21 @@ class KeyspaceTokenMap {
     return replicasByToken.get(ring.get(i));
   }
 
+  private Set<Node> getMurmur3Replicas(long token) {
+    if (murmur3Ring.length == 0) {
+      return Collections.emptySet();
+    }
+    // Same logic as above: either the token is on the ring, or we find the closest one after it
+    int i = Arrays.binarySearch(murmur3Ring, token);
+    if (i < 0) {
+      i = -i - 1;
+      if (i >= murmur3Ring.length) {
+        i = 0;
+      }
+    }
+    return murmur3Replicas[i];
+  }
+
   private static SetMultimap<Node, TokenRange> buildTokenRangesByNode(
       Set<TokenRange> tokenRanges, SetMultimap<Token, Node> replicasByToken) {
     ImmutableSetMultimap.Builder<Node, TokenRange> result = ImmutableSetMultimap.builder();
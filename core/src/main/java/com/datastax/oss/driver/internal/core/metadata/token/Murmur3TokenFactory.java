@@ -29,6 +29,13 @@ public class Murmur3TokenFactory implements TokenFactory {
   public static final Murmur3Token MIN_TOKEN = new Murmur3Token(Long.MIN_VALUE);
   public static final Murmur3Token MAX_TOKEN = new Murmur3Token(Long.MAX_VALUE);
 
+  // Composite keys larger than this are hashed from a one-off buffer, so that threads don't retain
+  // large scratch buffers
+  private static final int MAX_SCRATCH_SIZE = 1024;
+
+  private static final ThreadLocal<ByteBuffer> scratchBuffer =
+      ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAX_SCRATCH_SIZE));
+
   @Override
   public String getPartitionerName() {
     return PARTITIONER_NAME;
@@ -36,8 +43,58 @@ public class Murmur3TokenFactory implements TokenFactory {
 
   @Override
   public Token hash(ByteBuffer partitionKey) {
+    return new Murmur3Token(hashToLong(partitionKey));
+  }
+
+  /**
+   * Same as {@link #hash(ByteBuffer)}, but returns the raw value of the token, to avoid allocating
+   * a {@link Murmur3Token} instance.
+   */
+  public long hashToLong(ByteBuffer partitionKey) {
     long v = murmur(partitionKey);
-    return new Murmur3Token(v == Long.MIN_VALUE ? Long.MAX_VALUE : v);
+    return v == Long.MIN_VALUE ? Long.MAX_VALUE : v;
+  }
+
+  /**
+   * Hashes a composite partition key, given its components.
+   *
+   * <p>This produces the same token as {@code hash(RoutingKey.compose(components))}, but the
+   * composite key is assembled in a reusable per-thread buffer instead of a new one.
+   */
+  public Token hashComposite(ByteBuffer... components) {
+    if (components.length == 1) {
+      return hash(components[0]);
+    }
+    int length = 0;
+    for (ByteBuffer component : components) {
+      length += 2 + component.remaining() + 1;
+    }
+    ByteBuffer buffer;
+    if (length > MAX_SCRATCH_SIZE) {
+      buffer = ByteBuffer.allocate(length);
+    } else {
+      buffer = scratchBuffer.get();
+      buffer.clear();
+    }
+    // Same format as RoutingKey.compose
+    for (ByteBuffer component : components) {
+      int componentLength = component.remaining();
+      buffer.put((byte) ((componentLength >> 8) & 0xFF));
+      buffer.put((byte) (componentLength & 0xFF));
+      // Don't use put(ByteBuffer): it would change the component's position, or force us to
+      // allocate a duplicate
+      if (component.hasArray()) {
+        buffer.put(
+            component.array(), component.arrayOffset() + component.position(), componentLength);
+      } else {
+        for (int i = component.position(); i < component.limit(); i++) {
+          buffer.put(component.get(i));
+        }
+      }
+      buffer.put((byte) 0);
+    }
+    buffer.flip();
+    return hash(buffer);
   }
 
   @Override
@@ -55,6 +55,11 @@ public class DropwizardNodeMetricUpdater extends DropwizardMetricUpdater<NodeMet
     initializePoolGauge(DefaultNodeMetric.IN_FLIGHT, node, ChannelPool::getInFlight, context);
     initializePoolGauge(
         DefaultNodeMetric.ORPHANED_STREAMS, node, ChannelPool::getOrphanedIds, context);
+    initializePoolGauge(
+        DefaultNodeMetric.PENDING_OUTBOUND_BYTES,
+        node,
+        ChannelPool::getPendingOutboundBytes,
+        context);
     initializeHdrTimer(
         DefaultNodeMetric.CQL_MESSAGES,
         config,
@@ -96,12 +101,12 @@ public class DropwizardNodeMetricUpdater extends DropwizardMetricUpdater<NodeMet
   private void initializePoolGauge(
       NodeMetric metric,
       Node node,
-      Function<ChannelPool, Integer> reading,
+      Function<ChannelPool, ? extends Number> reading,
       InternalDriverContext context) {
     if (enabledMetrics.contains(metric)) {
       registry.register(
           buildFullName(metric, null),
-          (Gauge<Integer>)
+          (Gauge<Number>)
               () -> {
                 ChannelPool pool = context.getPoolManager().getPools().get(node);
                 return (pool == null) ? 0 : reading.apply(pool);
@@ -26,11 +26,21 @@ import com.datastax.oss.driver.internal.core.context.InternalDriverContext;
 import com.datastax.oss.driver.internal.core.cql.CqlPrepareAsyncProcessor;
 import com.datastax.oss.driver.internal.core.cql.CqlPrepareSyncProcessor;
 import com.datastax.oss.driver.internal.core.session.RequestProcessor;
+import com.datastax.oss.driver.internal.core.session.throttling.AdaptiveConcurrencyLimitingRequestThrottler;
 import com.datastax.oss.driver.internal.core.session.throttling.ConcurrencyLimitingRequestThrottler;
+import com.datastax.oss.driver.internal.core.session.throttling.LockFreeConcurrencyLimitingRequestThrottler;
 import com.datastax.oss.driver.internal.core.session.throttling.RateLimitingRequestThrottler;
 import com.datastax.oss.driver.shaded.guava.common.cache.Cache;
 import edu.umd.cs.findbugs.annotations.Nullable;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufAllocatorMetric;
+import io.netty.buffer.ByteBufAllocatorMetricProvider;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocatorMetric;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 import net.jcip.annotations.ThreadSafe;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,6 +77,11 @@ public class DropwizardSessionMetricUpdater extends DropwizardMetricUpdater<Sess
           buildFullName(DefaultSessionMetric.THROTTLING_QUEUE_SIZE, null),
           () -> buildQueueGauge(context.getRequestThrottler(), context.getSessionName()));
     }
+    if (enabledMetrics.contains(DefaultSessionMetric.THROTTLING_CONCURRENCY_LIMIT)) {
+      this.registry.gauge(
+          buildFullName(DefaultSessionMetric.THROTTLING_CONCURRENCY_LIMIT, null),
+          () -> buildLimitGauge(context.getRequestThrottler(), context.getSessionName()));
+    }
     if (enabledMetrics.contains(DefaultSessionMetric.CQL_PREPARED_CACHE_SIZE)) {
       this.registry.gauge(
           buildFullName(DefaultSessionMetric.CQL_PREPARED_CACHE_SIZE, null),
@@ -101,6 +116,32 @@ public class DropwizardSessionMetricUpdater extends DropwizardMetricUpdater<Sess
         DefaultDriverOption.METRICS_SESSION_THROTTLING_DIGITS,
         DefaultDriverOption.METRICS_SESSION_THROTTLING_INTERVAL);
     initializeDefaultCounter(DefaultSessionMetric.THROTTLING_ERRORS, null);
+    initializeHdrTimer(
+        DefaultSessionMetric.COALESCER_FLUSH_LATENCY,
+        context.getConfig().getDefaultProfile(),
+        DefaultDriverOption.METRICS_SESSION_COALESCER_FLUSH_LATENCY_HIGHEST,
+        DefaultDriverOption.METRICS_SESSION_COALESCER_FLUSH_LATENCY_DIGITS,
+        DefaultDriverOption.METRICS_SESSION_COALESCER_FLUSH_LATENCY_INTERVAL);
+    initializeAllocatorGauge(
+        DefaultSessionMetric.ALLOCATOR_USED_DIRECT_MEMORY,
+        context,
+        ByteBufAllocatorMetricProvider.class,
+        ByteBufAllocatorMetric::usedDirectMemory);
+    initializeAllocatorGauge(
+        DefaultSessionMetric.ALLOCATOR_USED_HEAP_MEMORY,
+        context,
+        ByteBufAllocatorMetricProvider.class,
+        ByteBufAllocatorMetric::usedHeapMemory);
+    initializeAllocatorGauge(
+        DefaultSessionMetric.ALLOCATOR_ACTIVE_DIRECT_MEMORY,
+        context,
+        PooledByteBufAllocator.class,
+        metric -> sumActiveBytes(((PooledByteBufAllocatorMetric) metric).directArenas()));
+    initializeAllocatorGauge(
+        DefaultSessionMetric.ALLOCATOR_ACTIVE_HEAP_MEMORY,
+        context,
+        PooledByteBufAllocator.class,
+        metric -> sumActiveBytes(((PooledByteBufAllocatorMetric) metric).heapArenas()));
   }
 
   @Override
@@ -108,9 +149,47 @@ public class DropwizardSessionMetricUpdater extends DropwizardMetricUpdater<Sess
     return metricNamePrefix + metric.getPath();
   }
 
+  private void initializeAllocatorGauge(
+      SessionMetric metric,
+      InternalDriverContext context,
+      Class<?> supportedAllocatorType,
+      Function<ByteBufAllocatorMetric, Long> reading) {
+    if (enabledMetrics.contains(metric)) {
+      this.registry.gauge(
+          buildFullName(metric, null),
+          () -> {
+            ByteBufAllocator allocator = context.getNettyOptions().allocator();
+            if (supportedAllocatorType.isInstance(allocator)) {
+              ByteBufAllocatorMetric allocatorMetric =
+                  ((ByteBufAllocatorMetricProvider) allocator).metric();
+              return (Gauge<Long>) () -> reading.apply(allocatorMetric);
+            } else {
+              LOG.warn(
+                  "[{}] Metric {} does not support {}, it will always return 0",
+                  context.getSessionName(),
+                  metric.getPath(),
+                  allocator.getClass().getName());
+              return (Gauge<Long>) () -> 0L;
+            }
+          });
+    }
+  }
+
+  private static long sumActiveBytes(List<PoolArenaMetric> arenas) {
+    long activeBytes = 0;
+    for (PoolArenaMetric arena : arenas) {
+      activeBytes += arena.numActiveBytes();
+    }
+    return activeBytes;
+  }
+
   private Gauge<Integer> buildQueueGauge(RequestThrottler requestThrottler, String logPrefix) {
     if (requestThrottler instanceof ConcurrencyLimitingRequestThrottler) {
       return ((ConcurrencyLimitingRequestThrottler) requestThrottler)::getQueueSize;
+    } else if (requestThrottler instanceof AdaptiveConcurrencyLimitingRequestThrottler) {
+      return ((AdaptiveConcurrencyLimitingRequestThrottler) requestThrottler)::getQueueSize;
+    } else if (requestThrottler instanceof LockFreeConcurrencyLimitingRequestThrottler) {
+      return ((LockFreeConcurrencyLimitingRequestThrottler) requestThrottler)::getQueueSize;
     } else if (requestThrottler instanceof RateLimitingRequestThrottler) {
       return ((RateLimitingRequestThrottler) requestThrottler)::getQueueSize;
     } else {
@@ -123,6 +202,25 @@ public class DropwizardSessionMetricUpdater extends DropwizardMetricUpdater<Sess
     }
   }
 
+  private Gauge<Integer> buildLimitGauge(RequestThrottler requestThrottler, String logPrefix) {
+    if (requestThrottler instanceof AdaptiveConcurrencyLimitingRequestThrottler) {
+      return ((AdaptiveConcurrencyLimitingRequestThrottler) requestThrottler)::getLimit;
+    } else if (requestThrottler instanceof ConcurrencyLimitingRequestThrottler) {
+      return ((ConcurrencyLimitingRequestThrottler) requestThrottler)::getMaxConcurrentRequests;
+    } else if (requestThrottler instanceof LockFreeConcurrencyLimitingRequestThrottler) {
+      LockFreeConcurrencyLimitingRequestThrottler throttler =
+          (LockFreeConcurrencyLimitingRequestThrottler) requestThrottler;
+      return throttler::getMaxConcurrentRequests;
+    } else {
+      LOG.warn(
+          "[{}] Metric {} does not support {}, it will always return 0",
+          logPrefix,
+          DefaultSessionMetric.THROTTLING_CONCURRENCY_LIMIT.getPath(),
+          requestThrottler.getClass().getName());
+      return () -> 0;
+    }
+  }
+
   @Nullable
   private static Cache<?, ?> getPreparedStatementCache(InternalDriverContext context) {
     // By default, both the sync processor and the async one are registered and they share the same
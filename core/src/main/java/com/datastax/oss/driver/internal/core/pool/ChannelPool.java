@@ -22,6 +22,7 @@ import com.datastax.oss.driver.api.core.UnsupportedProtocolVersionException;
 import com.datastax.oss.driver.api.core.auth.AuthenticationException;
 import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
 import com.datastax.oss.driver.api.core.config.DriverConfig;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
 import com.datastax.oss.driver.api.core.connection.ReconnectionPolicy;
 import com.datastax.oss.driver.api.core.loadbalancing.NodeDistance;
 import com.datastax.oss.driver.api.core.metadata.Node;
@@ -37,6 +38,7 @@ import com.datastax.oss.driver.internal.core.context.InternalDriverContext;
 import com.datastax.oss.driver.internal.core.metadata.DefaultNode;
 import com.datastax.oss.driver.internal.core.metadata.TopologyEvent;
 import com.datastax.oss.driver.internal.core.util.Loggers;
+import com.datastax.oss.driver.internal.core.util.Reflection;
 import com.datastax.oss.driver.internal.core.util.concurrent.CompletableFutures;
 import com.datastax.oss.driver.internal.core.util.concurrent.Reconnection;
 import com.datastax.oss.driver.internal.core.util.concurrent.RunOrSchedule;
@@ -47,12 +49,14 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import net.jcip.annotations.ThreadSafe;
 import org.slf4j.Logger;
@@ -65,6 +69,10 @@ import org.slf4j.LoggerFactory;
  *
  * <p>If one or more channels go down, a reconnection process starts in order to replace them; it
  * runs until the channel count is back to its intended target.
+ *
+ * <p>If elastic sizing is enabled ({@code advanced.connection.pool.elastic}), the intended target
+ * varies between the configured size and a maximum, depending on the average number of in-flight
+ * requests per channel.
  */
 @ThreadSafe
 public class ChannelPool implements AsyncAutoCloseable {
@@ -89,7 +97,7 @@ public class ChannelPool implements AsyncAutoCloseable {
   }
 
   // This is read concurrently, but only mutated on adminExecutor (by methods in SingleThreaded)
-  @VisibleForTesting final ChannelSet channels = new ChannelSet();
+  @VisibleForTesting final ChannelSet channels;
 
   private final Node node;
   private final CqlIdentifier initialKeyspaceName;
@@ -110,9 +118,24 @@ public class ChannelPool implements AsyncAutoCloseable {
     this.adminExecutor = context.getNettyOptions().adminEventExecutorGroup().next();
     this.sessionLogPrefix = sessionLogPrefix;
     this.logPrefix = sessionLogPrefix + "|" + node.getEndPoint();
+    this.channels = new ChannelSet(buildChannelSelector(context));
     this.singleThreaded = new SingleThreaded(keyspaceName, distance, context);
   }
 
+  private static ChannelSelector buildChannelSelector(InternalDriverContext context) {
+    return Reflection.buildFromConfig(
+            context,
+            DefaultDriverOption.CONNECTION_POOL_CHANNEL_SELECTOR_CLASS,
+            ChannelSelector.class,
+            "com.datastax.oss.driver.internal.core.pool")
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException(
+                    String.format(
+                        "Missing channel selector, check your configuration (%s)",
+                        DefaultDriverOption.CONNECTION_POOL_CHANNEL_SELECTOR_CLASS)));
+  }
+
   private CompletionStage<ChannelPool> connect() {
     RunOrSchedule.on(adminExecutor, singleThreaded::connect);
     return singleThreaded.connectFuture;
@@ -176,6 +199,15 @@ public class ChannelPool implements AsyncAutoCloseable {
     return channels.getOrphanedIds();
   }
 
+  /**
+   * @return the number of bytes that have been written but not yet flushed on all channels in this
+   *     pool. A high value indicates that the node (or the network) is not keeping up with the
+   *     requests.
+   */
+  public long getPendingOutboundBytes() {
+    return channels.getPendingOutboundBytes();
+  }
+
   /**
    * Sets a new distance for the node this pool belongs to. This method returns immediately, the new
    * distance will be set asynchronously.
@@ -201,6 +233,15 @@ public class ChannelPool implements AsyncAutoCloseable {
     RunOrSchedule.on(adminExecutor, singleThreaded::reconnectNow);
   }
 
+  /**
+   * Checks the load of the pool, and grows or shrinks it if needed. This is only useful if elastic
+   * sizing is enabled, in which case it is invoked periodically.
+   */
+  @VisibleForTesting
+  void checkLoad() {
+    RunOrSchedule.on(adminExecutor, singleThreaded::checkLoad);
+  }
+
   @NonNull
   @Override
   public CompletionStage<Void> closeFuture() {
@@ -232,6 +273,8 @@ public class ChannelPool implements AsyncAutoCloseable {
     private final Set<DriverChannel> closingChannels = new HashSet<>();
     private final Reconnection reconnection;
     private final Object configListenerKey;
+    private final boolean elastic;
+    private final ScheduledFuture<?> loadCheck;
 
     private NodeDistance distance;
     private int wantedCount;
@@ -240,6 +283,9 @@ public class ChannelPool implements AsyncAutoCloseable {
     private final CompletableFuture<Void> closeFuture = new CompletableFuture<>();
     private boolean isClosing;
     private CompletableFuture<Void> setKeyspaceFuture;
+    // Elastic sizing: when the usage of the pool dropped below the low water mark (or 0 if it's
+    // not)
+    private long lowUsageStartNanos;
 
     private CqlIdentifier keyspaceName;
 
@@ -263,6 +309,19 @@ public class ChannelPool implements AsyncAutoCloseable {
       this.configListenerKey =
           eventBus.register(
               ConfigChangeEvent.class, RunOrSchedule.on(adminExecutor, this::onConfigChanged));
+      DriverExecutionProfile defaultProfile = config.getDefaultProfile();
+      this.elastic = defaultProfile.getBoolean(DefaultDriverOption.CONNECTION_POOL_ELASTIC_ENABLED);
+      if (elastic) {
+        long intervalNanos =
+            defaultProfile
+                .getDuration(DefaultDriverOption.CONNECTION_POOL_ELASTIC_CHECK_INTERVAL)
+                .toNanos();
+        this.loadCheck =
+            adminExecutor.scheduleAtFixedRate(
+                this::checkLoad, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+      } else {
+        this.loadCheck = null;
+      }
     }
 
     private void connect() {
@@ -431,8 +490,12 @@ public class ChannelPool implements AsyncAutoCloseable {
 
     private void resize(NodeDistance newDistance) {
       assert adminExecutor.inEventLoop();
-      distance = newDistance;
       int newChannelCount = getConfiguredSize(newDistance);
+      if (elastic && newDistance == distance) {
+        // Just a configuration change: keep the current elastic size if it's still within bounds
+        newChannelCount = Math.max(newChannelCount, Math.min(wantedCount, getMaxSize(newDistance)));
+      }
+      distance = newDistance;
       if (newChannelCount > wantedCount) {
         LOG.debug("[{}] Growing ({} => {} channels)", logPrefix, wantedCount, newChannelCount);
         wantedCount = newChannelCount;
@@ -466,6 +529,55 @@ public class ChannelPool implements AsyncAutoCloseable {
       }
     }
 
+    private void checkLoad() {
+      assert adminExecutor.inEventLoop();
+      int size = channels.size();
+      // Don't interfere with an ongoing reconnection, the usage is not representative
+      if (!elastic || isClosing || size == 0 || reconnection.isRunning()) {
+        return;
+      }
+      DriverExecutionProfile defaultProfile = config.getDefaultProfile();
+      int maxRequests = defaultProfile.getInt(DefaultDriverOption.CONNECTION_MAX_REQUESTS);
+      double usage = (double) channels.getInFlight() / ((long) size * maxRequests);
+
+      if (usage
+              >= defaultProfile.getDouble(
+                  DefaultDriverOption.CONNECTION_POOL_ELASTIC_HIGH_WATER_MARK)
+          && wantedCount < getMaxSize(distance)) {
+        lowUsageStartNanos = 0;
+        LOG.debug(
+            "[{}] Usage is {}%, growing ({} => {} channels)",
+            logPrefix, (int) (usage * 100), wantedCount, wantedCount + 1);
+        wantedCount += 1;
+        // Don't wait for the reconnection delay, we need the new channel now
+        reconnection.start();
+        reconnection.reconnectNow(false);
+      } else if (usage
+              <= defaultProfile.getDouble(
+                  DefaultDriverOption.CONNECTION_POOL_ELASTIC_LOW_WATER_MARK)
+          && wantedCount > getConfiguredSize(distance)) {
+        long now = System.nanoTime();
+        if (lowUsageStartNanos == 0) {
+          lowUsageStartNanos = now;
+        }
+        long shrinkDelayNanos =
+            defaultProfile
+                .getDuration(DefaultDriverOption.CONNECTION_POOL_ELASTIC_SHRINK_DELAY)
+                .toNanos();
+        if (now - lowUsageStartNanos >= shrinkDelayNanos) {
+          // Shrink one channel at a time, and wait for another delay before the next one
+          lowUsageStartNanos = now;
+          LOG.debug(
+              "[{}] Usage is {}%, shrinking ({} => {} channels)",
+              logPrefix, (int) (usage * 100), wantedCount, wantedCount - 1);
+          wantedCount -= 1;
+          shrinkIfTooManyChannels();
+        }
+      } else {
+        lowUsageStartNanos = 0;
+      }
+    }
+
     private void onConfigChanged(@SuppressWarnings("unused") ConfigChangeEvent event) {
       assert adminExecutor.inEventLoop();
       // resize re-reads the pool size from the configuration and does nothing if it hasn't changed,
@@ -530,6 +642,9 @@ public class ChannelPool implements AsyncAutoCloseable {
       // If an attempt was in progress right now, it might open new channels but they will be
       // handled in onAllConnected
       reconnection.stop();
+      if (loadCheck != null) {
+        loadCheck.cancel(false);
+      }
 
       eventBus.unregister(configListenerKey, ConfigChangeEvent.class);
 
@@ -580,5 +695,14 @@ public class ChannelPool implements AsyncAutoCloseable {
                   ? DefaultDriverOption.CONNECTION_POOL_LOCAL_SIZE
                   : DefaultDriverOption.CONNECTION_POOL_REMOTE_SIZE);
     }
+
+    private int getMaxSize(NodeDistance distance) {
+      return config
+          .getDefaultProfile()
+          .getInt(
+              (distance == NodeDistance.LOCAL)
+                  ? DefaultDriverOption.CONNECTION_POOL_ELASTIC_LOCAL_MAX_SIZE
+                  : DefaultDriverOption.CONNECTION_POOL_ELASTIC_REMOTE_MAX_SIZE);
+    }
   }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.pool;
+
+import com.datastax.oss.driver.internal.core.channel.DriverChannel;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+/**
+ * Chooses which connection of a pool a request will be written to.
+ *
+ * <p>The implementation is configured with {@code advanced.connection.pool.channel-selector.class}.
+ * A new instance is created for each pool (so it can hold per-pool state, such as a round-robin
+ * index), through a public constructor that takes a {@link
+ * com.datastax.oss.driver.api.core.context.DriverContext} argument.
+ *
+ * <p>This is invoked on the hot path, concurrently from any thread that executes requests.
+ * Implementations must be thread-safe, and as cheap as possible.
+ */
+public interface ChannelSelector {
+
+  /**
+   * Chooses a channel.
+   *
+   * <p>This is only invoked when the pool has at least two channels (with a single channel, the
+   * pool returns it directly).
+   *
+   * @param channels a snapshot of the current channels in the pool. It must not be modified.
+   * @return the chosen channel, or null if all the channels are full (no available stream ids).
+   */
+  @Nullable
+  DriverChannel select(@NonNull DriverChannel[] channels);
+}
@@ -16,6 +16,7 @@
 package com.datastax.oss.driver.internal.core.pool;
 
 import com.datastax.oss.driver.internal.core.channel.DriverChannel;
+import com.datastax.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
 import com.datastax.oss.driver.shaded.guava.common.base.Preconditions;
 import com.datastax.oss.driver.shaded.guava.common.collect.Iterators;
 import edu.umd.cs.findbugs.annotations.NonNull;
@@ -34,9 +35,16 @@ import net.jcip.annotations.ThreadSafe;
 class ChannelSet implements Iterable<DriverChannel> {
   private volatile DriverChannel[] channels;
   private final ReentrantLock lock = new ReentrantLock(); // must be held when mutating the array
+  private final ChannelSelector selector;
 
-  ChannelSet() {
+  ChannelSet(ChannelSelector selector) {
     this.channels = new DriverChannel[] {};
+    this.selector = selector;
+  }
+
+  @VisibleForTesting
+  ChannelSet() {
+    this(new DefaultChannelSelector(null));
   }
 
   void add(DriverChannel toAdd) {
@@ -76,7 +84,10 @@ class ChannelSet implements Iterable<DriverChannel> {
     }
   }
 
-  /** @return null if the set is empty or all are full */
+  /**
+   * @return null if the set is empty or all are full
+   * @see ChannelSelector
+   */
   DriverChannel next() {
     DriverChannel[] snapshot = this.channels;
     switch (snapshot.length) {
@@ -85,16 +96,7 @@ class ChannelSet implements Iterable<DriverChannel> {
       case 1:
         return snapshot[0];
       default:
-        DriverChannel best = null;
-        int bestScore = 0;
-        for (DriverChannel channel : snapshot) {
-          int score = channel.getAvailableIds();
-          if (score > bestScore) {
-            bestScore = score;
-            best = channel;
-          }
-        }
-        return best;
+        return selector.select(snapshot);
     }
   }
 
@@ -135,6 +137,19 @@ class ChannelSet implements Iterable<DriverChannel> {
     return orphanedIds;
   }
 
+  /**
+   * @return the number of bytes that have been written but not yet flushed on all channels in this
+   *     channel set.
+   */
+  long getPendingOutboundBytes() {
+    long pendingOutboundBytes = 0;
+    DriverChannel[] snapshot = this.channels;
+    for (DriverChannel channel : snapshot) {
+      pendingOutboundBytes += channel.getPendingOutboundBytes();
+    }
+    return pendingOutboundBytes;
+  }
+
   int size() {
     return this.channels.length;
   }
@@ -0,0 +1,65 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.pool;
+
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.internal.core.channel.DriverChannel;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * The default channel selector: scans all the channels, and returns the one that has the most
+ * available stream ids.
+ *
+ * <p>{@link DriverChannel#isWritable() Writable} channels take precedence: a non-writable channel
+ * is only returned if all the others are either non-writable or full.
+ *
+ * <p>This gives the best distribution, but reads the state of every channel for every request. With
+ * large pools, consider {@link PowerOfTwoChoicesChannelSelector} or {@link
+ * RoundRobinChannelSelector}.
+ */
+@ThreadSafe
+public class DefaultChannelSelector implements ChannelSelector {
+
+  public DefaultChannelSelector(@SuppressWarnings("unused") DriverContext context) {
+    // nothing to do
+  }
+
+  @Nullable
+  @Override
+  public DriverChannel select(@NonNull DriverChannel[] channels) {
+    return mostAvailable(channels);
+  }
+
+  static DriverChannel mostAvailable(DriverChannel[] channels) {
+    DriverChannel best = null;
+    int bestScore = 0;
+    boolean bestWritable = false;
+    for (DriverChannel channel : channels) {
+      int score = channel.getAvailableIds();
+      if (score > 0) {
+        boolean writable = channel.isWritable();
+        if ((writable && !bestWritable) || (writable == bestWritable && score > bestScore)) {
+          bestScore = score;
+          best = channel;
+          bestWritable = writable;
+        }
+      }
+    }
+    return best;
+  }
+}
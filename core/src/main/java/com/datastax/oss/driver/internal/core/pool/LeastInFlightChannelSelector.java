@@ -0,0 +1,79 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.pool;
+
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.internal.core.channel.DriverChannel;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A channel selector that scans all the channels, and returns the one where a new request is
+ * expected to complete the soonest: the number of in-flight requests, weighted by the {@link
+ * DriverChannel#getLatencyNanos() average response time} of the channel.
+ *
+ * <p>All the connections of a pool go to the same node, but their latencies can still differ, for
+ * example if one of them is stuck behind large responses. Channels that don't have a latency
+ * estimate yet (because they haven't received any response) are assumed to be as fast as the
+ * fastest known channel.
+ *
+ * <p>Like {@link DefaultChannelSelector}, writable channels are preferred over non-writable ones,
+ * and full channels are never returned.
+ */
+@ThreadSafe
+public class LeastInFlightChannelSelector implements ChannelSelector {
+
+  public LeastInFlightChannelSelector(@SuppressWarnings("unused") DriverContext context) {
+    // nothing to do
+  }
+
+  @Nullable
+  @Override
+  public DriverChannel select(@NonNull DriverChannel[] channels) {
+    long defaultLatency = Long.MAX_VALUE;
+    for (DriverChannel channel : channels) {
+      long latency = channel.getLatencyNanos();
+      if (latency > 0 && latency < defaultLatency) {
+        defaultLatency = latency;
+      }
+    }
+    if (defaultLatency == Long.MAX_VALUE) {
+      // No estimate at all, compare the in-flight counts only
+      defaultLatency = 1;
+    }
+
+    DriverChannel best = null;
+    long bestCost = Long.MAX_VALUE;
+    boolean bestWritable = false;
+    for (DriverChannel channel : channels) {
+      if (channel.getAvailableIds() > 0) {
+        boolean writable = channel.isWritable();
+        if (writable || !bestWritable) {
+          long latency = channel.getLatencyNanos();
+          // +1 to account for the new request, so that latency matters even on idle channels
+          long cost = (channel.getInFlight() + 1) * (latency > 0 ? latency : defaultLatency);
+          if ((writable && !bestWritable) || cost < bestCost) {
+            best = channel;
+            bestCost = cost;
+            bestWritable = writable;
+          }
+        }
+      }
+    }
+    return best;
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.pool;
+
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.internal.core.channel.DriverChannel;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.concurrent.ThreadLocalRandom;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A channel selector that picks two channels at random, and returns the least loaded of the two
+ * ({@link DriverChannel#isWritable() writable} first, then most available stream ids).
+ *
+ * <p>This only inspects two channels per request, regardless of the pool size, and shares no
+ * mutable state between threads. Yet it avoids the worst connections almost as well as a full scan.
+ *
+ * <p>If both candidates are full, it falls back to a full scan.
+ */
+@ThreadSafe
+public class PowerOfTwoChoicesChannelSelector implements ChannelSelector {
+
+  public PowerOfTwoChoicesChannelSelector(@SuppressWarnings("unused") DriverContext context) {
+    // nothing to do
+  }
+
+  @Nullable
+  @Override
+  public DriverChannel select(@NonNull DriverChannel[] channels) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int length = channels.length;
+    int i1 = random.nextInt(length);
+    int i2 = random.nextInt(length - 1);
+    if (i2 >= i1) {
+      i2 += 1;
+    }
+    DriverChannel channel1 = channels[i1];
+    DriverChannel channel2 = channels[i2];
+    int score1 = channel1.getAvailableIds();
+    int score2 = channel2.getAvailableIds();
+    if (score1 <= 0 && score2 <= 0) {
+      return DefaultChannelSelector.mostAvailable(channels);
+    } else if (score1 <= 0) {
+      return channel2;
+    } else if (score2 <= 0) {
+      return channel1;
+    }
+    boolean writable1 = channel1.isWritable();
+    boolean writable2 = channel2.isWritable();
+    if (writable1 != writable2) {
+      return writable1 ? channel1 : channel2;
+    } else {
+      return (score1 >= score2) ? channel1 : channel2;
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.pool;
+
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.internal.core.channel.DriverChannel;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A channel selector that cycles through the channels of the pool.
+ *
+ * <p>Each request starts at the next position, and takes the first channel that is {@link
+ * DriverChannel#isWritable() writable} and not full. In the nominal case, only one channel is
+ * inspected per request. If no channel is writable, the first non-full one is returned.
+ *
+ * <p>This is fair in terms of number of requests, but does not account for how long they take: a
+ * connection that is slowed down will accumulate more in-flight requests than the others.
+ */
+@ThreadSafe
+public class RoundRobinChannelSelector implements ChannelSelector {
+
+  private final AtomicInteger index = new AtomicInteger();
+
+  public RoundRobinChannelSelector(@SuppressWarnings("unused") DriverContext context) {
+    // nothing to do
+  }
+
+  @Nullable
+  @Override
+  public DriverChannel select(@NonNull DriverChannel[] channels) {
+    int length = channels.length;
+    int start = (index.getAndIncrement() & Integer.MAX_VALUE) % length;
+    DriverChannel fallback = null;
+    for (int i = 0; i < length; i++) {
+      DriverChannel channel = channels[(start + i) % length];
+      if (channel.getAvailableIds() > 0) {
+        if (channel.isWritable()) {
+          return channel;
+        } else if (fallback == null) {
+          fallback = channel;
+        }
+      }
+    }
+    return fallback;
+  }
+}
@@ -173,8 +173,16 @@ public class ByteBufPrimitiveCodec implements PrimitiveCodec<ByteBuf> {
     if (bytes == null) {
       writeInt(-1, dest);
     } else {
-      writeInt(bytes.remaining(), dest);
-      dest.writeBytes(bytes.duplicate());
+      int length = bytes.remaining();
+      writeInt(length, dest);
+      if (bytes.hasArray()) {
+        // Copy straight from the backing array: this is the common case (values produced by the
+        // built-in codecs), and it avoids allocating a duplicate for every value of every frame.
+        dest.writeBytes(bytes.array(), bytes.arrayOffset() + bytes.position(), length);
+      } else {
+        // Don't mutate the source, it might be shared (bound statements are reused)
+        dest.writeBytes(bytes.duplicate());
+      }
     }
   }
 
@@ -0,0 +1,158 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.protocol;
+
+import com.datastax.oss.protocol.internal.response.result.Rows;
+import com.datastax.oss.protocol.internal.response.result.RowsMetadata;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.RandomAccess;
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * A page of rows where all the cell values share a single byte array, with a compact index of
+ * offsets and lengths.
+ *
+ * <p>The rows returned by {@link #getData()} are lightweight views over that array. A {@link
+ * ByteBuffer} is only created for a cell when it is actually accessed, instead of eagerly for every
+ * cell of the page. That buffer is a slice of the shared array: its position is 0 and its capacity
+ * is the length of the value, so that consumers can't reach the other cells of the page.
+ *
+ * <p>Like {@link com.datastax.oss.protocol.internal.response.result.DefaultRows}, the queue is
+ * consumed by polling, and is not thread-safe.
+ *
+ * @see CompactRowsSubCodec
+ */
+@NotThreadSafe
+public class CompactRows extends Rows {
+
+  private final RowsMetadata metadata;
+  private final RowQueue data;
+
+  /**
+   * @param values the concatenated cell values.
+   * @param cells for each cell (in row-major order), its offset in {@code values}, followed by its
+   *     length (or -1 for a null value).
+   */
+  CompactRows(RowsMetadata metadata, int rowCount, byte[] values, int[] cells) {
+    this.metadata = metadata;
+    this.data = new RowQueue(rowCount, metadata.columnCount, values, cells);
+  }
+
+  @Override
+  public RowsMetadata getMetadata() {
+    return metadata;
+  }
+
+  @Override
+  public Queue<List<ByteBuffer>> getData() {
+    return data;
+  }
+
+  @Override
+  public String toString() {
+    return "ROWS(" + data.size() + " x " + metadata.columnCount + " columns)";
+  }
+
+  private static class RowQueue extends AbstractQueue<List<ByteBuffer>> {
+
+    private final int rowCount;
+    private final int columnCount;
+    private final byte[] values;
+    private final int[] cells;
+    private int next;
+
+    private RowQueue(int rowCount, int columnCount, byte[] values, int[] cells) {
+      this.rowCount = rowCount;
+      this.columnCount = columnCount;
+      this.values = values;
+      this.cells = cells;
+    }
+
+    @Override
+    public int size() {
+      return rowCount - next;
+    }
+
+    @Override
+    public List<ByteBuffer> poll() {
+      return (next < rowCount) ? new RowView(next++) : null;
+    }
+
+    @Override
+    public List<ByteBuffer> peek() {
+      return (next < rowCount) ? new RowView(next) : null;
+    }
+
+    @Override
+    public boolean offer(List<ByteBuffer> row) {
+      throw new UnsupportedOperationException("This queue is read-only");
+    }
+
+    @Override
+    public Iterator<List<ByteBuffer>> iterator() {
+      return new Iterator<List<ByteBuffer>>() {
+        private int current = next;
+
+        @Override
+        public boolean hasNext() {
+          return current < rowCount;
+        }
+
+        @Override
+        public List<ByteBuffer> next() {
+          if (current >= rowCount) {
+            throw new NoSuchElementException();
+          }
+          return new RowView(current++);
+        }
+      };
+    }
+
+    private class RowView extends AbstractList<ByteBuffer> implements RandomAccess {
+
+      private final int firstCell;
+
+      private RowView(int row) {
+        this.firstCell = row * columnCount * 2;
+      }
+
+      /**
+       * Each call returns a new buffer, so that consumers can change its position without affecting
+       * other accesses.
+       */
+      @Override
+      public ByteBuffer get(int column) {
+        if (column < 0 || column >= columnCount) {
+          throw new IndexOutOfBoundsException("Index: " + column + ", Size: " + columnCount);
+        }
+        int i = firstCell + column * 2;
+        int length = cells[i + 1];
+        return (length < 0) ? null : ByteBuffer.wrap(values, cells[i], length).slice();
+      }
+
+      @Override
+      public int size() {
+        return columnCount;
+      }
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.protocol;
+
+import com.datastax.oss.protocol.internal.FrameCodec;
+import com.datastax.oss.protocol.internal.Message;
+import com.datastax.oss.protocol.internal.PrimitiveCodec;
+import com.datastax.oss.protocol.internal.ProtocolConstants;
+import com.datastax.oss.protocol.internal.response.Result;
+import com.datastax.oss.protocol.internal.response.result.DefaultRows;
+import com.datastax.oss.protocol.internal.response.result.Prepared;
+import com.datastax.oss.protocol.internal.response.result.RowsMetadata;
+import com.datastax.oss.protocol.internal.response.result.SchemaChange;
+import com.datastax.oss.protocol.internal.response.result.SetKeyspace;
+import com.datastax.oss.protocol.internal.response.result.Void;
+import io.netty.buffer.ByteBuf;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Decodes ROWS results into {@link CompactRows}.
+ *
+ * <p>Instead of allocating a byte array and a {@link java.nio.ByteBuffer} for every cell, the whole
+ * rows section of the frame is copied in a single array, and each cell is represented by an offset
+ * and a length in an {@code int[]} index.
+ *
+ * <p>Note that we copy out of the frame instead of retaining it: rows are handed to client code,
+ * which can hold on to them indefinitely, so there is no safe point at which a pooled buffer could
+ * be released.
+ */
+@ThreadSafe
+public class CompactRowsSubCodec extends Result.SubCodec {
+
+  /**
+   * A codec group that registers this codec for every supported protocol version. It must be passed
+   * to the {@link FrameCodec} after the default groups, in order to override the default RESULT
+   * decoders.
+   */
+  public static final FrameCodec.CodecGroup CODEC_GROUP =
+      registry -> {
+        for (int version :
+            new int[] {
+              ProtocolConstants.Version.V3,
+              ProtocolConstants.Version.V4,
+              ProtocolConstants.Version.V5
+            }) {
+          registry.addDecoder(
+              new Result.Codec(
+                  version,
+                  new Void.SubCodec(version),
+                  new CompactRowsSubCodec(version),
+                  new SetKeyspace.SubCodec(version),
+                  new Prepared.SubCodec(version),
+                  new SchemaChange.SubCodec(version)));
+        }
+      };
+
+  private final DefaultRows.SubCodec fallback;
+
+  public CompactRowsSubCodec(int protocolVersion) {
+    super(ProtocolConstants.ResultKind.ROWS, protocolVersion);
+    this.fallback = new DefaultRows.SubCodec(protocolVersion);
+  }
+
+  @Override
+  public <B> void encode(B dest, Message message, PrimitiveCodec<B> encoder) {
+    fallback.encode(dest, message, encoder);
+  }
+
+  @Override
+  public int encodedSize(Message message) {
+    return fallback.encodedSize(message);
+  }
+
+  @Override
+  public <B> Message decode(B source, PrimitiveCodec<B> decoder) {
+    if (!(source instanceof ByteBuf)) {
+      return fallback.decode(source, decoder);
+    }
+    ByteBuf buffer = (ByteBuf) source;
+    RowsMetadata metadata = RowsMetadata.decode(source, decoder, false, protocolVersion);
+    int rowCount = decoder.readInt(source);
+
+    // First pass: build the index, with offsets relative to the start of the rows section
+    int start = buffer.readerIndex();
+    int[] cells = new int[rowCount * metadata.columnCount * 2];
+    int i = 0;
+    while (i < cells.length) {
+      int length = buffer.readInt();
+      if (length < 0) {
+        cells[i] = 0;
+        cells[i + 1] = -1;
+      } else {
+        cells[i] = buffer.readerIndex() - start;
+        cells[i + 1] = length;
+        buffer.skipBytes(length);
+      }
+      i += 2;
+    }
+
+    // Then copy everything at once (this includes the length prefixes, which are simply skipped
+    // by the index)
+    byte[] values = new byte[buffer.readerIndex() - start];
+    buffer.getBytes(start, values);
+
+    return new CompactRows(metadata, rowCount, values, cells);
+  }
+}
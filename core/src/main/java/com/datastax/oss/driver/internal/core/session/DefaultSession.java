@@ -38,6 +38,7 @@ import com.datastax.oss.driver.internal.core.metadata.NodeStateEvent;
 import com.datastax.oss.driver.internal.core.metadata.NodeStateManager;
 import com.datastax.oss.driver.internal.core.metrics.SessionMetricUpdater;
 import com.datastax.oss.driver.internal.core.pool.ChannelPool;
+import com.datastax.oss.driver.internal.core.session.throttling.NodeConcurrencyLimiter;
 import com.datastax.oss.driver.internal.core.util.Loggers;
 import com.datastax.oss.driver.internal.core.util.concurrent.CompletableFutures;
 import com.datastax.oss.driver.internal.core.util.concurrent.RunOrSchedule;
@@ -232,6 +233,11 @@ public class DefaultSession implements CqlSession {
     return poolManager.getRepreparePayloads();
   }
 
+  @NonNull
+  public NodeConcurrencyLimiter getNodeLimiter() {
+    return poolManager.getNodeLimiter();
+  }
+
   @NonNull
   public SessionMetricUpdater getMetricUpdater() {
     return metricUpdater;
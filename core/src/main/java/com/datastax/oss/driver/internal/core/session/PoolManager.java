@@ -30,6 +30,7 @@ import com.datastax.oss.driver.internal.core.metadata.NodeStateEvent;
 import com.datastax.oss.driver.internal.core.metadata.TopologyEvent;
 import com.datastax.oss.driver.internal.core.pool.ChannelPool;
 import com.datastax.oss.driver.internal.core.pool.ChannelPoolFactory;
+import com.datastax.oss.driver.internal.core.session.throttling.NodeConcurrencyLimiter;
 import com.datastax.oss.driver.internal.core.util.Loggers;
 import com.datastax.oss.driver.internal.core.util.concurrent.CompletableFutures;
 import com.datastax.oss.driver.internal.core.util.concurrent.ReplayingEventFilter;
@@ -85,6 +86,10 @@ public class PoolManager implements AsyncAutoCloseable {
   private ConcurrentMap<ByteBuffer, RepreparePayload> repreparePayloads =
       new MapMaker().weakValues().makeMap();
 
+  // The per-node and per-datacenter concurrency limits, that apply to the requests sent through
+  // the pools.
+  private final NodeConcurrencyLimiter nodeLimiter;
+
   private final String logPrefix;
   private final EventExecutor adminExecutor;
   private final DriverExecutionProfile config;
@@ -94,6 +99,7 @@ public class PoolManager implements AsyncAutoCloseable {
     this.logPrefix = context.getSessionName();
     this.adminExecutor = context.getNettyOptions().adminEventExecutorGroup().next();
     this.config = context.getConfig().getDefaultProfile();
+    this.nodeLimiter = new NodeConcurrencyLimiter(context);
     this.singleThreaded = new SingleThreaded(context);
   }
 
@@ -135,6 +141,10 @@ public class PoolManager implements AsyncAutoCloseable {
     return repreparePayloads;
   }
 
+  public NodeConcurrencyLimiter getNodeLimiter() {
+    return nodeLimiter;
+  }
+
   @NonNull
   @Override
   public CompletionStage<Void> closeFuture() {
@@ -21,6 +21,7 @@ import com.datastax.oss.driver.internal.core.cql.CqlPrepareAsyncProcessor;
 import com.datastax.oss.driver.internal.core.cql.CqlPrepareSyncProcessor;
 import com.datastax.oss.driver.internal.core.cql.CqlRequestAsyncProcessor;
 import com.datastax.oss.driver.internal.core.cql.CqlRequestSyncProcessor;
+import com.datastax.oss.driver.internal.core.cql.reactive.CqlRequestReactiveProcessor;
 import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableList;
 import net.jcip.annotations.ThreadSafe;
 import org.slf4j.Logger;
@@ -35,6 +36,8 @@ public class RequestProcessorRegistry {
     CqlRequestAsyncProcessor requestAsyncProcessor = new CqlRequestAsyncProcessor();
     CqlRequestSyncProcessor requestSyncProcessor =
         new CqlRequestSyncProcessor(requestAsyncProcessor);
+    CqlRequestReactiveProcessor requestReactiveProcessor =
+        new CqlRequestReactiveProcessor(requestAsyncProcessor);
     CqlPrepareAsyncProcessor prepareAsyncProcessor = new CqlPrepareAsyncProcessor();
     CqlPrepareSyncProcessor prepareSyncProcessor =
         new CqlPrepareSyncProcessor(prepareAsyncProcessor);
@@ -43,6 +46,7 @@ public class RequestProcessorRegistry {
         logPrefix,
         requestAsyncProcessor,
         requestSyncProcessor,
+        requestReactiveProcessor,
         prepareAsyncProcessor,
         prepareSyncProcessor);
   }
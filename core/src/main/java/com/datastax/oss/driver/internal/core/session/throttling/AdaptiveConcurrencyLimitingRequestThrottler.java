@@ -0,0 +1,366 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.session.throttling;
+
+import com.datastax.oss.driver.api.core.RequestThrottlingException;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.servererrors.OverloadedException;
+import com.datastax.oss.driver.api.core.servererrors.ReadTimeoutException;
+import com.datastax.oss.driver.api.core.servererrors.WriteTimeoutException;
+import com.datastax.oss.driver.api.core.session.throttling.RequestThrottler;
+import com.datastax.oss.driver.api.core.session.throttling.Throttled;
+import com.datastax.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A request throttler that limits the number of concurrent requests, and adjusts that limit based
+ * on the observed latencies.
+ *
+ * <p>This is a gradient algorithm, in the style of Netflix's {@code concurrency-limits} library: at
+ * the end of each sample window, the average latency of the window is compared to a long-term
+ * average. If recent requests are not slower, the limit grows (by roughly its square root); if they
+ * are, the limit shrinks in proportion. Requests that are dropped because the cluster is overloaded
+ * (timeouts, {@link OverloadedException}) additionally cause a multiplicative decrease.
+ *
+ * <p>Requests that can't start immediately are queued, like {@link
+ * ConcurrencyLimitingRequestThrottler}.
+ *
+ * <p>To activate this throttler, modify the {@code advanced.throttler} section in the driver
+ * configuration, for example:
+ *
+ * <pre>
+ * datastax-java-driver {
+ *   advanced.throttler {
+ *     class = AdaptiveConcurrencyLimitingRequestThrottler
+ *     max-queue-size = 10000
+ *     adaptive {
+ *       initial-limit = 100
+ *       min-limit = 10
+ *       max-limit = 10000
+ *     }
+ *   }
+ * }
+ * </pre>
+ *
+ * See {@code reference.conf} (in the manual or core driver JAR) for more details.
+ */
+@ThreadSafe
+public class AdaptiveConcurrencyLimitingRequestThrottler implements RequestThrottler {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(AdaptiveConcurrencyLimitingRequestThrottler.class);
+
+  private final String logPrefix;
+  private final NanoClock clock;
+  private final int maxQueueSize;
+  private final int minLimit;
+  private final int maxLimit;
+  private final long sampleWindowNanos;
+  private final int longWindow;
+  private final double rttTolerance;
+  private final double smoothing;
+  private final double backoffRatio;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  // Written under the lock, but also read by the metrics gauge
+  private volatile double limit;
+
+  @GuardedBy("lock")
+  private int concurrentRequests;
+
+  @GuardedBy("lock")
+  private final Deque<Throttled> queue = new ArrayDeque<>();
+
+  @GuardedBy("lock")
+  private final Map<Throttled, Long> startTimes = new HashMap<>();
+
+  @GuardedBy("lock")
+  private long windowStartNanos;
+
+  @GuardedBy("lock")
+  private long windowRttSumNanos;
+
+  @GuardedBy("lock")
+  private int windowSamples;
+
+  @GuardedBy("lock")
+  private boolean windowDropped;
+
+  @GuardedBy("lock")
+  private double longRttNanos = -1;
+
+  @GuardedBy("lock")
+  private boolean closed;
+
+  @SuppressWarnings("unused")
+  public AdaptiveConcurrencyLimitingRequestThrottler(DriverContext context) {
+    this(context, System::nanoTime);
+  }
+
+  @VisibleForTesting
+  AdaptiveConcurrencyLimitingRequestThrottler(DriverContext context, NanoClock clock) {
+    this.logPrefix = context.getSessionName();
+    this.clock = clock;
+
+    DriverExecutionProfile config = context.getConfig().getDefaultProfile();
+    this.maxQueueSize = config.getInt(DefaultDriverOption.REQUEST_THROTTLER_MAX_QUEUE_SIZE);
+    this.minLimit = config.getInt(DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_MIN_LIMIT, 10);
+    this.maxLimit = config.getInt(DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_MAX_LIMIT, 10000);
+    if (minLimit < 1 || maxLimit < minLimit) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Invalid adaptive throttler bounds: min-limit = %d, max-limit = %d",
+              minLimit, maxLimit));
+    }
+    int initialLimit =
+        config.getInt(DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_INITIAL_LIMIT, 100);
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    this.sampleWindowNanos =
+        config
+            .getDuration(
+                DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_SAMPLE_WINDOW,
+                Duration.ofMillis(100))
+            .toNanos();
+    this.longWindow =
+        Math.max(1, config.getInt(DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_LONG_WINDOW, 600));
+    this.rttTolerance =
+        Math.max(
+            1.0,
+            config.getDouble(DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_RTT_TOLERANCE, 1.5));
+    this.smoothing =
+        clamp(config.getDouble(DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_SMOOTHING, 0.2));
+    this.backoffRatio =
+        clamp(config.getDouble(DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_BACKOFF_RATIO, 0.9));
+    this.windowStartNanos = clock.nanoTime();
+
+    LOG.debug(
+        "[{}] Initializing with limit = {} (min {}, max {}), maxQueueSize = {}",
+        logPrefix,
+        (int) limit,
+        minLimit,
+        maxLimit,
+        maxQueueSize);
+  }
+
+  @Override
+  public void register(@NonNull Throttled request) {
+    lock.lock();
+    try {
+      if (closed) {
+        LOG.trace("[{}] Rejecting request after shutdown", logPrefix);
+        fail(request, "The session is shutting down");
+      } else if (queue.isEmpty() && concurrentRequests < (int) limit) {
+        LOG.trace("[{}] Starting newly registered request", logPrefix);
+        start(request, false);
+      } else if (queue.size() < maxQueueSize) {
+        LOG.trace("[{}] Enqueuing request", logPrefix);
+        queue.add(request);
+      } else {
+        LOG.trace("[{}] Rejecting request because of full queue", logPrefix);
+        fail(
+            request,
+            String.format(
+                "The session has reached its maximum capacity "
+                    + "(concurrent requests: %d, queue size: %d)",
+                (int) limit, maxQueueSize));
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void signalSuccess(@NonNull Throttled request) {
+    lock.lock();
+    try {
+      onRequestDone(request, false);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void signalError(@NonNull Throttled request, @NonNull Throwable error) {
+    lock.lock();
+    try {
+      onRequestDone(request, isOverloadError(error));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void signalTimeout(@NonNull Throttled request) {
+    lock.lock();
+    try {
+      if (!closed) {
+        if (queue.remove(request)) { // The request timed out before it was active
+          LOG.trace("[{}] Removing timed out request from the queue", logPrefix);
+        } else {
+          onRequestDone(request, true);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static boolean isOverloadError(Throwable error) {
+    return error instanceof OverloadedException
+        || error instanceof ReadTimeoutException
+        || error instanceof WriteTimeoutException;
+  }
+
+  @SuppressWarnings("GuardedBy") // this method is only called with the lock held
+  private void start(Throttled request, boolean wasDelayed) {
+    assert lock.isHeldByCurrentThread();
+    concurrentRequests += 1;
+    startTimes.put(request, clock.nanoTime());
+    request.onThrottleReady(wasDelayed);
+  }
+
+  @SuppressWarnings("GuardedBy") // this method is only called with the lock held
+  private void onRequestDone(Throttled request, boolean dropped) {
+    assert lock.isHeldByCurrentThread();
+    if (closed) {
+      return;
+    }
+    Long startNanos = startTimes.remove(request);
+    if (startNanos == null) {
+      // Not a request that we started (or already signaled), ignore
+      return;
+    }
+    concurrentRequests -= 1;
+    long now = clock.nanoTime();
+    if (dropped) {
+      windowDropped = true;
+    } else {
+      windowRttSumNanos += now - startNanos;
+      windowSamples += 1;
+    }
+    if (now - windowStartNanos >= sampleWindowNanos) {
+      updateLimit();
+      windowStartNanos = now;
+      windowRttSumNanos = 0;
+      windowSamples = 0;
+      windowDropped = false;
+    }
+    // The limit might have changed, start as many requests as allowed
+    while (!queue.isEmpty() && concurrentRequests < (int) limit) {
+      LOG.trace("[{}] Starting dequeued request", logPrefix);
+      start(queue.poll(), true);
+    }
+  }
+
+  @SuppressWarnings("GuardedBy") // this method is only called with the lock held
+  private void updateLimit() {
+    assert lock.isHeldByCurrentThread();
+    double currentLimit = limit;
+    double newLimit;
+    if (windowDropped) {
+      // Back off right away: smoothing the drop would dilute it (with the default settings, the
+      // limit would only decrease by 2%)
+      newLimit = currentLimit * backoffRatio;
+    } else if (windowSamples == 0) {
+      return;
+    } else {
+      double shortRtt = (double) windowRttSumNanos / windowSamples;
+      if (longRttNanos < 0) {
+        longRttNanos = shortRtt;
+      } else {
+        longRttNanos += (shortRtt - longRttNanos) / longWindow;
+      }
+      // If the long-term average is well above the recent latencies (for example after a slow
+      // period), it would take a long time to come down; help it converge faster.
+      if (longRttNanos / shortRtt > 2) {
+        longRttNanos *= 0.95;
+      }
+      // Don't grow the limit if the application doesn't even use half of it: we have no evidence
+      // that the cluster could handle more
+      if (concurrentRequests + queue.size() < currentLimit / 2) {
+        return;
+      }
+      double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / shortRtt));
+      newLimit = currentLimit * gradient + Math.sqrt(currentLimit);
+      newLimit = currentLimit * (1 - smoothing) + newLimit * smoothing;
+    }
+    newLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    if ((int) newLimit != (int) currentLimit) {
+      LOG.trace("[{}] Updating limit from {} to {}", logPrefix, (int) currentLimit, (int) newLimit);
+    }
+    limit = newLimit;
+  }
+
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      closed = true;
+      LOG.debug("[{}] Rejecting {} queued requests after shutdown", logPrefix, queue.size());
+      for (Throttled request : queue) {
+        fail(request, "The session is shutting down");
+      }
+      startTimes.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** The current concurrency limit. */
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  public int getQueueSize() {
+    lock.lock();
+    try {
+      return queue.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @VisibleForTesting
+  int getConcurrentRequests() {
+    lock.lock();
+    try {
+      return concurrentRequests;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static double clamp(double value) {
+    return Math.max(0, Math.min(1, value));
+  }
+
+  private static void fail(Throttled request, String message) {
+    request.onThrottleFailure(new RequestThrottlingException(message));
+  }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.session.throttling;
+
+import com.datastax.oss.driver.api.core.RequestThrottlingException;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.session.throttling.RequestThrottler;
+import com.datastax.oss.driver.api.core.session.throttling.Throttled;
+import com.datastax.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A request throttler that limits the number of concurrent requests, without using locks.
+ *
+ * <p>This has the same behavior and configuration as {@link ConcurrencyLimitingRequestThrottler},
+ * but is better suited to applications that issue requests from many threads at once: as long as
+ * the limit is not reached, registering or completing a request is a single compare-and-set on a
+ * counter. Requests only go through a (non-blocking) wait queue when the throttler is saturated.
+ *
+ * <p>One difference is that, when the limit is reached and freed at the same time, a newly
+ * registered request may occasionally start before a request that was being enqueued concurrently.
+ *
+ * <p>To activate this throttler, modify the {@code advanced.throttler} section in the driver
+ * configuration, for example:
+ *
+ * <pre>
+ * datastax-java-driver {
+ *   advanced.throttler {
+ *     class = LockFreeConcurrencyLimitingRequestThrottler
+ *     max-concurrent-requests = 10000
+ *     max-queue-size = 10000
+ *   }
+ * }
+ * </pre>
+ *
+ * See {@code reference.conf} (in the manual or core driver JAR) for more details.
+ */
+@ThreadSafe
+public class LockFreeConcurrencyLimitingRequestThrottler implements RequestThrottler {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(LockFreeConcurrencyLimitingRequestThrottler.class);
+
+  private final String logPrefix;
+  private final int maxConcurrentRequests;
+  private final int maxQueueSize;
+
+  private final AtomicInteger concurrentRequests = new AtomicInteger();
+  private final Queue<Throttled> queue = new ConcurrentLinkedQueue<>();
+  // Tracked separately because ConcurrentLinkedQueue.size() is linear. A slot is reserved before
+  // the request is added to the queue, so that the queue never grows beyond its maximum size.
+  private final AtomicInteger queueSize = new AtomicInteger();
+
+  private volatile boolean closed;
+
+  public LockFreeConcurrencyLimitingRequestThrottler(DriverContext context) {
+    this.logPrefix = context.getSessionName();
+    DriverExecutionProfile config = context.getConfig().getDefaultProfile();
+    this.maxConcurrentRequests =
+        config.getInt(DefaultDriverOption.REQUEST_THROTTLER_MAX_CONCURRENT_REQUESTS);
+    this.maxQueueSize = config.getInt(DefaultDriverOption.REQUEST_THROTTLER_MAX_QUEUE_SIZE);
+    LOG.debug(
+        "[{}] Initializing with maxConcurrentRequests = {}, maxQueueSize = {}",
+        logPrefix,
+        maxConcurrentRequests,
+        maxQueueSize);
+  }
+
+  @Override
+  public void register(@NonNull Throttled request) {
+    if (closed) {
+      LOG.trace("[{}] Rejecting request after shutdown", logPrefix);
+      fail(request, "The session is shutting down");
+    } else if (queueSize.get() == 0 && tryAcquire()) {
+      LOG.trace("[{}] Starting newly registered request", logPrefix);
+      request.onThrottleReady(false);
+    } else if (tryReserveQueueSlot()) {
+      LOG.trace("[{}] Enqueuing request", logPrefix);
+      queue.offer(request);
+      if (closed) {
+        // close() might have emptied the queue before we added to it
+        if (queue.remove(request)) {
+          queueSize.decrementAndGet();
+          fail(request, "The session is shutting down");
+        }
+      } else {
+        // All active requests might have completed since we checked, in which case nobody else
+        // would start this one
+        drain();
+      }
+    } else {
+      LOG.trace("[{}] Rejecting request because of full queue", logPrefix);
+      fail(
+          request,
+          String.format(
+              "The session has reached its maximum capacity "
+                  + "(concurrent requests: %d, queue size: %d)",
+              maxConcurrentRequests, maxQueueSize));
+    }
+  }
+
+  @Override
+  public void signalSuccess(@NonNull Throttled request) {
+    if (!closed) {
+      onRequestDone();
+    }
+  }
+
+  @Override
+  public void signalError(@NonNull Throttled request, @NonNull Throwable error) {
+    signalSuccess(request); // not treated differently
+  }
+
+  @Override
+  public void signalTimeout(@NonNull Throttled request) {
+    if (!closed) {
+      if (queueSize.get() > 0 && queue.remove(request)) {
+        // The request timed out before it was active
+        LOG.trace("[{}] Removing timed out request from the queue", logPrefix);
+        queueSize.decrementAndGet();
+      } else {
+        onRequestDone();
+      }
+    }
+  }
+
+  private void onRequestDone() {
+    concurrentRequests.decrementAndGet();
+    if (queueSize.get() > 0) {
+      drain();
+    }
+  }
+
+  /**
+   * Starts queued requests while there are free permits.
+   *
+   * <p>This is called after every enqueue and every release, so a queued request can't be missed:
+   * if this method fails to acquire a permit, then all of them were in use, and the thread that
+   * releases the next one will call it again.
+   */
+  private void drain() {
+    while (!closed && !queue.isEmpty()) {
+      if (!tryAcquire()) {
+        return;
+      }
+      Throttled request = queue.poll();
+      if (request == null) {
+        // Another thread emptied the queue in the meantime, give the permit back and re-check
+        concurrentRequests.decrementAndGet();
+      } else {
+        queueSize.decrementAndGet();
+        LOG.trace("[{}] Starting dequeued request", logPrefix);
+        request.onThrottleReady(true);
+      }
+    }
+  }
+
+  private boolean tryAcquire() {
+    while (true) {
+      int current = concurrentRequests.get();
+      if (current >= maxConcurrentRequests) {
+        return false;
+      }
+      if (concurrentRequests.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private boolean tryReserveQueueSlot() {
+    while (true) {
+      int current = queueSize.get();
+      if (current >= maxQueueSize) {
+        return false;
+      }
+      if (queueSize.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    LOG.debug("[{}] Rejecting {} queued requests after shutdown", logPrefix, queueSize.get());
+    Throttled request;
+    while ((request = queue.poll()) != null) {
+      queueSize.decrementAndGet();
+      fail(request, "The session is shutting down");
+    }
+  }
+
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests;
+  }
+
+  public int getQueueSize() {
+    return queueSize.get();
+  }
+
+  @VisibleForTesting
+  int getConcurrentRequests() {
+    return concurrentRequests.get();
+  }
+
+  private static void fail(Throttled request, String message) {
+    request.onThrottleFailure(new RequestThrottlingException(message));
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.session.throttling;
+
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.shaded.guava.common.collect.MapMaker;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the number of concurrent requests to each node, and to each datacenter.
+ *
+ * <p>Unlike a {@link com.datastax.oss.driver.api.core.session.throttling.RequestThrottler}, this
+ * never delays requests: a request handler calls {@link #tryAcquire(Node)} before it writes to a
+ * node, and moves on to the next node in the query plan if the node (or its datacenter) has no
+ * capacity left. Once the node has responded (or the request was aborted), the handler releases the
+ * {@link Permit} that it obtained.
+ *
+ * <p>Both limits are optional: see the {@code advanced.throttler.per-node} and {@code
+ * advanced.throttler.per-datacenter} sections in the configuration.
+ */
+@ThreadSafe
+public class NodeConcurrencyLimiter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(NodeConcurrencyLimiter.class);
+
+  private static final Permit UNLIMITED = new Permit(null, null);
+
+  private final int maxRequestsPerNode;
+  private final int maxRequestsPerDatacenter;
+
+  // Weak keys, so that we don't have to clean up when nodes are removed from the cluster
+  private final ConcurrentMap<Node, AtomicInteger> nodeCounters =
+      new MapMaker().weakKeys().makeMap();
+  private final ConcurrentMap<String, AtomicInteger> datacenterCounters = new ConcurrentHashMap<>();
+
+  public NodeConcurrencyLimiter(DriverContext context) {
+    DriverExecutionProfile config = context.getConfig().getDefaultProfile();
+    this.maxRequestsPerNode =
+        config.getInt(DefaultDriverOption.REQUEST_THROTTLER_PER_NODE_MAX_CONCURRENT_REQUESTS, 0);
+    this.maxRequestsPerDatacenter =
+        config.getInt(
+            DefaultDriverOption.REQUEST_THROTTLER_PER_DATACENTER_MAX_CONCURRENT_REQUESTS, 0);
+    if (isEnabled()) {
+      LOG.debug(
+          "[{}] Initializing with maxRequestsPerNode = {}, maxRequestsPerDatacenter = {}",
+          context.getSessionName(),
+          maxRequestsPerNode,
+          maxRequestsPerDatacenter);
+    }
+  }
+
+  /**
+   * Whether at least one of the limits is set. If not, {@link #tryAcquire(Node)} always succeeds,
+   * and releasing the permits has no effect.
+   */
+  public boolean isEnabled() {
+    return maxRequestsPerNode > 0 || maxRequestsPerDatacenter > 0;
+  }
+
+  /**
+   * Tries to reserve capacity for one request to the given node.
+   *
+   * @return the reserved capacity, or {@code null} if the node or its datacenter is saturated. The
+   *     caller must {@linkplain Permit#release() release} it when the node is done with the
+   *     request.
+   */
+  @Nullable
+  public Permit tryAcquire(@NonNull Node node) {
+    if (!isEnabled()) {
+      return UNLIMITED;
+    }
+    AtomicInteger nodeCounter = null;
+    if (maxRequestsPerNode > 0) {
+      nodeCounter = nodeCounters.computeIfAbsent(node, n -> new AtomicInteger());
+      if (!tryIncrement(nodeCounter, maxRequestsPerNode)) {
+        return null;
+      }
+    }
+    AtomicInteger datacenterCounter = null;
+    String datacenter;
+    if (maxRequestsPerDatacenter > 0 && (datacenter = node.getDatacenter()) != null) {
+      datacenterCounter = datacenterCounters.computeIfAbsent(datacenter, dc -> new AtomicInteger());
+      if (!tryIncrement(datacenterCounter, maxRequestsPerDatacenter)) {
+        if (nodeCounter != null) {
+          nodeCounter.decrementAndGet();
+        }
+        return null;
+      }
+    }
+    return (nodeCounter == null && datacenterCounter == null)
+        ? UNLIMITED
+        : new Permit(nodeCounter, datacenterCounter);
+  }
+
+  /** The number of requests that currently hold capacity on the given node. */
+  public int getInFlight(@NonNull Node node) {
+    AtomicInteger nodeCounter = nodeCounters.get(node);
+    return (nodeCounter == null) ? 0 : nodeCounter.get();
+  }
+
+  /** The number of requests that currently hold capacity in the given datacenter. */
+  public int getInFlight(@NonNull String datacenter) {
+    AtomicInteger datacenterCounter = datacenterCounters.get(datacenter);
+    return (datacenterCounter == null) ? 0 : datacenterCounter.get();
+  }
+
+  /**
+   * The capacity reserved for one request by {@link #tryAcquire(Node)}.
+   *
+   * <p>It keeps track of the counters that it was taken from. The node's datacenter can change if
+   * the topology is refreshed while the request is in flight; the capacity is still given back to
+   * the datacenter it was reserved in.
+   */
+  @ThreadSafe
+  public static class Permit {
+
+    private static final AtomicIntegerFieldUpdater<Permit> RELEASED =
+        AtomicIntegerFieldUpdater.newUpdater(Permit.class, "released");
+
+    private final AtomicInteger nodeCounter;
+    private final AtomicInteger datacenterCounter;
+    private volatile int released;
+
+    private Permit(AtomicInteger nodeCounter, AtomicInteger datacenterCounter) {
+      this.nodeCounter = nodeCounter;
+      this.datacenterCounter = datacenterCounter;
+    }
+
+    /** Gives back the reserved capacity. Only the first call has an effect. */
+    public void release() {
+      if ((nodeCounter != null || datacenterCounter != null)
+          && RELEASED.compareAndSet(this, 0, 1)) {
+        if (nodeCounter != null) {
+          nodeCounter.decrementAndGet();
+        }
+        if (datacenterCounter != null) {
+          datacenterCounter.decrementAndGet();
+        }
+      }
+    }
+  }
+
+  private static boolean tryIncrement(AtomicInteger counter, int max) {
+    while (true) {
+      int current = counter.get();
+      if (current >= max) {
+        return false;
+      }
+      if (counter.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.specex;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.api.core.specex.SpeculativeExecutionPolicy;
+import com.datastax.oss.driver.api.core.tracker.RequestTracker;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * A policy that schedules speculative executions based on a percentile of the recent latencies of
+ * each node.
+ *
+ * <p>The policy records the latency of each successful response, per node, in a rolling histogram.
+ * When a request is sent to a node, the delay before the next execution is the configured
+ * percentile of that node's latencies, bounded by a minimum and a maximum. So a node that is
+ * temporarily slow (for example because of a GC pause) triggers speculative executions sooner,
+ * while a healthy cluster only sees them for the slowest requests.
+ *
+ * <p>To activate this policy, modify the {@code advanced.speculative-execution-policy} section in
+ * the driver configuration, for example:
+ *
+ * <pre>
+ * datastax-java-driver {
+ *   advanced.speculative-execution-policy {
+ *     class = PercentileSpeculativeExecutionPolicy
+ *     max-executions = 3
+ *     percentile = 99.0
+ *     min-delay = 5 milliseconds
+ *     max-delay = 1 second
+ *   }
+ * }
+ * </pre>
+ *
+ * See {@code reference.conf} (in the manual or core driver JAR) for more details.
+ *
+ * <p>The latencies are collected through the {@link RequestTracker} interface: the driver
+ * automatically registers speculative execution policies that implement it, in addition to the
+ * tracker defined in the configuration. Only the requests of the execution profiles that use this
+ * policy instance are recorded.
+ */
+@ThreadSafe
+public class PercentileSpeculativeExecutionPolicy
+    implements SpeculativeExecutionPolicy, RequestTracker {
+
+  private static final int SIGNIFICANT_VALUE_DIGITS = 2;
+
+  private final DriverContext context;
+  private final int maxExecutions;
+  private final double percentile;
+  private final long minDelayMillis;
+  private final long maxDelayMillis;
+  private final long highestTrackableMicros;
+  private final long minSamples;
+  private final long refreshIntervalNanos;
+  private final ConcurrentMap<Node, NodeLatencies> latencies = new ConcurrentHashMap<>();
+
+  public PercentileSpeculativeExecutionPolicy(DriverContext context, String profileName) {
+    this.context = context;
+    DriverExecutionProfile config = context.getConfig().getProfile(profileName);
+    this.maxExecutions = config.getInt(DefaultDriverOption.SPECULATIVE_EXECUTION_MAX);
+    if (this.maxExecutions < 1) {
+      throw new IllegalArgumentException("Max must be at least 1");
+    }
+    this.percentile = config.getDouble(DefaultDriverOption.SPECULATIVE_EXECUTION_PERCENTILE, 99.0);
+    if (this.percentile <= 0 || this.percentile >= 100) {
+      throw new IllegalArgumentException("Percentile must be strictly between 0 and 100");
+    }
+    this.minDelayMillis =
+        config
+            .getDuration(DefaultDriverOption.SPECULATIVE_EXECUTION_MIN_DELAY, Duration.ofMillis(5))
+            .toMillis();
+    this.maxDelayMillis =
+        config
+            .getDuration(DefaultDriverOption.SPECULATIVE_EXECUTION_MAX_DELAY, Duration.ofSeconds(1))
+            .toMillis();
+    if (this.minDelayMillis < 0 || this.maxDelayMillis < this.minDelayMillis) {
+      throw new IllegalArgumentException(
+          "Min delay must be positive or 0, and max delay must be greater than or equal to it");
+    }
+    // Latencies above the max delay all produce the same result, no need to track them precisely
+    this.highestTrackableMicros = Math.max(this.maxDelayMillis * 1000, 2);
+    this.minSamples = config.getInt(DefaultDriverOption.SPECULATIVE_EXECUTION_MIN_SAMPLES, 100);
+    if (this.minSamples < 1) {
+      throw new IllegalArgumentException("Min samples must be at least 1");
+    }
+    this.refreshIntervalNanos =
+        config
+            .getDuration(
+                DefaultDriverOption.SPECULATIVE_EXECUTION_REFRESH_INTERVAL, Duration.ofSeconds(5))
+            .toNanos();
+  }
+
+  @Override
+  public long nextExecution(
+      @NonNull Node node,
+      @Nullable @SuppressWarnings("unused") CqlIdentifier keyspace,
+      @NonNull @SuppressWarnings("unused") Request request,
+      int runningExecutions) {
+    assert runningExecutions >= 1;
+    if (runningExecutions >= maxExecutions) {
+      return -1;
+    }
+    NodeLatencies nodeLatencies = latencies.get(node);
+    return (nodeLatencies == null)
+        ? maxDelayMillis
+        : nodeLatencies.getDelayMillis(System.nanoTime());
+  }
+
+  @Override
+  public void onNodeSuccess(
+      @NonNull Request request,
+      long latencyNanos,
+      @NonNull DriverExecutionProfile executionProfile,
+      @NonNull Node node) {
+    if (context.getSpeculativeExecutionPolicy(executionProfile.getName()) != this) {
+      return;
+    }
+    NodeLatencies nodeLatencies = latencies.get(node);
+    if (nodeLatencies == null) {
+      nodeLatencies = latencies.computeIfAbsent(node, n -> new NodeLatencies(System.nanoTime()));
+    }
+    nodeLatencies.record(latencyNanos);
+  }
+
+  @Override
+  public void close() {
+    latencies.clear();
+  }
+
+  private class NodeLatencies {
+
+    // Lock-free, this is what the request path writes to
+    private final Recorder recorder =
+        new Recorder(highestTrackableMicros, SIGNIFICANT_VALUE_DIGITS);
+
+    @GuardedBy("this")
+    private final Histogram accumulated =
+        new Histogram(highestTrackableMicros, SIGNIFICANT_VALUE_DIGITS);
+
+    @GuardedBy("this")
+    private Histogram interval;
+
+    private volatile long nextRefreshNanos;
+    private volatile long delayMillis = maxDelayMillis;
+
+    private NodeLatencies(long nowNanos) {
+      this.nextRefreshNanos = nowNanos + refreshIntervalNanos;
+    }
+
+    private void record(long latencyNanos) {
+      recorder.recordValue(Math.min(latencyNanos / 1000, highestTrackableMicros));
+    }
+
+    private long getDelayMillis(long nowNanos) {
+      if (nowNanos - nextRefreshNanos >= 0) {
+        refresh(nowNanos);
+      }
+      return delayMillis;
+    }
+
+    private synchronized void refresh(long nowNanos) {
+      // Might have raced with another thread => re-check
+      if (nowNanos - nextRefreshNanos < 0) {
+        return;
+      }
+      interval = recorder.getIntervalHistogram(interval);
+      accumulated.add(interval);
+      // If the node didn't get enough requests, keep the previous delay and accumulate the
+      // latencies over the next interval
+      if (accumulated.getTotalCount() >= minSamples) {
+        long delay = accumulated.getValueAtPercentile(percentile) / 1000;
+        delayMillis = Math.min(Math.max(delay, minDelayMillis), maxDelayMillis);
+        accumulated.reset();
+      }
+      nextRefreshNanos = nowNanos + refreshIntervalNanos;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.tracker;
+
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.api.core.tracker.RequestTracker;
+import com.datastax.oss.driver.internal.core.util.Loggers;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableList;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.List;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Combines multiple request trackers into a single one.
+ *
+ * <p>This is used internally when driver components need to track requests in addition to the
+ * tracker configured by the client (for example, a policy that computes latency statistics). Each
+ * event is forwarded to all the trackers, in order; if one of them throws, the error is logged and
+ * the next trackers are still invoked.
+ *
+ * <p>Only the client's tracker is closed by {@link #close()}: the other components are owned by the
+ * session, which closes them with the rest of its policies.
+ */
+@ThreadSafe
+public class MultiplexingRequestTracker implements RequestTracker {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MultiplexingRequestTracker.class);
+
+  private final RequestTracker clientTracker;
+  private final List<RequestTracker> trackers;
+
+  /**
+   * @param clientTracker the tracker configured by the client. It is invoked first.
+   * @param componentTrackers the trackers of other driver components. They are invoked after the
+   *     client tracker, in order.
+   */
+  public MultiplexingRequestTracker(
+      @NonNull RequestTracker clientTracker, @NonNull List<RequestTracker> componentTrackers) {
+    this.clientTracker = clientTracker;
+    ImmutableList.Builder<RequestTracker> builder = ImmutableList.builder();
+    if (!(clientTracker instanceof NoopRequestTracker)) {
+      builder.add(clientTracker);
+    }
+    this.trackers = builder.addAll(componentTrackers).build();
+  }
+
+  @NonNull
+  public List<RequestTracker> getTrackers() {
+    return trackers;
+  }
+
+  @Override
+  public void onSuccess(
+      @NonNull Request request,
+      long latencyNanos,
+      @NonNull DriverExecutionProfile executionProfile,
+      @NonNull Node node) {
+    for (RequestTracker tracker : trackers) {
+      try {
+        tracker.onSuccess(request, latencyNanos, executionProfile, node);
+      } catch (Throwable t) {
+        Loggers.warnWithException(LOG, "Unexpected error while invoking {}.onSuccess", tracker, t);
+      }
+    }
+  }
+
+  @Override
+  public void onError(
+      @NonNull Request request,
+      @NonNull Throwable error,
+      long latencyNanos,
+      @NonNull DriverExecutionProfile executionProfile,
+      @Nullable Node node) {
+    for (RequestTracker tracker : trackers) {
+      try {
+        tracker.onError(request, error, latencyNanos, executionProfile, node);
+      } catch (Throwable t) {
+        Loggers.warnWithException(LOG, "Unexpected error while invoking {}.onError", tracker, t);
+      }
+    }
+  }
+
+  @Override
+  public void onNodeError(
+      @NonNull Request request,
+      @NonNull Throwable error,
+      long latencyNanos,
+      @NonNull DriverExecutionProfile executionProfile,
+      @NonNull Node node) {
+    for (RequestTracker tracker : trackers) {
+      try {
+        tracker.onNodeError(request, error, latencyNanos, executionProfile, node);
+      } catch (Throwable t) {
+        Loggers.warnWithException(
+            LOG, "Unexpected error while invoking {}.onNodeError", tracker, t);
+      }
+    }
+  }
+
+  @Override
+  public void onNodeSuccess(
+      @NonNull Request request,
+      long latencyNanos,
+      @NonNull DriverExecutionProfile executionProfile,
+      @NonNull Node node) {
+    for (RequestTracker tracker : trackers) {
+      try {
+        tracker.onNodeSuccess(request, latencyNanos, executionProfile, node);
+      } catch (Throwable t) {
+        Loggers.warnWithException(
+            LOG, "Unexpected error while invoking {}.onNodeSuccess", tracker, t);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws Exception {
+    clientTracker.close();
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.api.core.specex;
+
+import static com.datastax.oss.driver.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverConfig;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.internal.core.specex.PercentileSpeculativeExecutionPolicy;
+import java.time.Duration;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class PercentileSpeculativeExecutionPolicyTest {
+  @Mock private DriverContext context;
+  @Mock private DriverConfig config;
+  @Mock private DriverExecutionProfile defaultProfile;
+  @Mock private DriverExecutionProfile otherProfile;
+  @Mock private Request request;
+  @Mock private Node node1;
+  @Mock private Node node2;
+
+  @Before
+  public void setup() {
+    when(context.getConfig()).thenReturn(config);
+    when(config.getProfile(DriverExecutionProfile.DEFAULT_NAME)).thenReturn(defaultProfile);
+  }
+
+  private PercentileSpeculativeExecutionPolicy newPolicy(int maxExecutions, double percentile) {
+    when(defaultProfile.getInt(DefaultDriverOption.SPECULATIVE_EXECUTION_MAX))
+        .thenReturn(maxExecutions);
+    when(defaultProfile.getDouble(DefaultDriverOption.SPECULATIVE_EXECUTION_PERCENTILE, 99.0))
+        .thenReturn(percentile);
+    when(defaultProfile.getDuration(
+            DefaultDriverOption.SPECULATIVE_EXECUTION_MIN_DELAY, Duration.ofMillis(5)))
+        .thenReturn(Duration.ofMillis(5));
+    when(defaultProfile.getDuration(
+            DefaultDriverOption.SPECULATIVE_EXECUTION_MAX_DELAY, Duration.ofSeconds(1)))
+        .thenReturn(Duration.ofSeconds(1));
+    when(defaultProfile.getInt(DefaultDriverOption.SPECULATIVE_EXECUTION_MIN_SAMPLES, 100))
+        .thenReturn(10);
+    // Recompute the percentile on every call
+    when(defaultProfile.getDuration(
+            DefaultDriverOption.SPECULATIVE_EXECUTION_REFRESH_INTERVAL, Duration.ofSeconds(5)))
+        .thenReturn(Duration.ZERO);
+    PercentileSpeculativeExecutionPolicy policy =
+        new PercentileSpeculativeExecutionPolicy(context, DriverExecutionProfile.DEFAULT_NAME);
+    when(defaultProfile.getName()).thenReturn(DriverExecutionProfile.DEFAULT_NAME);
+    when(context.getSpeculativeExecutionPolicy(DriverExecutionProfile.DEFAULT_NAME))
+        .thenReturn(policy);
+    return policy;
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void should_fail_if_percentile_out_of_range() {
+    newPolicy(3, 100.0);
+  }
+
+  @Test
+  public void should_use_max_delay_until_enough_samples() {
+    PercentileSpeculativeExecutionPolicy policy = newPolicy(3, 50.0);
+
+    assertThat(policy.nextExecution(node1, null, request, 1)).isEqualTo(1000);
+    record(policy, node1, 5, 10);
+    assertThat(policy.nextExecution(node1, null, request, 1)).isEqualTo(1000);
+  }
+
+  @Test
+  public void should_return_percentile_of_node_latencies() {
+    PercentileSpeculativeExecutionPolicy policy = newPolicy(3, 50.0);
+    for (int i = 1; i <= 100; i++) {
+      record(policy, node1, 1, i);
+    }
+
+    assertThat(policy.nextExecution(node1, null, request, 1)).isBetween(49L, 51L);
+    // Other nodes are tracked separately
+    assertThat(policy.nextExecution(node2, null, request, 1)).isEqualTo(1000);
+  }
+
+  @Test
+  public void should_bound_delay() {
+    PercentileSpeculativeExecutionPolicy policy = newPolicy(3, 50.0);
+
+    record(policy, node1, 100, 0);
+    assertThat(policy.nextExecution(node1, null, request, 1)).isEqualTo(5);
+
+    record(policy, node1, 100, 60_000);
+    assertThat(policy.nextExecution(node1, null, request, 1)).isEqualTo(1000);
+  }
+
+  @Test
+  public void should_stop_at_max_executions() {
+    PercentileSpeculativeExecutionPolicy policy = newPolicy(3, 50.0);
+
+    assertThat(policy.nextExecution(node1, null, request, 2)).isPositive();
+    assertThat(policy.nextExecution(node1, null, request, 3)).isNegative();
+  }
+
+  @Test
+  public void should_ignore_requests_of_other_profiles() {
+    PercentileSpeculativeExecutionPolicy policy = newPolicy(3, 50.0);
+    when(otherProfile.getName()).thenReturn("other");
+
+    for (int i = 0; i < 100; i++) {
+      policy.onNodeSuccess(request, 10_000_000, otherProfile, node1);
+    }
+    assertThat(policy.nextExecution(node1, null, request, 1)).isEqualTo(1000);
+  }
+
+  private void record(
+      PercentileSpeculativeExecutionPolicy policy, Node node, int count, long latencyMillis) {
+    for (int i = 0; i < count; i++) {
+      policy.onNodeSuccess(request, latencyMillis * 1_000_000, defaultProfile, node);
+    }
+  }
+}
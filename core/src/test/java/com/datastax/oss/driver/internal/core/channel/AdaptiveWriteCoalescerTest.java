@@ -0,0 +1,137 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.channel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverConfig;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.internal.core.context.InternalDriverContext;
+import com.datastax.oss.driver.internal.core.metrics.MetricsFactory;
+import com.datastax.oss.driver.internal.core.metrics.SessionMetricUpdater;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AdaptiveWriteCoalescerTest {
+
+  private static final int QUEUE_CAPACITY = 4;
+
+  @Mock private InternalDriverContext context;
+  @Mock private DriverConfig config;
+  @Mock private DriverExecutionProfile defaultProfile;
+  @Mock private MetricsFactory metricsFactory;
+  @Mock private SessionMetricUpdater metricUpdater;
+
+  private EmbeddedChannel channel;
+  private AdaptiveWriteCoalescer coalescer;
+
+  @Before
+  public void setup() {
+    when(context.getConfig()).thenReturn(config);
+    when(config.getDefaultProfile()).thenReturn(defaultProfile);
+    when(defaultProfile.getInt(DefaultDriverOption.COALESCER_QUEUE_CAPACITY))
+        .thenReturn(QUEUE_CAPACITY);
+    when(defaultProfile.getInt(DefaultDriverOption.COALESCER_BATCH_THRESHOLD)).thenReturn(100);
+    when(defaultProfile.getDuration(DefaultDriverOption.COALESCER_INTERVAL))
+        .thenReturn(Duration.ofNanos(10000));
+    when(context.getMetricsFactory()).thenReturn(metricsFactory);
+    when(metricsFactory.getSessionUpdater()).thenReturn(metricUpdater);
+
+    channel = new EmbeddedChannel();
+    coalescer = new AdaptiveWriteCoalescer(context);
+  }
+
+  @Test
+  public void should_flush_writes_in_order() {
+    // When
+    List<ChannelFuture> futures = write(0, 3);
+
+    // Then
+    // Nothing is written until the event loop processes the queue
+    assertThat(channel.outboundMessages()).isEmpty();
+    channel.runPendingTasks();
+    assertOutbound(0, 3);
+    for (ChannelFuture future : futures) {
+      assertThat(future.isSuccess()).isTrue();
+    }
+  }
+
+  @Test
+  public void should_flush_immediately_at_low_load() {
+    // Given
+    write(0, 1);
+    channel.runPendingTasks();
+    assertOutbound(0, 1);
+
+    // When
+    write(1, 2);
+
+    // Then
+    // The previous run has stopped, the new write triggers another one
+    channel.runPendingTasks();
+    assertOutbound(1, 2);
+  }
+
+  @Test
+  public void should_not_block_and_preserve_order_if_queue_is_full() {
+    // When
+    // The embedded channel's event loop is the current thread: if the producer waited for the
+    // queue to be drained, this would never return.
+    List<ChannelFuture> futures = write(0, QUEUE_CAPACITY * 3);
+
+    // Then
+    channel.runPendingTasks();
+    assertOutbound(0, QUEUE_CAPACITY * 3);
+    for (ChannelFuture future : futures) {
+      assertThat(future.isSuccess()).isTrue();
+    }
+
+    // When
+    // The overflow queue has been emptied, so new writes go to the bounded queue again
+    write(QUEUE_CAPACITY * 3, QUEUE_CAPACITY * 3 + 2);
+
+    // Then
+    channel.runPendingTasks();
+    assertOutbound(QUEUE_CAPACITY * 3, QUEUE_CAPACITY * 3 + 2);
+  }
+
+  private List<ChannelFuture> write(int from, int to) {
+    List<ChannelFuture> futures = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      futures.add(coalescer.writeAndFlush(channel, i));
+    }
+    return futures;
+  }
+
+  private void assertOutbound(int from, int to) {
+    for (int i = from; i < to; i++) {
+      Object message = channel.readOutbound();
+      assertThat(message).isEqualTo(i);
+    }
+    assertThat(channel.outboundMessages()).isEmpty();
+  }
+}
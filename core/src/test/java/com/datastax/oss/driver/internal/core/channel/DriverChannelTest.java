@@ -16,6 +16,7 @@
 package com.datastax.oss.driver.internal.core.channel;
 
 import static com.datastax.oss.driver.Assertions.assertThat;
+import static org.mockito.Mockito.when;
 
 import com.datastax.oss.driver.api.core.DefaultProtocolVersion;
 import com.datastax.oss.driver.api.core.connection.ClosedConnectionException;
@@ -48,6 +49,8 @@ public class DriverChannelTest extends ChannelHandlerTestBase {
   public void setup() {
     super.setup();
     MockitoAnnotations.initMocks(this);
+    // Sizes the in-flight table, must cover all the ids returned by acquire() in the tests
+    when(streamIds.getMaxAvailableIds()).thenReturn(128);
     channel
         .pipeline()
         .addLast(
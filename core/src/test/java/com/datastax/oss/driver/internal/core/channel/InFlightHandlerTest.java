@@ -57,6 +57,8 @@ public class InFlightHandlerTest extends ChannelHandlerTestBase {
   public void setup() {
     super.setup();
     MockitoAnnotations.initMocks(this);
+    // Sizes the in-flight table, must cover all the ids returned by acquire() in the tests
+    when(streamIds.getMaxAvailableIds()).thenReturn(128);
   }
 
   @Test
@@ -116,6 +118,44 @@ public class InFlightHandlerTest extends ChannelHandlerTestBase {
     verify(streamIds).release(42);
   }
 
+  @Test
+  public void should_measure_latency_of_completed_request() {
+    // Given
+    addToPipeline();
+    InFlightHandler handler = channel.pipeline().get(InFlightHandler.class);
+    when(streamIds.acquire()).thenReturn(42);
+    MockResponseCallback responseCallback = new MockResponseCallback();
+    channel.writeAndFlush(
+        new DriverChannel.RequestMessage(QUERY, false, Frame.NO_PAYLOAD, responseCallback));
+    Frame requestFrame = readOutboundFrame();
+    assertThat(handler.getLatencyNanos()).isEqualTo(0);
+
+    // When
+    writeInboundFrame(buildInboundFrame(requestFrame, Void.INSTANCE));
+
+    // Then
+    assertThat(handler.getLatencyNanos()).isGreaterThan(0);
+  }
+
+  @Test
+  public void should_not_measure_latency_of_cancelled_request() {
+    // Given
+    addToPipeline();
+    InFlightHandler handler = channel.pipeline().get(InFlightHandler.class);
+    when(streamIds.acquire()).thenReturn(42);
+    MockResponseCallback responseCallback = new MockResponseCallback();
+    channel.writeAndFlush(
+        new DriverChannel.RequestMessage(QUERY, false, Frame.NO_PAYLOAD, responseCallback));
+    Frame requestFrame = readOutboundFrame();
+
+    // When
+    channel.writeAndFlush(responseCallback); // means cancellation (see DriverChannel#cancel)
+    writeInboundFrame(buildInboundFrame(requestFrame, Void.INSTANCE));
+
+    // Then
+    assertThat(handler.getLatencyNanos()).isEqualTo(0);
+  }
+
   @Test
   public void should_notify_response_promise_when_decoding_fails() throws Throwable {
     // Given
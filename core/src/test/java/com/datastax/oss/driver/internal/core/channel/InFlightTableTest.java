@@ -0,0 +1,141 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.channel;
+
+import static com.datastax.oss.driver.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class InFlightTableTest {
+
+  @Test
+  public void should_track_in_flight_callbacks_by_stream_id() {
+    InFlightTable table = new InFlightTable(8);
+    MockResponseCallback callback = new MockResponseCallback();
+
+    table.putInFlight(3, callback);
+
+    assertThat(table.isUsed(3)).isTrue();
+    assertThat(table.getInFlight(3)).isSameAs(callback);
+    assertThat(table.getOrphaned(3)).isNull();
+    assertThat(table.getInFlightCount()).isEqualTo(1);
+
+    assertThat(table.removeInFlight(3)).isSameAs(callback);
+    assertThat(table.isUsed(3)).isFalse();
+    assertThat(table.getInFlightCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void should_ignore_out_of_range_stream_ids() {
+    InFlightTable table = new InFlightTable(8);
+
+    assertThat(table.isUsed(8)).isFalse();
+    assertThat(table.isUsed(-1)).isFalse();
+    assertThat(table.getInFlight(42)).isNull();
+    assertThat(table.getOrphaned(42)).isNull();
+    assertThat(table.removeInFlight(42)).isNull();
+    assertThat(table.removeOrphaned(42)).isNull();
+  }
+
+  @Test
+  public void should_find_stream_id_from_callback() {
+    InFlightTable table = new InFlightTable(8);
+    MockResponseCallback callback1 = new MockResponseCallback();
+    MockResponseCallback callback2 = new MockResponseCallback();
+    table.putInFlight(1, callback1);
+    table.putInFlight(5, callback2);
+
+    assertThat(table.removeInFlight(callback2)).isEqualTo(5);
+    assertThat(table.removeInFlight(callback2)).isEqualTo(-1);
+    assertThat(table.getInFlight(1)).isSameAs(callback1);
+    assertThat(table.getInFlightCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_keep_reverse_lookup_consistent_with_many_callbacks() {
+    int max = 1024;
+    InFlightTable table = new InFlightTable(max);
+    List<MockResponseCallback> callbacks = new ArrayList<>();
+    for (int i = 0; i < max; i++) {
+      MockResponseCallback callback = new MockResponseCallback();
+      callbacks.add(callback);
+      table.putInFlight(i, callback);
+    }
+    // Remove every other callback, to exercise deletions in the middle of probe sequences
+    for (int i = 0; i < max; i += 2) {
+      assertThat(table.removeInFlight(callbacks.get(i))).isEqualTo(i);
+    }
+    for (int i = 1; i < max; i += 2) {
+      assertThat(table.removeInFlight(callbacks.get(i))).isEqualTo(i);
+    }
+    assertThat(table.getInFlightCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void should_track_orphaned_callbacks() {
+    InFlightTable table = new InFlightTable(8);
+    MockResponseCallback callback = new MockResponseCallback();
+    table.putInFlight(2, callback);
+
+    int streamId = table.removeInFlight(callback);
+    table.putOrphaned(streamId, callback);
+
+    assertThat(table.isUsed(2)).isTrue();
+    assertThat(table.getInFlight(2)).isNull();
+    assertThat(table.getOrphaned(2)).isSameAs(callback);
+    assertThat(table.getOrphanedCount()).isEqualTo(1);
+    // Not in flight anymore, so can't be found by callback
+    assertThat(table.removeInFlight(callback)).isEqualTo(-1);
+
+    assertThat(table.removeOrphaned(2)).isSameAs(callback);
+    assertThat(table.isUsed(2)).isFalse();
+    assertThat(table.getOrphanedCount()).isEqualTo(0);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_if_stream_id_already_used() {
+    InFlightTable table = new InFlightTable(8);
+    table.putInFlight(0, new MockResponseCallback());
+    table.putInFlight(0, new MockResponseCallback());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_if_callback_already_in_flight() {
+    InFlightTable table = new InFlightTable(8);
+    MockResponseCallback callback = new MockResponseCallback();
+    table.putInFlight(0, callback);
+    table.putInFlight(1, callback);
+  }
+
+  @Test
+  public void should_clear_in_flight_callbacks_only() {
+    InFlightTable table = new InFlightTable(8);
+    MockResponseCallback callback1 = new MockResponseCallback();
+    MockResponseCallback callback2 = new MockResponseCallback();
+    MockResponseCallback callback3 = new MockResponseCallback();
+    table.putInFlight(0, callback1);
+    table.putInFlight(1, callback2);
+    table.putOrphaned(2, callback3);
+
+    assertThat(table.clearInFlight()).containsOnly(callback1, callback2);
+    assertThat(table.getInFlightCount()).isEqualTo(0);
+    assertThat(table.isUsed(0)).isFalse();
+    assertThat(table.isUsed(1)).isFalse();
+    assertThat(table.getOrphaned(2)).isSameAs(callback3);
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.channel;
+
+import java.util.BitSet;
+
+/**
+ * Compares the cost of acquiring and releasing stream ids with {@link StreamIdGenerator} and with
+ * the previous implementation, that always searched for the first clear bit of a {@link BitSet}.
+ *
+ * <p>This is not a unit test (it is not picked up by the build), run it manually with the test
+ * classpath. For each number of in-flight requests, the generator is first filled up to that level;
+ * then each operation releases a random in-flight id and acquires a new one, which simulates
+ * responses that come back out of order while the load stays constant. The last level (a single
+ * free id) is the worst case for both implementations, since the whole bitmap has to be scanned.
+ */
+public class StreamIdGeneratorBenchmark {
+
+  private static final int MAX_IDS = 32768;
+  private static final int[] IN_FLIGHT_COUNTS = {1024, 16384, 32000, 32767};
+  private static final int WARMUP_OPERATIONS = 5_000_000;
+  private static final int MEASURE_OPERATIONS = 20_000_000;
+
+  public static void main(String[] args) {
+    System.out.printf("%-10s %20s %20s%n", "in-flight", "BitSet (ns/op)", "bitmap (ns/op)");
+    for (int inFlight : IN_FLIGHT_COUNTS) {
+      double bitSet = measure(new BitSetIds(MAX_IDS), inFlight);
+      double bitmap = measure(new BitmapIds(new StreamIdGenerator(MAX_IDS)), inFlight);
+      System.out.printf("%-10d %20.1f %20.1f%n", inFlight, bitSet, bitmap);
+    }
+  }
+
+  private static double measure(Ids ids, int inFlightCount) {
+    int[] inFlight = new int[inFlightCount];
+    for (int i = 0; i < inFlightCount; i++) {
+      inFlight[i] = ids.acquire();
+    }
+    long seed = 42;
+    long checksum = 0;
+    long start = 0;
+    for (int i = 0; i < WARMUP_OPERATIONS + MEASURE_OPERATIONS; i++) {
+      if (i == WARMUP_OPERATIONS) {
+        start = System.nanoTime();
+      }
+      // xorshift, cheaper than Random and doesn't allocate
+      seed ^= seed << 13;
+      seed ^= seed >>> 7;
+      seed ^= seed << 17;
+      int slot = (int) ((seed >>> 1) % inFlightCount);
+      ids.release(inFlight[slot]);
+      int id = ids.acquire();
+      inFlight[slot] = id;
+      checksum += id;
+    }
+    long elapsed = System.nanoTime() - start;
+    if (checksum < 0) {
+      // Never happens, but prevents the JIT from eliminating the loop
+      System.out.println(checksum);
+    }
+    return (double) elapsed / MEASURE_OPERATIONS;
+  }
+
+  private interface Ids {
+    int acquire();
+
+    void release(int id);
+  }
+
+  private static class BitmapIds implements Ids {
+    private final StreamIdGenerator generator;
+
+    private BitmapIds(StreamIdGenerator generator) {
+      this.generator = generator;
+    }
+
+    @Override
+    public int acquire() {
+      return generator.acquire();
+    }
+
+    @Override
+    public void release(int id) {
+      generator.release(id);
+    }
+  }
+
+  /** The algorithm that {@link StreamIdGenerator} used before the rotating cursor. */
+  private static class BitSetIds implements Ids {
+    private final int maxAvailableIds;
+    private final BitSet ids;
+    private volatile int availableIds;
+
+    private BitSetIds(int maxAvailableIds) {
+      this.maxAvailableIds = maxAvailableIds;
+      this.ids = new BitSet(maxAvailableIds);
+      this.availableIds = maxAvailableIds;
+    }
+
+    @Override
+    @SuppressWarnings("NonAtomicVolatileUpdate")
+    public int acquire() {
+      int id = ids.nextClearBit(0);
+      if (id >= maxAvailableIds) {
+        return -1;
+      }
+      ids.set(id);
+      availableIds--;
+      return id;
+    }
+
+    @Override
+    @SuppressWarnings("NonAtomicVolatileUpdate")
+    public void release(int id) {
+      if (!ids.get(id)) {
+        throw new IllegalStateException("Tried to release id that hadn't been borrowed: " + id);
+      }
+      availableIds++;
+      ids.clear(id);
+    }
+  }
+}
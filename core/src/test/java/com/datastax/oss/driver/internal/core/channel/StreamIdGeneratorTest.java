@@ -58,4 +58,36 @@ public class StreamIdGeneratorTest {
     assertThat(generator.acquire()).isEqualTo(7);
     assertThat(generator.acquire()).isEqualTo(-1);
   }
+
+  @Test
+  public void should_not_reuse_released_id_right_away() {
+    StreamIdGenerator generator = new StreamIdGenerator(8);
+    assertThat(generator.acquire()).isEqualTo(0);
+    generator.release(0);
+    // The cursor keeps rotating, 0 only comes back after a full cycle
+    for (int i = 1; i < 8; i++) {
+      assertThat(generator.acquire()).isEqualTo(i);
+      generator.release(i);
+    }
+    assertThat(generator.acquire()).isEqualTo(0);
+  }
+
+  @Test
+  public void should_wrap_around_and_skip_borrowed_ids() {
+    StreamIdGenerator generator = new StreamIdGenerator(130);
+    for (int i = 0; i < 130; i++) {
+      generator.acquire();
+    }
+    generator.release(65);
+    generator.release(3);
+    assertThat(generator.acquire()).isEqualTo(3);
+    assertThat(generator.acquire()).isEqualTo(65);
+    assertThat(generator.acquire()).isEqualTo(-1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_to_release_id_that_was_not_borrowed() {
+    StreamIdGenerator generator = new StreamIdGenerator(8);
+    generator.release(2);
+  }
 }
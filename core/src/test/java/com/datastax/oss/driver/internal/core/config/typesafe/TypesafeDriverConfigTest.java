@@ -18,9 +18,12 @@ package com.datastax.oss.driver.internal.core.config.typesafe;
 import static com.datastax.oss.driver.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.entry;
 
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
 import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.internal.core.config.RequestOptionsSnapshot;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import org.junit.Rule;
@@ -151,6 +154,39 @@ public class TypesafeDriverConfigTest {
     assertThat(derivedFromProfile1.getInt(MockOptions.INT2)).isEqualTo(51);
   }
 
+  @Test
+  public void should_cache_request_options_until_reload() {
+    String request =
+        "basic.request { timeout = 2 seconds, consistency = %s, page-size = %d,"
+            + " serial-consistency = SERIAL, default-idempotence = false }\n"
+            + "advanced.request.log-warnings = true\n";
+    TypesafeDriverConfig config = parse(String.format(request, "ONE", 5000));
+    TypesafeDriverExecutionProfile profile =
+        (TypesafeDriverExecutionProfile) config.getDefaultProfile();
+    TypesafeDriverExecutionProfile derived =
+        (TypesafeDriverExecutionProfile)
+            profile.withString(DefaultDriverOption.REQUEST_CONSISTENCY, "QUORUM");
+
+    RequestOptionsSnapshot options = profile.getRequestOptions();
+    assertThat(options.getTimeout()).isEqualTo(Duration.ofSeconds(2));
+    assertThat(options.getConsistency()).isEqualTo("ONE");
+    assertThat(options.getPageSize()).isEqualTo(5000);
+    assertThat(options.getSerialConsistency()).isEqualTo("SERIAL");
+    assertThat(options.isDefaultIdempotence()).isFalse();
+    assertThat(options.isLogWarnings()).isTrue();
+    assertThat(profile.getRequestOptions()).isSameAs(options);
+    assertThat(derived.getRequestOptions().getConsistency()).isEqualTo("QUORUM");
+
+    config.reload(ConfigFactory.parseString(String.format(request, "TWO", 100)));
+
+    RequestOptionsSnapshot reloaded = profile.getRequestOptions();
+    assertThat(reloaded).isNotSameAs(options);
+    assertThat(reloaded.getConsistency()).isEqualTo("TWO");
+    assertThat(reloaded.getPageSize()).isEqualTo(100);
+    assertThat(derived.getRequestOptions().getConsistency()).isEqualTo("QUORUM");
+    assertThat(derived.getRequestOptions().getPageSize()).isEqualTo(100);
+  }
+
   @Test
   public void should_enumerate_options() {
     TypesafeDriverConfig config =
@@ -0,0 +1,213 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.context;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverConfig;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import java.time.Duration;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultNettyOptionsTest {
+
+  private static final int PAGE_SIZE = 8192;
+  private static final int DEFAULT_CHUNK_SIZE =
+      PooledByteBufAllocator.defaultPageSize() << PooledByteBufAllocator.defaultMaxOrder();
+
+  @Mock private DriverExecutionProfile config;
+  @Mock private DriverConfig driverConfig;
+  @Mock private InternalDriverContext context;
+
+  @Test
+  public void should_use_nio_transport_by_default() {
+    DefaultNettyOptions options = newOptions(false);
+    try {
+      assertThat(options.ioEventLoopGroup()).isInstanceOf(NioEventLoopGroup.class);
+      assertThat(options.channelClass()).isEqualTo(NioSocketChannel.class);
+    } finally {
+      options.onClose().syncUninterruptibly();
+    }
+  }
+
+  @Test
+  public void should_use_native_transport_if_available_or_fall_back_to_nio() {
+    DefaultNettyOptions options = newOptions(true);
+    try {
+      // The epoll artifact is in the test classpath, but the native library only loads on Linux
+      if (Epoll.isAvailable()) {
+        assertThat(options.ioEventLoopGroup()).isInstanceOf(EpollEventLoopGroup.class);
+        assertThat(options.channelClass()).isEqualTo(EpollSocketChannel.class);
+      } else {
+        assertThat(options.ioEventLoopGroup()).isInstanceOf(NioEventLoopGroup.class);
+        assertThat(options.channelClass()).isEqualTo(NioSocketChannel.class);
+      }
+    } finally {
+      options.onClose().syncUninterruptibly();
+    }
+  }
+
+  @Test
+  public void should_fall_back_to_nio_if_epoll_not_in_classpath() {
+    // This is what happens with the shaded jar, that doesn't bundle the relocated epoll classes
+    String missingClassName = Channel.class.getPackage().getName() + ".missing.Epoll";
+
+    assertThat(DefaultNettyOptions.isNativeTransportAvailable(missingClassName, "test")).isFalse();
+  }
+
+  @Test
+  public void should_use_default_allocator() {
+    when(config.getString(DefaultDriverOption.NETTY_ALLOCATOR_TYPE)).thenReturn("DEFAULT");
+
+    assertThat(DefaultNettyOptions.buildAllocator(config, "test"))
+        .isSameAs(ByteBufAllocator.DEFAULT);
+  }
+
+  @Test
+  public void should_build_unpooled_allocator() {
+    when(config.getString(DefaultDriverOption.NETTY_ALLOCATOR_TYPE)).thenReturn("UNPOOLED");
+
+    assertThat(DefaultNettyOptions.buildAllocator(config, "test"))
+        .isInstanceOf(UnpooledByteBufAllocator.class);
+  }
+
+  @Test
+  public void should_build_pooled_direct_allocator_with_netty_defaults() {
+    when(config.getString(DefaultDriverOption.NETTY_ALLOCATOR_TYPE)).thenReturn("POOLED_DIRECT");
+    when(config.isDefined(DefaultDriverOption.NETTY_ALLOCATOR_ARENA_COUNT)).thenReturn(false);
+    when(config.isDefined(DefaultDriverOption.NETTY_ALLOCATOR_CHUNK_SIZE)).thenReturn(false);
+
+    ByteBufAllocator allocator = DefaultNettyOptions.buildAllocator(config, "test");
+
+    assertThat(allocator).isInstanceOf(PooledByteBufAllocator.class);
+    assertThat(allocator).isNotSameAs(PooledByteBufAllocator.DEFAULT);
+    PooledByteBufAllocator pooled = (PooledByteBufAllocator) allocator;
+    assertThat(pooled.metric().numDirectArenas())
+        .isEqualTo(PooledByteBufAllocator.defaultNumDirectArena());
+    assertThat(pooled.metric().chunkSize()).isEqualTo(DEFAULT_CHUNK_SIZE);
+    assertPrefersDirect(allocator, true);
+  }
+
+  @Test
+  public void should_build_pooled_heap_allocator_with_custom_settings() {
+    when(config.getString(DefaultDriverOption.NETTY_ALLOCATOR_TYPE)).thenReturn("POOLED_HEAP");
+    when(config.isDefined(DefaultDriverOption.NETTY_ALLOCATOR_ARENA_COUNT)).thenReturn(true);
+    when(config.getInt(DefaultDriverOption.NETTY_ALLOCATOR_ARENA_COUNT)).thenReturn(2);
+    when(config.isDefined(DefaultDriverOption.NETTY_ALLOCATOR_CHUNK_SIZE)).thenReturn(true);
+    when(config.getBytes(DefaultDriverOption.NETTY_ALLOCATOR_CHUNK_SIZE))
+        .thenReturn(4L * 1024 * 1024);
+
+    ByteBufAllocator allocator = DefaultNettyOptions.buildAllocator(config, "test");
+
+    assertThat(allocator).isInstanceOf(PooledByteBufAllocator.class);
+    PooledByteBufAllocator pooled = (PooledByteBufAllocator) allocator;
+    assertThat(pooled.metric().numHeapArenas()).isEqualTo(2);
+    assertThat(pooled.metric().numDirectArenas()).isEqualTo(2);
+    assertThat(pooled.metric().chunkSize()).isEqualTo(4 * 1024 * 1024);
+    assertPrefersDirect(allocator, false);
+  }
+
+  @Test
+  public void should_fall_back_to_default_allocator_if_type_unknown() {
+    when(config.getString(DefaultDriverOption.NETTY_ALLOCATOR_TYPE)).thenReturn("POOLED");
+
+    assertThat(DefaultNettyOptions.buildAllocator(config, "test"))
+        .isSameAs(ByteBufAllocator.DEFAULT);
+  }
+
+  @Test
+  public void should_fall_back_to_default_chunk_size_if_invalid() {
+    when(config.getString(DefaultDriverOption.NETTY_ALLOCATOR_TYPE)).thenReturn("POOLED_DIRECT");
+    when(config.isDefined(DefaultDriverOption.NETTY_ALLOCATOR_ARENA_COUNT)).thenReturn(false);
+    when(config.isDefined(DefaultDriverOption.NETTY_ALLOCATOR_CHUNK_SIZE)).thenReturn(true);
+    when(config.getBytes(DefaultDriverOption.NETTY_ALLOCATOR_CHUNK_SIZE)).thenReturn(1000000L);
+
+    ByteBufAllocator allocator = DefaultNettyOptions.buildAllocator(config, "test");
+
+    assertThat(allocator).isInstanceOf(PooledByteBufAllocator.class);
+    assertThat(((PooledByteBufAllocator) allocator).metric().chunkSize())
+        .isEqualTo(DEFAULT_CHUNK_SIZE);
+  }
+
+  @Test
+  public void should_compute_max_order() {
+    assertThat(DefaultNettyOptions.computeMaxOrder(PAGE_SIZE, PAGE_SIZE)).isEqualTo(0);
+    assertThat(DefaultNettyOptions.computeMaxOrder(2 * PAGE_SIZE, PAGE_SIZE)).isEqualTo(1);
+    assertThat(DefaultNettyOptions.computeMaxOrder(16 * 1024 * 1024, PAGE_SIZE)).isEqualTo(11);
+    assertThat(DefaultNettyOptions.computeMaxOrder((long) PAGE_SIZE << 14, PAGE_SIZE))
+        .isEqualTo(14);
+  }
+
+  @Test
+  public void should_reject_invalid_chunk_sizes() {
+    // not a multiple of the page size
+    assertThat(DefaultNettyOptions.computeMaxOrder(PAGE_SIZE + 1, PAGE_SIZE)).isEqualTo(-1);
+    // a multiple, but not a power of two
+    assertThat(DefaultNettyOptions.computeMaxOrder(3 * PAGE_SIZE, PAGE_SIZE)).isEqualTo(-1);
+    // smaller than a page
+    assertThat(DefaultNettyOptions.computeMaxOrder(PAGE_SIZE / 2, PAGE_SIZE)).isEqualTo(-1);
+    // too large
+    assertThat(DefaultNettyOptions.computeMaxOrder((long) PAGE_SIZE << 15, PAGE_SIZE))
+        .isEqualTo(-1);
+    assertThat(DefaultNettyOptions.computeMaxOrder(Long.MAX_VALUE, PAGE_SIZE)).isEqualTo(-1);
+  }
+
+  private DefaultNettyOptions newOptions(boolean nativeTransportEnabled) {
+    when(context.getConfig()).thenReturn(driverConfig);
+    when(context.getSessionName()).thenReturn("test");
+    when(driverConfig.getDefaultProfile()).thenReturn(config);
+    when(config.getInt(DefaultDriverOption.NETTY_IO_SIZE)).thenReturn(1);
+    when(config.getInt(DefaultDriverOption.NETTY_IO_SHUTDOWN_QUIET_PERIOD)).thenReturn(0);
+    when(config.getInt(DefaultDriverOption.NETTY_IO_SHUTDOWN_TIMEOUT)).thenReturn(15);
+    when(config.getString(DefaultDriverOption.NETTY_IO_SHUTDOWN_UNIT)).thenReturn("SECONDS");
+    when(config.getInt(DefaultDriverOption.NETTY_ADMIN_SIZE)).thenReturn(1);
+    when(config.getInt(DefaultDriverOption.NETTY_ADMIN_SHUTDOWN_QUIET_PERIOD)).thenReturn(0);
+    when(config.getInt(DefaultDriverOption.NETTY_ADMIN_SHUTDOWN_TIMEOUT)).thenReturn(15);
+    when(config.getString(DefaultDriverOption.NETTY_ADMIN_SHUTDOWN_UNIT)).thenReturn("SECONDS");
+    when(config.getBoolean(DefaultDriverOption.NETTY_IO_NATIVE_TRANSPORT_ENABLED))
+        .thenReturn(nativeTransportEnabled);
+    when(config.getDuration(DefaultDriverOption.NETTY_TIMER_TICK_DURATION))
+        .thenReturn(Duration.ofMillis(100));
+    when(config.getInt(DefaultDriverOption.NETTY_TIMER_TICKS_PER_WHEEL)).thenReturn(2048);
+    when(config.getString(DefaultDriverOption.NETTY_ALLOCATOR_TYPE)).thenReturn("DEFAULT");
+    return new DefaultNettyOptions(context);
+  }
+
+  private static void assertPrefersDirect(ByteBufAllocator allocator, boolean expected) {
+    ByteBuf buffer = allocator.buffer();
+    try {
+      assertThat(buffer.isDirect()).isEqualTo(expected);
+    } finally {
+      buffer.release();
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.cql;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.internal.core.metadata.DefaultNode;
+import com.datastax.oss.driver.internal.core.metrics.NodeMetricUpdater;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Measures the memory allocated by {@link CqlRequestHandler} for a request that succeeds on the
+ * first node, using the JVM's per-thread allocation counter.
+ *
+ * <p>This is not a unit test (it is not picked up by the build), run it manually with the test
+ * classpath. The request is driven through a {@link RequestHandlerTestHarness}, whose mocks also
+ * allocate when the handler invokes them: the absolute numbers are higher than in a real session,
+ * but the difference between two versions of the handler is meaningful. To get a baseline, run the
+ * same class against a previous revision of the handler.
+ *
+ * <p>The harness only supports one request, so a new one is built for each iteration, outside of
+ * the measured section.
+ */
+public class CqlRequestHandlerAllocationBenchmark {
+
+  private static final SimpleStatement STATEMENT = SimpleStatement.newInstance("mock query");
+  private static final int WARMUP_ITERATIONS = 10_000;
+  private static final int MEASURE_ITERATIONS = 10_000;
+
+  private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  public static void main(String[] args) {
+    if (!THREAD_BEAN.isThreadAllocatedMemorySupported()) {
+      throw new IllegalStateException("This JVM does not support allocation measurement");
+    }
+    THREAD_BEAN.setThreadAllocatedMemoryEnabled(true);
+
+    // Stub-only mocks don't record their invocations, so they don't allocate more and more over
+    // the iterations
+    DefaultNode node = mock(DefaultNode.class, withSettings().stubOnly());
+    NodeMetricUpdater nodeMetricUpdater = mock(NodeMetricUpdater.class, withSettings().stubOnly());
+    when(node.getMetricUpdater()).thenReturn(nodeMetricUpdater);
+
+    long threadId = Thread.currentThread().getId();
+    // The cost of reading the counter itself
+    long calibration =
+        -THREAD_BEAN.getThreadAllocatedBytes(threadId)
+            + THREAD_BEAN.getThreadAllocatedBytes(threadId);
+
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      executeRequest(node, threadId);
+    }
+    long total = 0;
+    for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+      total += executeRequest(node, threadId) - calibration;
+    }
+    System.out.printf(
+        "Allocated %d bytes per request (average over %d requests)%n",
+        total / MEASURE_ITERATIONS, MEASURE_ITERATIONS);
+  }
+
+  private static long executeRequest(DefaultNode node, long threadId) {
+    try (RequestHandlerTestHarness harness =
+        RequestHandlerTestHarness.builder()
+            .withResponse(
+                node,
+                CqlRequestHandlerTestBase.defaultFrameOf(CqlRequestHandlerTestBase.singleRow()))
+            .build()) {
+
+      long before = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+      CompletableFuture<AsyncResultSet> result =
+          new CqlRequestHandler(STATEMENT, harness.getSession(), harness.getContext(), "benchmark")
+              .handle()
+              .toCompletableFuture();
+      long after = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+
+      // The harness completes the request synchronously
+      if (!result.isDone() || result.isCompletedExceptionally()) {
+        throw new AssertionError("Expected the request to succeed: " + result);
+      }
+      return after - before;
+    }
+  }
+}
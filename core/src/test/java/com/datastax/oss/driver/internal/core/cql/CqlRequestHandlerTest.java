@@ -17,13 +17,19 @@ package com.datastax.oss.driver.internal.core.cql;
 
 import static com.datastax.oss.driver.Assertions.assertThat;
 import static com.datastax.oss.driver.Assertions.assertThatStage;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.datastax.oss.driver.api.core.AllNodesFailedException;
 import com.datastax.oss.driver.api.core.CqlIdentifier;
 import com.datastax.oss.driver.api.core.DriverTimeoutException;
 import com.datastax.oss.driver.api.core.NoNodeAvailableException;
+import com.datastax.oss.driver.api.core.RequestThrottlingException;
 import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
 import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
 import com.datastax.oss.driver.api.core.cql.BoundStatement;
@@ -31,9 +37,17 @@ import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
 import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.servererrors.BootstrappingException;
+import com.datastax.oss.driver.internal.core.channel.DriverChannel;
+import com.datastax.oss.driver.internal.core.channel.ResponseCallback;
 import com.datastax.oss.driver.internal.core.session.RepreparePayload;
+import com.datastax.oss.driver.internal.core.session.throttling.NodeConcurrencyLimiter;
 import com.datastax.oss.driver.internal.core.util.concurrent.CapturingTimer.CapturedTimeout;
+import com.datastax.oss.protocol.internal.Message;
+import com.datastax.oss.protocol.internal.ProtocolConstants;
 import com.datastax.oss.protocol.internal.request.Prepare;
+import com.datastax.oss.protocol.internal.response.Error;
 import com.datastax.oss.protocol.internal.response.error.Unprepared;
 import com.datastax.oss.protocol.internal.response.result.Prepared;
 import com.datastax.oss.protocol.internal.response.result.SetKeyspace;
@@ -42,6 +56,7 @@ import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -84,6 +99,139 @@ public class CqlRequestHandlerTest extends CqlRequestHandlerTestBase {
     }
   }
 
+  @Test
+  public void should_prefer_node_with_writable_connection() {
+    try (RequestHandlerTestHarness harness =
+        RequestHandlerTestHarness.builder()
+            .withResponse(node1, defaultFrameOf(singleRow()))
+            .withResponse(node2, defaultFrameOf(singleRow()))
+            .build()) {
+
+      DriverChannel channel1 = harness.getChannel(node1);
+      when(channel1.isWritable()).thenReturn(false);
+
+      CompletionStage<AsyncResultSet> resultSetFuture =
+          new CqlRequestHandler(
+                  UNDEFINED_IDEMPOTENCE_STATEMENT,
+                  harness.getSession(),
+                  harness.getContext(),
+                  "test")
+              .handle();
+
+      assertThatStage(resultSetFuture)
+          .isSuccess(
+              resultSet -> {
+                ExecutionInfo executionInfo = resultSet.getExecutionInfo();
+                assertThat(executionInfo.getCoordinator()).isEqualTo(node2);
+                assertThat(executionInfo.getErrors()).isEmpty();
+              });
+      verify(channel1, never())
+          .write(any(Message.class), anyBoolean(), anyMap(), any(ResponseCallback.class));
+    }
+  }
+
+  @Test
+  public void should_use_non_writable_node_if_no_better_choice_and_keep_others_for_later() {
+    try (RequestHandlerTestHarness harness =
+        RequestHandlerTestHarness.builder()
+            .withResponse(
+                node1,
+                defaultFrameOf(
+                    new Error(ProtocolConstants.ErrorCode.IS_BOOTSTRAPPING, "mock message")))
+            .withResponse(node2, defaultFrameOf(singleRow()))
+            .build()) {
+
+      // Both non-writable: the first attempt falls back to node1, node2 is kept for the retry
+      when(harness.getChannel(node1).isWritable()).thenReturn(false);
+      when(harness.getChannel(node2).isWritable()).thenReturn(false);
+
+      CompletionStage<AsyncResultSet> resultSetFuture =
+          new CqlRequestHandler(
+                  UNDEFINED_IDEMPOTENCE_STATEMENT,
+                  harness.getSession(),
+                  harness.getContext(),
+                  "test")
+              .handle();
+
+      assertThatStage(resultSetFuture)
+          .isSuccess(
+              resultSet -> {
+                ExecutionInfo executionInfo = resultSet.getExecutionInfo();
+                assertThat(executionInfo.getCoordinator()).isEqualTo(node2);
+                assertThat(executionInfo.getErrors()).hasSize(1);
+                assertThat(executionInfo.getErrors().get(0).getKey()).isEqualTo(node1);
+                assertThat(executionInfo.getErrors().get(0).getValue())
+                    .isInstanceOf(BootstrappingException.class);
+              });
+    }
+  }
+
+  @Test
+  public void should_skip_node_that_reached_its_concurrency_limit() {
+    try (RequestHandlerTestHarness harness =
+        RequestHandlerTestHarness.builder()
+            .withMaxConcurrentRequestsPerNode(1)
+            .withResponse(node1, defaultFrameOf(singleRow()))
+            .withResponse(node2, defaultFrameOf(singleRow()))
+            .build()) {
+
+      NodeConcurrencyLimiter nodeLimiter = harness.getSession().getNodeLimiter();
+      // Simulate another request in flight on node1
+      assertThat(nodeLimiter.tryAcquire(node1)).isNotNull();
+
+      CompletionStage<AsyncResultSet> resultSetFuture =
+          new CqlRequestHandler(
+                  UNDEFINED_IDEMPOTENCE_STATEMENT,
+                  harness.getSession(),
+                  harness.getContext(),
+                  "test")
+              .handle();
+
+      assertThatStage(resultSetFuture)
+          .isSuccess(
+              resultSet -> {
+                ExecutionInfo executionInfo = resultSet.getExecutionInfo();
+                assertThat(executionInfo.getCoordinator()).isEqualTo(node2);
+                assertThat(executionInfo.getErrors()).hasSize(1);
+                Map.Entry<Node, Throwable> error = executionInfo.getErrors().get(0);
+                assertThat(error.getKey()).isEqualTo(node1);
+                assertThat(error.getValue()).isInstanceOf(RequestThrottlingException.class);
+              });
+      assertThat(nodeLimiter.getInFlight(node1)).isEqualTo(1);
+      // The permit on node2 was released when the response came in
+      assertThat(nodeLimiter.getInFlight(node2)).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void should_fail_if_all_nodes_reached_their_concurrency_limit() {
+    try (RequestHandlerTestHarness harness =
+        RequestHandlerTestHarness.builder()
+            .withMaxConcurrentRequestsPerNode(1)
+            .withResponse(node1, defaultFrameOf(singleRow()))
+            .build()) {
+
+      assertThat(harness.getSession().getNodeLimiter().tryAcquire(node1)).isNotNull();
+
+      CompletionStage<AsyncResultSet> resultSetFuture =
+          new CqlRequestHandler(
+                  UNDEFINED_IDEMPOTENCE_STATEMENT,
+                  harness.getSession(),
+                  harness.getContext(),
+                  "test")
+              .handle();
+
+      assertThatStage(resultSetFuture)
+          .isFailed(
+              error -> {
+                assertThat(error).isInstanceOf(AllNodesFailedException.class);
+                Map<Node, Throwable> nodeErrors = ((AllNodesFailedException) error).getErrors();
+                assertThat(nodeErrors).containsOnlyKeys(node1);
+                assertThat(nodeErrors.get(node1)).isInstanceOf(RequestThrottlingException.class);
+              });
+    }
+  }
+
   @Test
   public void should_fail_if_no_node_available() {
     try (RequestHandlerTestHarness harness =
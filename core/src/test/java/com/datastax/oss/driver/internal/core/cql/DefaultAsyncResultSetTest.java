@@ -19,6 +19,8 @@ import static com.datastax.oss.driver.Assertions.assertThat;
 import static com.datastax.oss.driver.Assertions.assertThatStage;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -28,6 +30,7 @@ import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
 import com.datastax.oss.driver.api.core.cql.ColumnDefinition;
 import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
 import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.cql.Statement;
 import com.datastax.oss.driver.api.core.type.DataTypes;
 import com.datastax.oss.driver.api.core.type.codec.TypeCodecs;
@@ -37,6 +40,7 @@ import com.datastax.oss.driver.shaded.guava.common.collect.Lists;
 import com.datastax.oss.protocol.internal.util.Bytes;
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
@@ -103,6 +107,94 @@ public class DefaultAsyncResultSetTest {
     assertThatStage(nextPageFuture).isEqualTo(mockResultFuture);
   }
 
+  @Test
+  public void should_request_next_page_on_each_call_if_not_prefetched() {
+    // Given
+    ByteBuffer mockPagingState = ByteBuffer.allocate(0);
+    when(executionInfo.getPagingState()).thenReturn(mockPagingState);
+    when(((Statement) statement).copy(mockPagingState)).thenReturn(mock(Statement.class));
+    when(session.executeAsync(any(Statement.class)))
+        .thenAnswer(invocation -> new CompletableFuture<>());
+    DefaultAsyncResultSet resultSet =
+        new DefaultAsyncResultSet(
+            columnDefinitions, executionInfo, new ArrayDeque<>(), session, context);
+
+    // When
+    CompletionStage<AsyncResultSet> nextPageFuture1 = resultSet.fetchNextPage();
+    CompletionStage<AsyncResultSet> nextPageFuture2 = resultSet.fetchNextPage();
+
+    // Then
+    verify(session, times(2)).executeAsync(any(Statement.class));
+    assertThat(nextPageFuture2).isNotSameAs(nextPageFuture1);
+  }
+
+  @Test
+  public void should_prefetch_next_page_when_remaining_rows_below_threshold() {
+    // Given
+    ByteBuffer mockPagingState = ByteBuffer.allocate(0);
+    when(executionInfo.getPagingState()).thenReturn(mockPagingState);
+    when(((Statement) statement).copy(mockPagingState)).thenReturn(mock(Statement.class));
+    CompletableFuture<AsyncResultSet> mockResultFuture = new CompletableFuture<>();
+    when(session.executeAsync(any(Statement.class))).thenAnswer(invocation -> mockResultFuture);
+    Queue<List<ByteBuffer>> data = new ArrayDeque<>();
+    for (int i = 0; i < 5; i++) {
+      data.add(Lists.newArrayList(Bytes.fromHexString("0xffff")));
+    }
+    DefaultAsyncResultSet resultSet =
+        new DefaultAsyncResultSet(columnDefinitions, executionInfo, data, session, context, 3, 1);
+    Iterator<Row> rows = resultSet.currentPage().iterator();
+
+    // When
+    rows.next();
+    rows.next();
+
+    // Then
+    verify(session, never()).executeAsync(any(Statement.class));
+
+    // When
+    rows.next();
+
+    // Then
+    verify(session, times(1)).executeAsync(any(Statement.class));
+    assertThat(resultSet.fetchNextPage()).isSameAs(mockResultFuture);
+    verify(session, times(1)).executeAsync(any(Statement.class));
+
+    // When
+    rows.next();
+    rows.next();
+    resultSet.fetchNextPage();
+
+    // Then
+    // the prefetched page was handed out once, subsequent calls start a new request
+    verify(session, times(2)).executeAsync(any(Statement.class));
+  }
+
+  @Test
+  public void should_request_next_page_again_if_prefetch_failed() {
+    // Given
+    ByteBuffer mockPagingState = ByteBuffer.allocate(0);
+    when(executionInfo.getPagingState()).thenReturn(mockPagingState);
+    when(((Statement) statement).copy(mockPagingState)).thenReturn(mock(Statement.class));
+    CompletableFuture<AsyncResultSet> failedFuture = new CompletableFuture<>();
+    failedFuture.completeExceptionally(new RuntimeException("mock error"));
+    CompletableFuture<AsyncResultSet> mockResultFuture = new CompletableFuture<>();
+    when(session.executeAsync(any(Statement.class)))
+        .thenAnswer(invocation -> failedFuture)
+        .thenAnswer(invocation -> mockResultFuture);
+    Queue<List<ByteBuffer>> data = new ArrayDeque<>();
+    data.add(Lists.newArrayList(Bytes.fromHexString("0xffff")));
+    DefaultAsyncResultSet resultSet =
+        new DefaultAsyncResultSet(columnDefinitions, executionInfo, data, session, context, 1, 1);
+
+    // When
+    resultSet.currentPage().iterator().next();
+    CompletionStage<AsyncResultSet> nextPageFuture = resultSet.fetchNextPage();
+
+    // Then
+    verify(session, times(2)).executeAsync(any(Statement.class));
+    assertThat(nextPageFuture).isSameAs(mockResultFuture);
+  }
+
   @Test
   public void should_report_applied_if_column_not_present_and_empty() {
     // Given
@@ -0,0 +1,120 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.cql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.api.core.DefaultProtocolVersion;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.metadata.token.Token;
+import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3TokenFactory;
+import com.datastax.oss.driver.internal.core.metadata.token.TokenFactory;
+import com.datastax.oss.driver.internal.core.util.RoutingKey;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableList;
+import com.datastax.oss.protocol.internal.ProtocolConstants;
+import com.datastax.oss.protocol.internal.util.Bytes;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultBoundStatementTest {
+
+  private static final ByteBuffer VALUE1 = Bytes.fromHexString("0xdeadbeef");
+  private static final ByteBuffer VALUE2 = Bytes.fromHexString("0xcafebabe");
+
+  private static final TokenFactory TOKEN_FACTORY = new Murmur3TokenFactory();
+
+  @Mock private PreparedStatement preparedStatement;
+
+  @Test
+  public void should_compute_composite_routing_key_once() {
+    when(preparedStatement.getPartitionKeyIndices()).thenReturn(ImmutableList.of(0, 1));
+    DefaultBoundStatement statement = newBoundStatement(VALUE1, VALUE2);
+
+    ByteBuffer routingKey = statement.getRoutingKey();
+    assertThat(routingKey).isEqualTo(RoutingKey.compose(VALUE1, VALUE2));
+    assertThat(statement.getRoutingKey()).isSameAs(routingKey);
+  }
+
+  @Test
+  public void should_compute_composite_routing_token_once() {
+    when(preparedStatement.getPartitionKeyIndices()).thenReturn(ImmutableList.of(0, 1));
+    DefaultBoundStatement statement = newBoundStatement(VALUE1, VALUE2);
+
+    Token token = statement.getRoutingToken(TOKEN_FACTORY);
+    assertThat(token).isEqualTo(TOKEN_FACTORY.hash(RoutingKey.compose(VALUE1, VALUE2)));
+    assertThat(statement.getRoutingToken(TOKEN_FACTORY)).isSameAs(token);
+    // The bound values were not consumed
+    assertThat(VALUE1.remaining()).isEqualTo(4);
+    assertThat(VALUE2.remaining()).isEqualTo(4);
+  }
+
+  @Test
+  public void should_compute_simple_routing_token() {
+    when(preparedStatement.getPartitionKeyIndices()).thenReturn(ImmutableList.of(1));
+    DefaultBoundStatement statement = newBoundStatement(VALUE1, VALUE2);
+
+    assertThat(statement.getRoutingToken(TOKEN_FACTORY)).isEqualTo(TOKEN_FACTORY.hash(VALUE2));
+  }
+
+  @Test
+  public void should_not_compute_routing_token_if_partition_key_not_set() {
+    when(preparedStatement.getPartitionKeyIndices()).thenReturn(ImmutableList.of(0, 1));
+    DefaultBoundStatement statement = newBoundStatement(VALUE1, ProtocolConstants.UNSET_VALUE);
+
+    assertThat(statement.getRoutingKey()).isNull();
+    assertThat(statement.getRoutingToken(TOKEN_FACTORY)).isNull();
+  }
+
+  @Test
+  public void should_use_explicit_routing_token() {
+    DefaultBoundStatement statement = newBoundStatement(VALUE1, VALUE2);
+    Token token = TOKEN_FACTORY.parse("42");
+
+    statement = (DefaultBoundStatement) statement.setRoutingToken(token);
+    assertThat(statement.getRoutingToken(TOKEN_FACTORY)).isSameAs(token);
+  }
+
+  private DefaultBoundStatement newBoundStatement(ByteBuffer... values) {
+    return new DefaultBoundStatement(
+        preparedStatement,
+        null,
+        values,
+        null,
+        null,
+        null,
+        null,
+        null,
+        Collections.emptyMap(),
+        null,
+        false,
+        Long.MIN_VALUE,
+        null,
+        Integer.MIN_VALUE,
+        null,
+        null,
+        null,
+        CodecRegistry.DEFAULT,
+        DefaultProtocolVersion.V4,
+        null);
+  }
+}
@@ -72,6 +72,7 @@ public class PoolBehavior {
       when(channel.closeFuture()).thenReturn(closeFuture);
       when(channel.eventLoop()).thenReturn(eventLoop);
       when(channel.config()).thenReturn(config);
+      when(channel.isWritable()).thenReturn(true);
     }
   }
 
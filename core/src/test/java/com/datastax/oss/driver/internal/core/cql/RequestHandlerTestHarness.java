@@ -46,6 +46,7 @@ import com.datastax.oss.driver.internal.core.metrics.SessionMetricUpdater;
 import com.datastax.oss.driver.internal.core.pool.ChannelPool;
 import com.datastax.oss.driver.internal.core.servererrors.DefaultWriteTypeRegistry;
 import com.datastax.oss.driver.internal.core.session.DefaultSession;
+import com.datastax.oss.driver.internal.core.session.throttling.NodeConcurrencyLimiter;
 import com.datastax.oss.driver.internal.core.session.throttling.PassThroughRequestThrottler;
 import com.datastax.oss.driver.internal.core.tracker.NoopRequestTracker;
 import com.datastax.oss.driver.internal.core.type.codec.registry.DefaultCodecRegistry;
@@ -112,6 +113,9 @@ public class RequestHandlerTestHarness implements AutoCloseable {
     when(defaultProfile.getBoolean(DefaultDriverOption.REQUEST_DEFAULT_IDEMPOTENCE))
         .thenReturn(builder.defaultIdempotence);
     when(defaultProfile.getBoolean(DefaultDriverOption.PREPARE_ON_ALL_NODES)).thenReturn(true);
+    when(defaultProfile.getInt(
+            DefaultDriverOption.REQUEST_THROTTLER_PER_NODE_MAX_CONCURRENT_REQUESTS, 0))
+        .thenReturn(builder.maxConcurrentRequestsPerNode);
 
     when(config.getDefaultProfile()).thenReturn(defaultProfile);
     when(context.getConfig()).thenReturn(config);
@@ -142,6 +146,8 @@ public class RequestHandlerTestHarness implements AutoCloseable {
               return pools.get(node).next();
             });
     when(session.getRepreparePayloads()).thenReturn(new ConcurrentHashMap<>());
+    NodeConcurrencyLimiter nodeLimiter = new NodeConcurrencyLimiter(context);
+    when(session.getNodeLimiter()).thenReturn(nodeLimiter);
 
     when(session.setKeyspace(any(CqlIdentifier.class)))
         .thenReturn(CompletableFuture.completedFuture(null));
@@ -202,6 +208,7 @@ public class RequestHandlerTestHarness implements AutoCloseable {
     private final List<PoolBehavior> poolBehaviors = new ArrayList<>();
     private boolean defaultIdempotence;
     private ProtocolVersion protocolVersion;
+    private int maxConcurrentRequestsPerNode;
 
     /**
      * Sets the given node as the next one in the query plan; an empty pool will be simulated when
@@ -257,6 +264,11 @@ public class RequestHandlerTestHarness implements AutoCloseable {
       return this;
     }
 
+    public Builder withMaxConcurrentRequestsPerNode(int maxConcurrentRequestsPerNode) {
+      this.maxConcurrentRequestsPerNode = maxConcurrentRequestsPerNode;
+      return this;
+    }
+
     /**
      * Sets the given node as the next one in the query plan; the test code is responsible of
      * calling the methods on the returned object to complete the write and the query.
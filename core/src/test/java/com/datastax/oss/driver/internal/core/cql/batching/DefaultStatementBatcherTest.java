@@ -0,0 +1,258 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.cql.batching;
+
+import static com.datastax.oss.driver.Assertions.assertThat;
+import static com.datastax.oss.driver.Assertions.assertThatStage;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.DefaultConsistencyLevel;
+import com.datastax.oss.driver.api.core.DefaultProtocolVersion;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.internal.core.context.InternalDriverContext;
+import com.datastax.oss.driver.internal.core.context.NettyOptions;
+import com.datastax.oss.driver.internal.core.util.concurrent.CompletableFutures;
+import com.datastax.oss.protocol.internal.util.Bytes;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultStatementBatcherTest {
+
+  @Mock private CqlSession session;
+  @Mock private InternalDriverContext context;
+  @Mock private NettyOptions nettyOptions;
+  @Mock private Timer timer;
+  @Mock private Timeout timeout;
+  @Mock private AsyncResultSet resultSet;
+  @Captor private ArgumentCaptor<Statement<?>> statementCaptor;
+  @Captor private ArgumentCaptor<TimerTask> timerTaskCaptor;
+
+  private DefaultStatementBatcher batcher;
+
+  @Before
+  public void setup() {
+    when(session.getContext()).thenReturn(context);
+    when(context.getNettyOptions()).thenReturn(nettyOptions);
+    when(nettyOptions.getTimer()).thenReturn(timer);
+
+    batcher = new DefaultStatementBatcher(session, 2, 1024, Duration.ofMillis(10), null);
+  }
+
+  @Test
+  public void should_group_statements_by_partition_and_send_full_batch() {
+    mockTimer();
+    mockSuccessfulExecution();
+
+    BoundStatement statement1 = mockStatement("0x01");
+    BoundStatement statement2 = mockStatement("0x02");
+    BoundStatement statement3 = mockStatement("0x01");
+
+    CompletionStage<AsyncResultSet> result1 = batcher.add(statement1);
+    CompletionStage<AsyncResultSet> result2 = batcher.add(statement2);
+    verify(session, never()).executeAsync(any(Statement.class));
+
+    CompletionStage<AsyncResultSet> result3 = batcher.add(statement3);
+    verify(session).executeAsync(statementCaptor.capture());
+    BatchStatement batch = (BatchStatement) statementCaptor.getValue();
+    assertThat(batch.getBatchType()).isEqualTo(DefaultBatchType.UNLOGGED);
+    assertThat(batch).containsExactly(statement1, statement3);
+    verify(timeout).cancel();
+
+    assertThatStage(result1).isSuccess(rs -> assertThat(rs).isSameAs(resultSet));
+    assertThatStage(result3).isSuccess(rs -> assertThat(rs).isSameAs(resultSet));
+    assertThatStage(result2).isNotDone();
+  }
+
+  @Test
+  public void should_send_batch_when_deadline_expires() throws Exception {
+    mockTimer();
+    mockSuccessfulExecution();
+
+    BoundStatement statement = mockStatement("0x01");
+
+    CompletionStage<AsyncResultSet> result = batcher.add(statement);
+    verify(timer).newTimeout(timerTaskCaptor.capture(), anyLong(), any(TimeUnit.class));
+    timerTaskCaptor.getValue().run(timeout);
+
+    // A single statement is executed as-is
+    verify(session).executeAsync(statement);
+    assertThatStage(result).isSuccess(rs -> assertThat(rs).isSameAs(resultSet));
+  }
+
+  @Test
+  public void should_send_pending_batches_on_flush() {
+    mockTimer();
+    mockSuccessfulExecution();
+
+    batcher.add(mockStatement("0x01"));
+    batcher.add(mockStatement("0x02"));
+
+    batcher.flush();
+    verify(session, times(2)).executeAsync(any(Statement.class));
+  }
+
+  @Test
+  public void should_execute_statement_without_routing_information_directly() {
+    mockSuccessfulExecution();
+    SimpleStatement statement = SimpleStatement.newInstance("INSERT INTO foo (k) VALUES (1)");
+
+    batcher.add(statement);
+    verify(session).executeAsync(statement);
+  }
+
+  @Test
+  public void should_fail_all_statements_of_failed_batch() {
+    mockTimer();
+    RuntimeException error = new RuntimeException("mock error");
+    when(session.executeAsync(any(Statement.class)))
+        .thenReturn(CompletableFutures.failedFuture(error));
+
+    CompletionStage<AsyncResultSet> result1 = batcher.add(mockStatement("0x01"));
+    CompletionStage<AsyncResultSet> result2 = batcher.add(mockStatement("0x01"));
+
+    assertThatStage(result1).isFailed(e -> assertThat(e).isSameAs(error));
+    assertThatStage(result2).isFailed(e -> assertThat(e).isSameAs(error));
+  }
+
+  @Test
+  public void should_reject_statements_after_close() {
+    mockTimer();
+    mockSuccessfulExecution();
+
+    batcher.add(mockStatement("0x01"));
+
+    batcher.close();
+    verify(session).executeAsync(any(Statement.class));
+
+    CompletionStage<AsyncResultSet> result = batcher.add(mockStatement("0x01"));
+    assertThatStage(result).isFailed(e -> assertThat(e).isInstanceOf(IllegalStateException.class));
+  }
+
+  @Test
+  public void should_send_current_batch_when_next_statement_does_not_fit() {
+    mockTimer();
+    mockSuccessfulExecution();
+    BoundStatement statement1 = mockStatement("0x01");
+    when(statement1.computeSizeInBytes(context)).thenReturn(600);
+    BoundStatement statement2 = mockStatement("0x01");
+    when(statement2.computeSizeInBytes(context)).thenReturn(600);
+
+    CompletionStage<AsyncResultSet> result1 = batcher.add(statement1);
+    verify(session, never()).executeAsync(any(Statement.class));
+
+    // 1200 bytes would exceed the maximum (1024)
+    CompletionStage<AsyncResultSet> result2 = batcher.add(statement2);
+    verify(session).executeAsync(statement1);
+    verify(timeout).cancel();
+    assertThatStage(result1).isSuccess(rs -> assertThat(rs).isSameAs(resultSet));
+    assertThatStage(result2).isNotDone();
+
+    batcher.flush();
+    verify(session).executeAsync(statement2);
+    assertThatStage(result2).isSuccess(rs -> assertThat(rs).isSameAs(resultSet));
+  }
+
+  @Test
+  public void should_not_batch_statements_with_different_options() {
+    mockTimer();
+    mockSuccessfulExecution();
+    BoundStatement statement1 = mockStatement("0x01");
+    when(statement1.getConsistencyLevel()).thenReturn(DefaultConsistencyLevel.ONE);
+    BoundStatement statement2 = mockStatement("0x01");
+    when(statement2.getConsistencyLevel()).thenReturn(DefaultConsistencyLevel.QUORUM);
+    BoundStatement statement3 = mockStatement("0x01");
+    when(statement3.getConsistencyLevel()).thenReturn(DefaultConsistencyLevel.ONE);
+
+    batcher.add(statement1);
+    CompletionStage<AsyncResultSet> result2 = batcher.add(statement2);
+    verify(session, never()).executeAsync(any(Statement.class));
+
+    batcher.add(statement3);
+    verify(session).executeAsync(statementCaptor.capture());
+    BatchStatement batch = (BatchStatement) statementCaptor.getValue();
+    assertThat(batch).containsExactly(statement1, statement3);
+    assertThat(batch.getConsistencyLevel()).isEqualTo(DefaultConsistencyLevel.ONE);
+    assertThatStage(result2).isNotDone();
+  }
+
+  @Test
+  public void should_apply_batcher_profile_to_statements_without_one() {
+    mockTimer();
+    mockSuccessfulExecution();
+    when(context.getProtocolVersion()).thenReturn(DefaultProtocolVersion.V4);
+    batcher = new DefaultStatementBatcher(session, 2, 1024, Duration.ofMillis(10), "olap");
+    ByteBuffer routingKey = Bytes.fromHexString("0x01");
+    SimpleStatement statement1 = SimpleStatement.newInstance("INSERT INTO foo (k) VALUES (1)");
+
+    // Executed on its own
+    batcher.add(statement1);
+    // Batched
+    batcher.add(statement1.setRoutingKey(routingKey));
+    batcher.add(statement1.setRoutingKey(routingKey).setExecutionProfileName("oltp"));
+    batcher.add(statement1.setRoutingKey(routingKey));
+    batcher.flush();
+
+    verify(session, times(3)).executeAsync(statementCaptor.capture());
+    assertThat(statementCaptor.getAllValues())
+        .extracting(Statement::getExecutionProfileName)
+        .containsExactlyInAnyOrder("olap", "olap", "oltp");
+    assertThat(statementCaptor.getAllValues())
+        .filteredOn(statement -> statement instanceof BatchStatement)
+        .hasSize(1);
+  }
+
+  private void mockTimer() {
+    when(timer.newTimeout(any(TimerTask.class), anyLong(), any(TimeUnit.class)))
+        .thenReturn(timeout);
+  }
+
+  private void mockSuccessfulExecution() {
+    when(session.executeAsync(any(Statement.class)))
+        .thenReturn(CompletableFuture.completedFuture(resultSet));
+  }
+
+  private static BoundStatement mockStatement(String routingKey) {
+    BoundStatement statement = mock(BoundStatement.class);
+    when(statement.getRoutingKey()).thenReturn(Bytes.fromHexString(routingKey));
+    return statement;
+  }
+}
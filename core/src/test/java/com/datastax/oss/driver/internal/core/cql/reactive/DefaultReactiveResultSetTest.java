@@ -0,0 +1,203 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.cql.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.internal.core.cql.ResultSetTestBase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+public class DefaultReactiveResultSetTest extends ResultSetTestBase {
+
+  @Test
+  public void should_not_execute_query_until_first_request() {
+    AtomicInteger executions = new AtomicInteger();
+    DefaultReactiveResultSet resultSet =
+        new DefaultReactiveResultSet(
+            () -> {
+              executions.incrementAndGet();
+              return CompletableFuture.completedFuture(mockPage(false, 0));
+            });
+    TestSubscriber<Row> subscriber = new TestSubscriber<>();
+
+    resultSet.subscribe(subscriber);
+    assertThat(executions.get()).isEqualTo(0);
+
+    subscriber.subscription.request(1);
+    assertThat(executions.get()).isEqualTo(1);
+    assertThat(subscriber.values).hasSize(1);
+    assertThat(subscriber.completed).isTrue();
+  }
+
+  @Test
+  public void should_fetch_next_page_only_when_demand_requires_it() {
+    AsyncResultSet page1 = mockPage(true, 0, 1);
+    AsyncResultSet page2 = mockPage(false, 2, 3);
+    DefaultReactiveResultSet resultSet =
+        new DefaultReactiveResultSet(() -> CompletableFuture.completedFuture(page1));
+    TestSubscriber<Row> subscriber = new TestSubscriber<>();
+    resultSet.subscribe(subscriber);
+
+    subscriber.subscription.request(2);
+    assertThat(subscriber.values).hasSize(2);
+    verify(page1, never()).fetchNextPage();
+
+    subscriber.subscription.request(1);
+    verify(page1, times(1)).fetchNextPage();
+    // Page not received yet
+    assertThat(subscriber.values).hasSize(2);
+
+    complete(page1.fetchNextPage(), page2);
+    assertThat(subscriber.values).hasSize(3);
+    assertThat(subscriber.values.get(2).getInt(0)).isEqualTo(2);
+    assertThat(subscriber.completed).isFalse();
+
+    subscriber.subscription.request(1);
+    assertThat(subscriber.values).hasSize(4);
+    assertThat(subscriber.completed).isTrue();
+  }
+
+  @Test
+  public void should_publish_side_channels() {
+    AsyncResultSet page1 = mockPage(true, 0);
+    AsyncResultSet page2 = mockPage(false, 1);
+    DefaultReactiveResultSet resultSet =
+        new DefaultReactiveResultSet(() -> CompletableFuture.completedFuture(page1));
+    TestSubscriber<ColumnDefinitions> columnDefinitionsSubscriber = new TestSubscriber<>();
+    resultSet.getColumnDefinitions().subscribe(columnDefinitionsSubscriber);
+    columnDefinitionsSubscriber.subscription.request(Long.MAX_VALUE);
+    TestSubscriber<ExecutionInfo> executionInfosSubscriber = new TestSubscriber<>();
+    resultSet.getExecutionInfos().subscribe(executionInfosSubscriber);
+    executionInfosSubscriber.subscription.request(Long.MAX_VALUE);
+    TestSubscriber<Row> subscriber = new TestSubscriber<>();
+    resultSet.subscribe(subscriber);
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertThat(columnDefinitionsSubscriber.values).containsExactly(page1.getColumnDefinitions());
+    assertThat(columnDefinitionsSubscriber.completed).isTrue();
+    assertThat(executionInfosSubscriber.values).containsExactly(page1.getExecutionInfo());
+    assertThat(executionInfosSubscriber.completed).isFalse();
+
+    complete(page1.fetchNextPage(), page2);
+    assertThat(subscriber.values).hasSize(2);
+    assertThat(subscriber.completed).isTrue();
+    assertThat(executionInfosSubscriber.values)
+        .containsExactly(page1.getExecutionInfo(), page2.getExecutionInfo());
+    assertThat(executionInfosSubscriber.completed).isTrue();
+  }
+
+  @Test
+  public void should_propagate_query_failure() {
+    RuntimeException error = new RuntimeException("mock error");
+    DefaultReactiveResultSet resultSet =
+        new DefaultReactiveResultSet(
+            () -> {
+              CompletableFuture<AsyncResultSet> future = new CompletableFuture<>();
+              future.completeExceptionally(error);
+              return future;
+            });
+    TestSubscriber<ColumnDefinitions> columnDefinitionsSubscriber = new TestSubscriber<>();
+    resultSet.getColumnDefinitions().subscribe(columnDefinitionsSubscriber);
+    TestSubscriber<Row> subscriber = new TestSubscriber<>();
+    resultSet.subscribe(subscriber);
+
+    subscriber.subscription.request(1);
+    assertThat(subscriber.error).isSameAs(error);
+    assertThat(columnDefinitionsSubscriber.error).isSameAs(error);
+  }
+
+  @Test
+  public void should_cancel_pending_page_request() {
+    AsyncResultSet page1 = mockPage(true, 0);
+    DefaultReactiveResultSet resultSet =
+        new DefaultReactiveResultSet(() -> CompletableFuture.completedFuture(page1));
+    TestSubscriber<Row> subscriber = new TestSubscriber<>();
+    resultSet.subscribe(subscriber);
+
+    subscriber.subscription.request(2);
+    CompletionStage<AsyncResultSet> nextPage = page1.fetchNextPage();
+    assertThat(nextPage.toCompletableFuture().isDone()).isFalse();
+
+    subscriber.subscription.cancel();
+    assertThat(nextPage.toCompletableFuture().isCancelled()).isTrue();
+    assertThat(subscriber.values).hasSize(1);
+    assertThat(subscriber.completed).isFalse();
+    assertThat(subscriber.error).isNull();
+  }
+
+  @Test
+  public void should_reject_second_subscriber() {
+    DefaultReactiveResultSet resultSet =
+        new DefaultReactiveResultSet(() -> CompletableFuture.completedFuture(mockPage(false)));
+    resultSet.subscribe(new TestSubscriber<>());
+    TestSubscriber<Row> subscriber = new TestSubscriber<>();
+
+    resultSet.subscribe(subscriber);
+    assertThat(subscriber.error).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void should_fail_on_non_positive_request() {
+    DefaultReactiveResultSet resultSet =
+        new DefaultReactiveResultSet(() -> CompletableFuture.completedFuture(mockPage(false, 0)));
+    TestSubscriber<Row> subscriber = new TestSubscriber<>();
+    resultSet.subscribe(subscriber);
+
+    subscriber.subscription.request(0);
+    assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static class TestSubscriber<T> implements Subscriber<T> {
+    private final List<T> values = new ArrayList<>();
+    private volatile Subscription subscription;
+    private volatile boolean completed;
+    private volatile Throwable error;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(T value) {
+      values.add(value);
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      this.error = error;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.cql.scan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.metadata.Metadata;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.datastax.oss.driver.api.core.metadata.schema.ColumnMetadata;
+import com.datastax.oss.driver.api.core.metadata.schema.KeyspaceMetadata;
+import com.datastax.oss.driver.api.core.metadata.schema.TableMetadata;
+import com.datastax.oss.driver.api.core.metadata.token.TokenRange;
+import com.datastax.oss.driver.internal.core.cql.scan.DefaultTableScan.Split;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3Token;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3TokenRange;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableList;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableSet;
+import com.datastax.oss.protocol.internal.util.Bytes;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultTableScanTest {
+
+  private static final long MIN = -9223372036854775808L;
+  private static final CqlIdentifier KEYSPACE = CqlIdentifier.fromCql("ks");
+  private static final CqlIdentifier TABLE = CqlIdentifier.fromCql("tbl");
+  private static final ByteBuffer PAGING_STATE = Bytes.fromHexString("0xcafebabe");
+
+  @Mock private Node node1;
+  @Mock private Node node2;
+  @Mock private CqlSession session;
+  @Mock private Metadata metadata;
+  @Mock private KeyspaceMetadata keyspaceMetadata;
+  @Mock private TableMetadata tableMetadata;
+  @Mock private ColumnMetadata partitionKeyColumn;
+  @Mock private TokenMap tokenMap;
+  @Mock private PreparedStatement preparedStatement;
+  @Mock private Row row1;
+  @Mock private Row row2;
+  @Mock private Row row3;
+  @Mock private Row row4;
+
+  // The statements and requests issued by the scan, in order
+  private final List<BoundStatement> statements = new ArrayList<>();
+  private final List<CompletableFuture<AsyncResultSet>> requests = new ArrayList<>();
+
+  @Test
+  public void should_split_ranges_and_balance_replicas() {
+    Set<Node> replicas = ImmutableSet.of(node1, node2);
+    List<Split> splits =
+        DefaultTableScan.planSplits(
+            ImmutableList.of(range(-100, 0), range(0, 100)), range -> replicas, 2);
+
+    assertThat(splits)
+        .extracting(split -> split.range)
+        .containsExactly(range(-100, -50), range(-50, 0), range(0, 50), range(50, 100));
+    assertThat(splits)
+        .extracting(split -> split.replica)
+        .containsExactly(node1, node2, node1, node2);
+  }
+
+  @Test
+  public void should_unwrap_split_that_wraps_around_the_ring() {
+    List<Split> splits =
+        DefaultTableScan.planSplits(
+            ImmutableList.of(range(100, -100)), range -> ImmutableSet.of(node1), 1);
+
+    assertThat(splits)
+        .extracting(split -> split.range)
+        .containsExactly(range(100, MIN), range(MIN, -100));
+    assertThat(splits).extracting(split -> split.replica).containsOnly(node1);
+  }
+
+  @Test
+  public void should_assign_no_replica_if_range_has_none() {
+    List<Split> splits =
+        DefaultTableScan.planSplits(
+            ImmutableList.of(range(-100, 0)), range -> ImmutableSet.of(), 1);
+
+    assertThat(splits).hasSize(1);
+    assertThat(splits.get(0).replica).isNull();
+  }
+
+  @Test
+  public void should_build_queries() {
+    CqlIdentifier keyspace = CqlIdentifier.fromCql("ks");
+    CqlIdentifier table = CqlIdentifier.fromInternal("Tbl");
+    List<CqlIdentifier> partitionKey =
+        ImmutableList.of(CqlIdentifier.fromCql("k1"), CqlIdentifier.fromCql("k2"));
+
+    assertThat(
+            DefaultTableScan.buildQuery(
+                keyspace,
+                table,
+                ImmutableList.of(CqlIdentifier.fromCql("a"), CqlIdentifier.fromCql("b")),
+                partitionKey,
+                true))
+        .isEqualTo("SELECT a,b FROM ks.\"Tbl\" WHERE token(k1,k2) > ? AND token(k1,k2) <= ?");
+    assertThat(
+            DefaultTableScan.buildQuery(keyspace, table, ImmutableList.of(), partitionKey, false))
+        .isEqualTo("SELECT * FROM ks.\"Tbl\" WHERE token(k1,k2) > ?");
+  }
+
+  @Test
+  public void should_iterate_over_rows_of_all_splits() {
+    // Given
+    DefaultTableScan scan = newScan(2, 2, 0);
+
+    // When
+    Iterator<Row> rows = scan.iterator();
+    requests.get(0).complete(page(null, row1));
+    requests.get(1).complete(page(null, row2, row3));
+
+    // Then
+    assertThat(ImmutableList.copyOf(rows)).containsExactly(row1, row2, row3);
+    assertThat(requests).hasSize(2);
+  }
+
+  @Test
+  public void should_limit_concurrent_splits_per_node() {
+    // Given
+    DefaultTableScan scan = newScan(3, 1, 0);
+
+    // When
+    Iterator<Row> rows = scan.iterator();
+
+    // Then
+    assertThat(requests).hasSize(1);
+
+    // When
+    requests.get(0).complete(page(PAGING_STATE, row1));
+
+    // Then
+    // the next page of the same split is requested when the client dequeues the current one
+    assertThat(rows.next()).isSameAs(row1);
+    assertThat(requests).hasSize(2);
+    verify(statements.get(1)).setPagingState(PAGING_STATE);
+
+    // When
+    requests.get(1).complete(page(null, row2));
+
+    // Then
+    // the split is done, the next one can start
+    assertThat(rows.next()).isSameAs(row2);
+    assertThat(requests).hasSize(3);
+
+    // When
+    requests.get(2).complete(page(null, row3));
+
+    // Then
+    assertThat(rows.next()).isSameAs(row3);
+    assertThat(requests).hasSize(4);
+
+    // When
+    requests.get(3).complete(page(null, row4));
+
+    // Then
+    assertThat(rows.next()).isSameAs(row4);
+    assertThat(rows.hasNext()).isFalse();
+    assertThat(requests).hasSize(4);
+  }
+
+  @Test
+  public void should_retry_failed_split_from_last_paging_state() {
+    // Given
+    DefaultTableScan scan = newScan(1, 1, 1);
+    Iterator<Row> rows = scan.iterator();
+    requests.get(0).complete(page(PAGING_STATE, row1));
+    assertThat(rows.next()).isSameAs(row1);
+
+    // When
+    requests.get(1).completeExceptionally(new RuntimeException("mock error"));
+
+    // Then
+    // the retry resumes from the same page, and lets the load balancing policy pick the node
+    assertThat(requests).hasSize(3);
+    verify(statements.get(1)).setNode(node1);
+    verify(statements.get(2)).setPagingState(PAGING_STATE);
+    verify(statements.get(2)).setNode(null);
+
+    // When
+    requests.get(2).complete(page(null, row2));
+
+    // Then
+    assertThat(rows.next()).isSameAs(row2);
+    assertThat(rows.hasNext()).isFalse();
+  }
+
+  @Test
+  public void should_fail_and_cancel_other_splits_when_retries_exhausted() {
+    // Given
+    DefaultTableScan scan = newScan(2, 2, 0);
+    Iterator<Row> rows = scan.iterator();
+    RuntimeException error = new RuntimeException("mock error");
+
+    // When
+    requests.get(0).completeExceptionally(error);
+
+    // Then
+    assertThatThrownBy(rows::hasNext).isSameAs(error);
+    assertThat(requests).hasSize(2);
+    assertThat(requests.get(1)).isCancelled();
+  }
+
+  @Test
+  public void should_cancel_pending_requests_on_close() {
+    // Given
+    DefaultTableScan scan = newScan(2, 2, 0);
+    Iterator<Row> rows = scan.iterator();
+
+    // When
+    scan.close();
+
+    // Then
+    assertThat(requests).hasSize(2);
+    assertThat(requests.get(0)).isCancelled();
+    assertThat(requests.get(1)).isCancelled();
+    assertThat(rows.hasNext()).isFalse();
+  }
+
+  /**
+   * Creates a scan over the given number of ranges, that are all replicated on node1. The requests
+   * are recorded in {@link #requests}, and only complete when the test completes them.
+   */
+  private DefaultTableScan newScan(int rangeCount, int maxConcurrentSplitsPerNode, int maxRetries) {
+    when(session.getName()).thenReturn("test");
+    when(session.getMetadata()).thenReturn(metadata);
+    when(metadata.getKeyspace(KEYSPACE)).thenReturn(Optional.of(keyspaceMetadata));
+    when(keyspaceMetadata.getTable(TABLE)).thenReturn(Optional.of(tableMetadata));
+    when(tableMetadata.getPartitionKey()).thenReturn(ImmutableList.of(partitionKeyColumn));
+    when(partitionKeyColumn.getName()).thenReturn(CqlIdentifier.fromCql("k"));
+    when(metadata.getTokenMap()).thenReturn(Optional.of(tokenMap));
+    Set<TokenRange> ranges = new LinkedHashSet<>();
+    for (int i = 0; i < rangeCount; i++) {
+      ranges.add(range(i * 100, (i + 1) * 100));
+    }
+    when(tokenMap.getTokenRanges()).thenReturn(ranges);
+    when(tokenMap.getReplicas(eq(KEYSPACE), any(TokenRange.class)))
+        .thenReturn(ImmutableSet.of(node1));
+
+    when(session.prepare(anyString())).thenReturn(preparedStatement);
+    when(preparedStatement.bind())
+        .thenAnswer(
+            invocation -> {
+              BoundStatement statement = mock(BoundStatement.class, RETURNS_SELF);
+              statements.add(statement);
+              return statement;
+            });
+    when(session.executeAsync(any(Statement.class)))
+        .thenAnswer(
+            invocation -> {
+              CompletableFuture<AsyncResultSet> request = new CompletableFuture<>();
+              requests.add(request);
+              return request;
+            });
+
+    return new DefaultTableScan(
+        session,
+        KEYSPACE,
+        TABLE,
+        ImmutableList.of(),
+        1,
+        maxConcurrentSplitsPerNode,
+        maxRetries,
+        null);
+  }
+
+  private static AsyncResultSet page(ByteBuffer pagingState, Row... rows) {
+    AsyncResultSet resultSet = mock(AsyncResultSet.class);
+    ExecutionInfo executionInfo = mock(ExecutionInfo.class);
+    when(resultSet.getExecutionInfo()).thenReturn(executionInfo);
+    when(executionInfo.getPagingState()).thenReturn(pagingState);
+    when(resultSet.hasMorePages()).thenReturn(pagingState != null);
+    when(resultSet.currentPage()).thenReturn(ImmutableList.copyOf(rows));
+    return resultSet;
+  }
+
+  private static TokenRange range(long start, long end) {
+    return new Murmur3TokenRange(new Murmur3Token(start), new Murmur3Token(end));
+  }
+}
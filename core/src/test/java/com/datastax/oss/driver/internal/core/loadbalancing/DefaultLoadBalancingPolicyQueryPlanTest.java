@@ -27,11 +27,13 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
 import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
 import com.datastax.oss.driver.api.core.context.DriverContext;
 import com.datastax.oss.driver.api.core.metadata.Metadata;
 import com.datastax.oss.driver.api.core.metadata.TokenMap;
 import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.internal.core.pool.ChannelPool;
 import com.datastax.oss.driver.internal.core.session.DefaultSession;
 import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableMap;
 import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableSet;
@@ -53,6 +55,9 @@ public class DefaultLoadBalancingPolicyQueryPlanTest extends DefaultLoadBalancin
   @Mock private DefaultSession session;
   @Mock private Metadata metadata;
   @Mock private TokenMap tokenMap;
+  @Mock private ChannelPool pool2;
+  @Mock private ChannelPool pool3;
+  @Mock private ChannelPool pool5;
 
   private DefaultLoadBalancingPolicy policy;
 
@@ -183,6 +188,65 @@ public class DefaultLoadBalancingPolicyQueryPlanTest extends DefaultLoadBalancin
     verify(session, never()).getPools();
   }
 
+  @Test
+  public void should_track_replica_state_changes() {
+    when(request.getRoutingKeyspace()).thenReturn(KEYSPACE);
+    when(request.getRoutingKey()).thenReturn(ROUTING_KEY);
+    when(tokenMap.getReplicas(KEYSPACE, ROUTING_KEY)).thenReturn(ImmutableSet.of(node3, node5));
+
+    assertThat(policy.newQueryPlan(request, session))
+        .containsExactly(node3, node5, node1, node2, node4);
+
+    policy.onDown(node3);
+    assertThat(policy.newQueryPlan(request, session)).containsExactly(node5, node2, node4, node1);
+
+    // node3 is now at the end of the live nodes, so it comes after node5
+    policy.onUp(node3);
+    assertThat(policy.newQueryPlan(request, session))
+        .containsExactly(node5, node3, node4, node1, node2);
+  }
+
+  @Test
+  public void should_order_replicas_by_load_if_enabled() {
+    when(defaultProfile.getBoolean(
+            DefaultDriverOption.LOAD_BALANCING_IN_FLIGHT_AWARE_REPLICAS, false))
+        .thenReturn(true);
+    policy = new NonShufflingPolicy(context, DriverExecutionProfile.DEFAULT_NAME);
+    policy.init(
+        ImmutableMap.of(
+            UUID.randomUUID(), node1,
+            UUID.randomUUID(), node2,
+            UUID.randomUUID(), node3,
+            UUID.randomUUID(), node4,
+            UUID.randomUUID(), node5),
+        distanceReporter);
+
+    when(request.getRoutingKeyspace()).thenReturn(KEYSPACE);
+    when(request.getRoutingKey()).thenReturn(ROUTING_KEY);
+    when(tokenMap.getReplicas(KEYSPACE, ROUTING_KEY))
+        .thenReturn(ImmutableSet.of(node2, node3, node5));
+    when(session.getPools()).thenReturn(ImmutableMap.of(node2, pool2, node3, pool3, node5, pool5));
+    when(pool2.getInFlight()).thenReturn(10);
+    when(pool3.getInFlight()).thenReturn(6);
+    // Orphaned ids are also counted in getInFlight(), but they weigh twice
+    when(pool3.getOrphanedIds()).thenReturn(5);
+    when(pool5.getInFlight()).thenReturn(1);
+
+    assertThat(policy.newQueryPlan(request, session))
+        .containsExactly(node5, node2, node3, node1, node4);
+
+    // Same load: keep the original (shuffled) order
+    when(pool3.getOrphanedIds()).thenReturn(0);
+    when(pool3.getInFlight()).thenReturn(10);
+    assertThat(policy.newQueryPlan(request, session))
+        .containsExactly(node5, node2, node3, node4, node1);
+
+    // No pool: last
+    when(session.getPools()).thenReturn(ImmutableMap.of(node2, pool2, node3, pool3));
+    assertThat(policy.newQueryPlan(request, session))
+        .containsExactly(node2, node3, node5, node1, node4);
+  }
+
   static class NonShufflingPolicy extends DefaultLoadBalancingPolicy {
     NonShufflingPolicy(DriverContext context, String profileName) {
       super(context, profileName);
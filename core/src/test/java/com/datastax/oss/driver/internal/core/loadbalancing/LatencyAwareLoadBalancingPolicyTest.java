@@ -0,0 +1,145 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.loadbalancing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.servererrors.ReadTimeoutException;
+import com.datastax.oss.driver.api.core.servererrors.UnavailableException;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableMap;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableSet;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+public class LatencyAwareLoadBalancingPolicyTest extends DefaultLoadBalancingPolicyTestBase {
+
+  @Mock private Request request;
+
+  @Before
+  @Override
+  public void setup() {
+    super.setup();
+    when(metadataManager.getContactPoints()).thenReturn(ImmutableSet.of(node1));
+  }
+
+  @Test
+  public void should_move_slow_nodes_to_the_end_of_query_plans() {
+    LatencyAwareLoadBalancingPolicy policy = newPolicy(Duration.ofSeconds(10));
+    record(policy, node1, 1);
+    record(policy, node2, 10);
+    record(policy, node3, 1);
+    record(policy, node4, 1);
+    // node5 has no measurements yet, it is not excluded
+
+    assertThat(policy.newQueryPlan(null, null)).containsExactly(node1, node3, node4, node5, node2);
+    assertThat(policy.newQueryPlan(null, null)).containsExactly(node3, node4, node5, node1, node2);
+  }
+
+  @Test
+  public void should_not_exclude_nodes_within_threshold() {
+    LatencyAwareLoadBalancingPolicy policy = newPolicy(Duration.ofSeconds(10));
+    record(policy, node1, 10);
+    record(policy, node2, 15);
+
+    assertThat(policy.newQueryPlan(null, null)).containsExactly(node1, node2, node3, node4, node5);
+  }
+
+  @Test
+  public void should_include_slow_node_again_after_retry_period() throws InterruptedException {
+    LatencyAwareLoadBalancingPolicy policy = newPolicy(Duration.ofMillis(1));
+    record(policy, node1, 1);
+    record(policy, node2, 10);
+
+    TimeUnit.MILLISECONDS.sleep(10);
+
+    assertThat(policy.newQueryPlan(null, null)).containsExactly(node1, node2, node3, node4, node5);
+  }
+
+  @Test
+  public void should_ignore_errors_unrelated_to_node_latency() {
+    LatencyAwareLoadBalancingPolicy policy = newPolicy(Duration.ofSeconds(10));
+
+    policy.onNodeError(
+        request,
+        mock(UnavailableException.class),
+        TimeUnit.MILLISECONDS.toNanos(10),
+        defaultProfile,
+        node1);
+    assertThat(policy.getAverageNanos(node1)).isEqualTo(-1);
+
+    policy.onNodeError(
+        request,
+        mock(ReadTimeoutException.class),
+        TimeUnit.MILLISECONDS.toNanos(10),
+        defaultProfile,
+        node1);
+    assertThat(policy.getAverageNanos(node1)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+  }
+
+  @Test
+  public void should_forget_measurements_when_node_goes_down() {
+    LatencyAwareLoadBalancingPolicy policy = newPolicy(Duration.ofSeconds(10));
+    record(policy, node1, 10);
+
+    policy.onDown(node1);
+    assertThat(policy.getAverageNanos(node1)).isEqualTo(-1);
+  }
+
+  private LatencyAwareLoadBalancingPolicy newPolicy(Duration retryPeriod) {
+    when(defaultProfile.getDouble(
+            DefaultDriverOption.LOAD_BALANCING_LATENCY_EXCLUSION_THRESHOLD, 2.0))
+        .thenReturn(2.0);
+    when(defaultProfile.getDuration(
+            DefaultDriverOption.LOAD_BALANCING_LATENCY_SCALE, Duration.ofMillis(100)))
+        .thenReturn(Duration.ofMillis(100));
+    when(defaultProfile.getDuration(
+            DefaultDriverOption.LOAD_BALANCING_LATENCY_RETRY_PERIOD, Duration.ofSeconds(10)))
+        .thenReturn(retryPeriod);
+    // Recompute the fastest average for every query plan
+    when(defaultProfile.getDuration(
+            DefaultDriverOption.LOAD_BALANCING_LATENCY_UPDATE_RATE, Duration.ofMillis(100)))
+        .thenReturn(Duration.ZERO);
+    when(defaultProfile.getInt(DefaultDriverOption.LOAD_BALANCING_LATENCY_MIN_MEASURES, 50))
+        .thenReturn(1);
+
+    LatencyAwareLoadBalancingPolicy policy =
+        new LatencyAwareLoadBalancingPolicy(context, DriverExecutionProfile.DEFAULT_NAME);
+    policy.init(
+        ImmutableMap.of(
+            UUID.randomUUID(), node1,
+            UUID.randomUUID(), node2,
+            UUID.randomUUID(), node3,
+            UUID.randomUUID(), node4,
+            UUID.randomUUID(), node5),
+        distanceReporter);
+    return policy;
+  }
+
+  private void record(LatencyAwareLoadBalancingPolicy policy, Node node, long latencyMillis) {
+    policy.onNodeSuccess(
+        request, TimeUnit.MILLISECONDS.toNanos(latencyMillis), defaultProfile, node);
+  }
+}
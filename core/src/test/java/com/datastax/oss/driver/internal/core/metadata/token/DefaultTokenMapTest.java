@@ -169,6 +169,41 @@ public class DefaultTokenMapTest {
     assertThat(tokenMap.getReplicas(KS2, ROUTING_KEY41)).containsOnly(node1);
   }
 
+  @Test
+  public void should_find_replicas_of_tokens_on_and_between_ring_tokens() {
+    // Given
+    Node node1 = mockNode(DC1, RACK1, ImmutableSet.of(TOKEN1));
+    Node node2 = mockNode(DC1, RACK1, ImmutableSet.of(TOKEN2));
+    Node node3 = mockNode(DC1, RACK1, ImmutableSet.of(TOKEN3));
+    Node node4 = mockNode(DC1, RACK1, ImmutableSet.of(TOKEN4));
+    List<Node> nodes = ImmutableList.of(node1, node2, node3, node4);
+    List<KeyspaceMetadata> keyspaces = ImmutableList.of(mockKeyspace(KS2, REPLICATE_ON_DC1));
+
+    // When
+    DefaultTokenMap tokenMap =
+        DefaultTokenMap.build(nodes, keyspaces, TOKEN_FACTORY, replicationStrategyFactory, "test");
+
+    // Then
+    // A token is owned by the first ring token that is greater than or equal to it
+    assertThat(tokenMap.getReplicas(KS2, TOKEN_FACTORY.minToken())).containsOnly(node1);
+    assertThat(tokenMap.getReplicas(KS2, TOKEN_FACTORY.parse(TOKEN1))).containsOnly(node1);
+    assertThat(tokenMap.getReplicas(KS2, TOKEN_FACTORY.parse("-8999999999999999999")))
+        .containsOnly(node2);
+    assertThat(tokenMap.getReplicas(KS2, TOKEN_FACTORY.parse(TOKEN2))).containsOnly(node2);
+    assertThat(tokenMap.getReplicas(KS2, TOKEN_FACTORY.parse("0"))).containsOnly(node3);
+    assertThat(tokenMap.getReplicas(KS2, TOKEN_FACTORY.parse(TOKEN4))).containsOnly(node4);
+    // After the last ring token, wrap around to the first one
+    assertThat(tokenMap.getReplicas(KS2, TOKEN_FACTORY.parse("9000000000000000001")))
+        .containsOnly(node1);
+    assertThat(tokenMap.getReplicas(KS2, Murmur3TokenFactory.MAX_TOKEN)).containsOnly(node1);
+
+    // Routing keys and their tokens resolve to the same replicas
+    for (ByteBuffer key : ImmutableList.of(ROUTING_KEY12, ROUTING_KEY23, ROUTING_KEY34)) {
+      assertThat(tokenMap.getReplicas(KS2, key))
+          .isSameAs(tokenMap.getReplicas(KS2, TOKEN_FACTORY.hash(key)));
+    }
+  }
+
   @Test
   public void should_refresh_when_keyspace_replication_has_not_changed() {
     // Given
@@ -420,4 +420,79 @@ public class ChannelPoolResizeTest extends ChannelPoolTestBase {
 
     factoryHelper.verifyNoMoreCalls();
   }
+
+  @Test
+  public void should_grow_and_shrink_elastically() throws Exception {
+    when(defaultProfile.getInt(DefaultDriverOption.CONNECTION_POOL_LOCAL_SIZE)).thenReturn(1);
+    when(defaultProfile.getBoolean(DefaultDriverOption.CONNECTION_POOL_ELASTIC_ENABLED))
+        .thenReturn(true);
+    // Checks are triggered manually
+    when(defaultProfile.getDuration(DefaultDriverOption.CONNECTION_POOL_ELASTIC_CHECK_INTERVAL))
+        .thenReturn(Duration.ofDays(1));
+    when(defaultProfile.getInt(DefaultDriverOption.CONNECTION_POOL_ELASTIC_LOCAL_MAX_SIZE))
+        .thenReturn(2);
+    when(defaultProfile.getDouble(DefaultDriverOption.CONNECTION_POOL_ELASTIC_HIGH_WATER_MARK))
+        .thenReturn(0.75);
+    when(defaultProfile.getDouble(DefaultDriverOption.CONNECTION_POOL_ELASTIC_LOW_WATER_MARK))
+        .thenReturn(0.25);
+    when(defaultProfile.getDuration(DefaultDriverOption.CONNECTION_POOL_ELASTIC_SHRINK_DELAY))
+        .thenReturn(Duration.ZERO);
+    when(defaultProfile.getInt(DefaultDriverOption.CONNECTION_MAX_REQUESTS)).thenReturn(10);
+
+    DriverChannel channel1 = newMockDriverChannel(1);
+    DriverChannel channel2 = newMockDriverChannel(2);
+    MockChannelFactoryHelper factoryHelper =
+        MockChannelFactoryHelper.builder(channelFactory)
+            .success(node, channel1)
+            .success(node, channel2)
+            .build();
+    InOrder inOrder = inOrder(eventBus);
+
+    CompletionStage<ChannelPool> poolFuture =
+        ChannelPool.init(node, null, NodeDistance.LOCAL, context, "test");
+
+    factoryHelper.waitForCall(node);
+    waitForPendingAdminTasks();
+
+    assertThatStage(poolFuture).isSuccess();
+    ChannelPool pool = poolFuture.toCompletableFuture().get();
+    assertThat(pool.channels).containsOnly(channel1);
+    inOrder.verify(eventBus).fire(ChannelEvent.channelOpened(node));
+
+    // Below the high water mark: nothing happens
+    when(channel1.getInFlight()).thenReturn(5);
+    pool.checkLoad();
+    waitForPendingAdminTasks();
+    assertThat(pool.channels).containsOnly(channel1);
+
+    // Above the high water mark: grow
+    when(channel1.getInFlight()).thenReturn(8);
+    pool.checkLoad();
+
+    factoryHelper.waitForCall(node);
+    waitForPendingAdminTasks();
+    inOrder.verify(eventBus).fire(ChannelEvent.channelOpened(node));
+    assertThat(pool.channels).containsOnly(channel1, channel2);
+
+    // Max size reached: can't grow anymore
+    when(channel2.getInFlight()).thenReturn(10);
+    pool.checkLoad();
+    waitForPendingAdminTasks();
+    assertThat(pool.channels).containsOnly(channel1, channel2);
+
+    // Below the low water mark: shrink back to the minimum size
+    when(channel1.getInFlight()).thenReturn(0);
+    when(channel2.getInFlight()).thenReturn(1);
+    pool.checkLoad();
+    waitForPendingAdminTasks();
+    inOrder.verify(eventBus).fire(ChannelEvent.channelClosed(node));
+    assertThat(pool.channels).hasSize(1);
+
+    // Already at the minimum size: can't shrink anymore
+    pool.checkLoad();
+    waitForPendingAdminTasks();
+    assertThat(pool.channels).hasSize(1);
+
+    factoryHelper.verifyNoMoreCalls();
+  }
 }
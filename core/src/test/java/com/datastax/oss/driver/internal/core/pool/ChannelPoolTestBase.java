@@ -22,6 +22,7 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
 import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
 import com.datastax.oss.driver.api.core.config.DriverConfig;
 import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
 import com.datastax.oss.driver.api.core.connection.ReconnectionPolicy;
@@ -75,6 +76,10 @@ abstract class ChannelPoolTestBase {
     when(nettyOptions.adminEventExecutorGroup()).thenReturn(adminEventLoopGroup);
     when(context.getConfig()).thenReturn(config);
     when(config.getDefaultProfile()).thenReturn(defaultProfile);
+    when(defaultProfile.isDefined(DefaultDriverOption.CONNECTION_POOL_CHANNEL_SELECTOR_CLASS))
+        .thenReturn(true);
+    when(defaultProfile.getString(DefaultDriverOption.CONNECTION_POOL_CHANNEL_SELECTOR_CLASS))
+        .thenReturn("DefaultChannelSelector");
     this.eventBus = spy(new EventBus("test"));
     when(context.getEventBus()).thenReturn(eventBus);
     when(context.getChannelFactory()).thenReturn(channelFactory);
@@ -112,4 +112,34 @@ public class ChannelSetTest {
     assertThat(set.size()).isEqualTo(0);
     assertThat(set.next()).isNull();
   }
+
+  @Test
+  public void should_prefer_writable_channels() {
+    // Given
+    when(channel1.getAvailableIds()).thenReturn(15);
+    when(channel1.isWritable()).thenReturn(false);
+    when(channel2.getAvailableIds()).thenReturn(2);
+    when(channel2.isWritable()).thenReturn(true);
+    when(channel3.getAvailableIds()).thenReturn(8);
+    when(channel3.isWritable()).thenReturn(true);
+
+    set.add(channel1);
+    set.add(channel2);
+    set.add(channel3);
+
+    // Then
+    assertThat(set.next()).isEqualTo(channel3);
+
+    // When
+    when(channel3.getAvailableIds()).thenReturn(0);
+
+    // Then
+    assertThat(set.next()).isEqualTo(channel2);
+
+    // When
+    when(channel2.isWritable()).thenReturn(false);
+
+    // Then
+    assertThat(set.next()).isEqualTo(channel1);
+  }
 }
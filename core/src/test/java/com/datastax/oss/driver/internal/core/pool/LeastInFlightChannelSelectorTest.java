@@ -0,0 +1,119 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.pool;
+
+import static com.datastax.oss.driver.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.internal.core.channel.DriverChannel;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class LeastInFlightChannelSelectorTest {
+  @Mock private DriverChannel channel1, channel2, channel3;
+  private DriverChannel[] channels;
+  private LeastInFlightChannelSelector selector;
+
+  @Before
+  public void setup() {
+    MockitoAnnotations.initMocks(this);
+    for (DriverChannel channel : new DriverChannel[] {channel1, channel2, channel3}) {
+      when(channel.getAvailableIds()).thenReturn(10);
+      when(channel.isWritable()).thenReturn(true);
+    }
+    channels = new DriverChannel[] {channel1, channel2, channel3};
+    selector = new LeastInFlightChannelSelector(null);
+  }
+
+  @Test
+  public void should_pick_channel_with_fewest_in_flight_requests() {
+    // Given
+    when(channel1.getInFlight()).thenReturn(5);
+    when(channel2.getInFlight()).thenReturn(1);
+    when(channel3.getInFlight()).thenReturn(3);
+
+    // Then
+    assertThat(selector.select(channels)).isEqualTo(channel2);
+  }
+
+  @Test
+  public void should_weigh_in_flight_requests_by_latency() {
+    // Given
+    when(channel1.getInFlight()).thenReturn(2);
+    when(channel1.getLatencyNanos()).thenReturn(1000L); // cost 3000
+    when(channel2.getInFlight()).thenReturn(1);
+    when(channel2.getLatencyNanos()).thenReturn(2000L); // cost 4000
+    when(channel3.getInFlight()).thenReturn(0);
+    when(channel3.getLatencyNanos()).thenReturn(5000L); // cost 5000
+
+    // Then
+    assertThat(selector.select(channels)).isEqualTo(channel1);
+  }
+
+  @Test
+  public void should_assume_fastest_latency_for_channels_without_estimate() {
+    // Given
+    when(channel1.getInFlight()).thenReturn(1);
+    when(channel1.getLatencyNanos()).thenReturn(1000L); // cost 2000
+    when(channel2.getInFlight()).thenReturn(2);
+    when(channel2.getLatencyNanos()).thenReturn(0L); // no estimate, cost 3 * 1000
+    when(channel3.getInFlight()).thenReturn(0);
+    when(channel3.getLatencyNanos()).thenReturn(0L); // no estimate, cost 1 * 1000
+
+    // Then
+    assertThat(selector.select(channels)).isEqualTo(channel3);
+  }
+
+  @Test
+  public void should_prefer_writable_channels() {
+    // Given
+    when(channel1.getInFlight()).thenReturn(0);
+    when(channel1.isWritable()).thenReturn(false);
+    when(channel2.getInFlight()).thenReturn(8);
+    when(channel3.getInFlight()).thenReturn(5);
+
+    // Then
+    assertThat(selector.select(channels)).isEqualTo(channel3);
+  }
+
+  @Test
+  public void should_pick_non_writable_channel_if_all_are_non_writable() {
+    // Given
+    for (DriverChannel channel : channels) {
+      when(channel.isWritable()).thenReturn(false);
+    }
+    when(channel1.getInFlight()).thenReturn(4);
+    when(channel2.getInFlight()).thenReturn(2);
+    when(channel3.getInFlight()).thenReturn(6);
+
+    // Then
+    assertThat(selector.select(channels)).isEqualTo(channel2);
+  }
+
+  @Test
+  public void should_skip_full_channels() {
+    // Given
+    when(channel1.getInFlight()).thenReturn(0);
+    when(channel1.getAvailableIds()).thenReturn(0);
+    when(channel2.getInFlight()).thenReturn(7);
+    when(channel3.getInFlight()).thenReturn(4);
+
+    // Then
+    assertThat(selector.select(channels)).isEqualTo(channel3);
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.pool;
+
+import static com.datastax.oss.driver.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.internal.core.channel.DriverChannel;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class PowerOfTwoChoicesChannelSelectorTest {
+  @Mock private DriverChannel channel1, channel2, channel3;
+  private PowerOfTwoChoicesChannelSelector selector;
+
+  @Before
+  public void setup() {
+    MockitoAnnotations.initMocks(this);
+    for (DriverChannel channel : new DriverChannel[] {channel1, channel2, channel3}) {
+      when(channel.isWritable()).thenReturn(true);
+    }
+    selector = new PowerOfTwoChoicesChannelSelector(null);
+  }
+
+  @Test
+  public void should_pick_least_loaded_of_two_channels() {
+    // Given
+    when(channel1.getAvailableIds()).thenReturn(2);
+    when(channel2.getAvailableIds()).thenReturn(12);
+    DriverChannel[] channels = {channel1, channel2};
+
+    // Then (with two channels, both are always compared)
+    for (int i = 0; i < 10; i++) {
+      assertThat(selector.select(channels)).isEqualTo(channel2);
+    }
+  }
+
+  @Test
+  public void should_prefer_writable_channel() {
+    // Given
+    when(channel1.getAvailableIds()).thenReturn(2);
+    when(channel2.getAvailableIds()).thenReturn(12);
+    when(channel2.isWritable()).thenReturn(false);
+    DriverChannel[] channels = {channel1, channel2};
+
+    // Then
+    for (int i = 0; i < 10; i++) {
+      assertThat(selector.select(channels)).isEqualTo(channel1);
+    }
+  }
+
+  @Test
+  public void should_never_pick_most_loaded_channel() {
+    // Given
+    when(channel1.getAvailableIds()).thenReturn(1);
+    when(channel2.getAvailableIds()).thenReturn(5);
+    when(channel3.getAvailableIds()).thenReturn(10);
+    DriverChannel[] channels = {channel1, channel2, channel3};
+
+    // Then
+    for (int i = 0; i < 100; i++) {
+      assertThat(selector.select(channels)).isNotEqualTo(channel1);
+    }
+  }
+
+  @Test
+  public void should_scan_when_both_candidates_are_full() {
+    // Given
+    when(channel1.getAvailableIds()).thenReturn(0);
+    when(channel2.getAvailableIds()).thenReturn(0);
+    when(channel3.getAvailableIds()).thenReturn(3);
+    DriverChannel[] channels = {channel1, channel2, channel3};
+
+    // Then
+    for (int i = 0; i < 100; i++) {
+      assertThat(selector.select(channels)).isEqualTo(channel3);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.pool;
+
+import static com.datastax.oss.driver.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.internal.core.channel.DriverChannel;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class RoundRobinChannelSelectorTest {
+  @Mock private DriverChannel channel1, channel2, channel3;
+  private DriverChannel[] channels;
+  private RoundRobinChannelSelector selector;
+
+  @Before
+  public void setup() {
+    MockitoAnnotations.initMocks(this);
+    for (DriverChannel channel : new DriverChannel[] {channel1, channel2, channel3}) {
+      when(channel.getAvailableIds()).thenReturn(10);
+      when(channel.isWritable()).thenReturn(true);
+    }
+    channels = new DriverChannel[] {channel1, channel2, channel3};
+    selector = new RoundRobinChannelSelector(null);
+  }
+
+  @Test
+  public void should_cycle_through_channels() {
+    assertThat(selector.select(channels)).isEqualTo(channel1);
+    assertThat(selector.select(channels)).isEqualTo(channel2);
+    assertThat(selector.select(channels)).isEqualTo(channel3);
+    assertThat(selector.select(channels)).isEqualTo(channel1);
+  }
+
+  @Test
+  public void should_skip_full_and_non_writable_channels() {
+    // Given
+    when(channel2.getAvailableIds()).thenReturn(0);
+    when(channel3.isWritable()).thenReturn(false);
+
+    // Then
+    assertThat(selector.select(channels)).isEqualTo(channel1);
+    assertThat(selector.select(channels)).isEqualTo(channel1);
+    assertThat(selector.select(channels)).isEqualTo(channel1);
+  }
+
+  @Test
+  public void should_fall_back_to_non_writable_channel() {
+    // Given
+    when(channel1.getAvailableIds()).thenReturn(0);
+    when(channel2.isWritable()).thenReturn(false);
+    when(channel3.isWritable()).thenReturn(false);
+
+    // Then
+    assertThat(selector.select(channels)).isEqualTo(channel2);
+    assertThat(selector.select(channels)).isEqualTo(channel2);
+    assertThat(selector.select(channels)).isEqualTo(channel3);
+  }
+
+  @Test
+  public void should_return_null_when_all_full() {
+    // Given
+    when(channel1.getAvailableIds()).thenReturn(0);
+    when(channel2.getAvailableIds()).thenReturn(0);
+    when(channel3.getAvailableIds()).thenReturn(0);
+
+    // Then
+    assertThat(selector.select(channels)).isNull();
+  }
+}
@@ -330,6 +330,43 @@ public class ByteBufPrimitiveCodecTest {
                 "cafebabe");
   }
 
+  @Test
+  public void should_write_bytes_from_slice_of_heap_buffer() {
+    ByteBuffer source = Bytes.fromHexString("0x0102cafebabe03");
+    source.position(2);
+    ByteBuffer slice = source.slice();
+    slice.limit(4);
+    ByteBuf dest = allocate(8);
+
+    codec.writeBytes(slice, dest);
+
+    assertThat(dest)
+        .containsExactly(
+            "0x00000004"
+                + // size as an int
+                "cafebabe");
+    // The source must not have been consumed
+    assertThat(slice.position()).isEqualTo(0);
+    assertThat(slice.remaining()).isEqualTo(4);
+  }
+
+  @Test
+  public void should_write_bytes_from_direct_buffer() {
+    ByteBuffer source = ByteBuffer.allocateDirect(4);
+    source.put(Bytes.fromHexString("0xcafebabe"));
+    source.flip();
+    ByteBuf dest = allocate(8);
+
+    codec.writeBytes(source, dest);
+
+    assertThat(dest)
+        .containsExactly(
+            "0x00000004"
+                + // size as an int
+                "cafebabe");
+    assertThat(source.remaining()).isEqualTo(4);
+  }
+
   @Test
   public void should_write_short_bytes() {
     ByteBuf dest = allocate(6);
@@ -0,0 +1,122 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.protocol;
+
+import static com.datastax.oss.driver.Assertions.assertThat;
+
+import com.datastax.oss.protocol.internal.ProtocolConstants;
+import com.datastax.oss.protocol.internal.response.result.DefaultRows;
+import com.datastax.oss.protocol.internal.response.result.Rows;
+import com.datastax.oss.protocol.internal.response.result.RowsMetadata;
+import com.datastax.oss.protocol.internal.util.Bytes;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import org.junit.Test;
+
+public class CompactRowsSubCodecTest {
+
+  private static final int VERSION = ProtocolConstants.Version.V4;
+
+  private final ByteBufPrimitiveCodec primitiveCodec =
+      new ByteBufPrimitiveCodec(ByteBufAllocator.DEFAULT);
+
+  @Test
+  public void should_decode_rows_with_null_and_empty_values() {
+    Queue<List<ByteBuffer>> data = new ArrayDeque<>();
+    data.add(Arrays.asList(Bytes.fromHexString("0xcafe"), null));
+    data.add(Arrays.asList(Bytes.fromHexString("0x"), Bytes.fromHexString("0xbabe01")));
+    data.add(Arrays.asList(null, Bytes.fromHexString("0x01")));
+
+    Rows decoded = roundTrip(new DefaultRows(new RowsMetadata(2, null, null, null), data));
+
+    assertThat(decoded).isInstanceOf(CompactRows.class);
+    assertThat(decoded.getMetadata().columnCount).isEqualTo(2);
+    Queue<List<ByteBuffer>> decodedData = decoded.getData();
+    assertThat(decodedData).hasSize(3);
+
+    List<ByteBuffer> row = decodedData.poll();
+    assertThat(Bytes.toHexString(row.get(0))).isEqualTo("0xcafe");
+    assertThat(row.get(1)).isNull();
+
+    row = decodedData.poll();
+    assertThat(Bytes.toHexString(row.get(0))).isEqualTo("0x");
+    assertThat(Bytes.toHexString(row.get(1))).isEqualTo("0xbabe01");
+
+    row = decodedData.poll();
+    assertThat(row.get(0)).isNull();
+    assertThat(Bytes.toHexString(row.get(1))).isEqualTo("0x01");
+
+    assertThat(decodedData.poll()).isNull();
+    assertThat(decodedData).isEmpty();
+  }
+
+  @Test
+  public void should_decode_empty_page() {
+    Rows decoded =
+        roundTrip(new DefaultRows(new RowsMetadata(3, null, null, null), new ArrayDeque<>()));
+
+    assertThat(decoded.getData()).isEmpty();
+    assertThat(decoded.getData().poll()).isNull();
+  }
+
+  @Test
+  public void should_return_independent_buffers_for_each_access() {
+    Queue<List<ByteBuffer>> data = new ArrayDeque<>();
+    data.add(Arrays.asList(Bytes.fromHexString("0xcafebabe")));
+
+    List<ByteBuffer> row =
+        roundTrip(new DefaultRows(new RowsMetadata(1, null, null, null), data)).getData().poll();
+
+    ByteBuffer first = row.get(0);
+    first.getShort();
+    assertThat(Bytes.toHexString(row.get(0))).isEqualTo("0xcafebabe");
+  }
+
+  @Test
+  public void should_slice_shared_array_without_copying() {
+    Queue<List<ByteBuffer>> data = new ArrayDeque<>();
+    data.add(Arrays.asList(Bytes.fromHexString("0xcafe"), Bytes.fromHexString("0xbabe01")));
+
+    List<ByteBuffer> row =
+        roundTrip(new DefaultRows(new RowsMetadata(2, null, null, null), data)).getData().poll();
+
+    ByteBuffer first = row.get(0);
+    ByteBuffer second = row.get(1);
+    assertThat(second.array()).isSameAs(first.array());
+    assertThat(second.arrayOffset()).isGreaterThan(first.arrayOffset());
+    // Sliced: the rest of the page is not reachable, even after clear() or rewind()
+    assertThat(first.position()).isEqualTo(0);
+    assertThat(first.capacity()).isEqualTo(2);
+    assertThat(second.position()).isEqualTo(0);
+    assertThat(second.capacity()).isEqualTo(3);
+  }
+
+  private Rows roundTrip(Rows rows) {
+    DefaultRows.SubCodec defaultCodec = new DefaultRows.SubCodec(VERSION);
+    ByteBuf buffer = primitiveCodec.allocate(defaultCodec.encodedSize(rows));
+    defaultCodec.encode(buffer, rows, primitiveCodec);
+    try {
+      return (Rows) new CompactRowsSubCodec(VERSION).decode(buffer, primitiveCodec);
+    } finally {
+      buffer.release();
+    }
+  }
+}
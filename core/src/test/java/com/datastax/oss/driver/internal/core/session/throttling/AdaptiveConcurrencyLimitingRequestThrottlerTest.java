@@ -0,0 +1,251 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.session.throttling;
+
+import static com.datastax.oss.driver.Assertions.assertThat;
+import static com.datastax.oss.driver.Assertions.assertThatStage;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.api.core.RequestThrottlingException;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverConfig;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.servererrors.OverloadedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AdaptiveConcurrencyLimitingRequestThrottlerTest {
+
+  private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  @Mock private DriverContext context;
+  @Mock private DriverConfig config;
+  @Mock private DriverExecutionProfile defaultProfile;
+
+  private SettableNanoClock clock = new SettableNanoClock();
+  private AdaptiveConcurrencyLimitingRequestThrottler throttler;
+
+  @Before
+  public void setup() {
+    when(context.getConfig()).thenReturn(config);
+    when(config.getDefaultProfile()).thenReturn(defaultProfile);
+
+    when(defaultProfile.getInt(DefaultDriverOption.REQUEST_THROTTLER_MAX_QUEUE_SIZE))
+        .thenReturn(10);
+    when(defaultProfile.getInt(DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_INITIAL_LIMIT, 100))
+        .thenReturn(10);
+    when(defaultProfile.getInt(DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_MIN_LIMIT, 10))
+        .thenReturn(1);
+    when(defaultProfile.getInt(DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_MAX_LIMIT, 10000))
+        .thenReturn(100);
+    when(defaultProfile.getDuration(
+            DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_SAMPLE_WINDOW, Duration.ofMillis(100)))
+        .thenReturn(Duration.ofNanos(WINDOW_NANOS));
+    when(defaultProfile.getInt(DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_LONG_WINDOW, 600))
+        .thenReturn(600);
+    when(defaultProfile.getDouble(
+            DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_RTT_TOLERANCE, 1.5))
+        .thenReturn(1.5);
+    // No smoothing, to make computations easier to follow
+    when(defaultProfile.getDouble(DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_SMOOTHING, 0.2))
+        .thenReturn(1.0);
+    when(defaultProfile.getDouble(
+            DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_BACKOFF_RATIO, 0.9))
+        .thenReturn(0.5);
+
+    throttler = new AdaptiveConcurrencyLimitingRequestThrottler(context, clock);
+  }
+
+  @Test
+  public void should_enqueue_when_over_limit() {
+    // Given
+    List<MockThrottled> requests = register(10);
+    for (MockThrottled request : requests) {
+      assertThatStage(request.started).isSuccess(wasDelayed -> assertThat(wasDelayed).isFalse());
+    }
+
+    // When
+    MockThrottled incoming = new MockThrottled();
+    throttler.register(incoming);
+
+    // Then
+    assertThatStage(incoming.started).isNotDone();
+    assertThat(throttler.getConcurrentRequests()).isEqualTo(10);
+    assertThat(throttler.getQueueSize()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_increase_limit_and_start_queued_requests_when_latency_is_stable() {
+    // Given
+    List<MockThrottled> requests = register(10);
+    MockThrottled queued = new MockThrottled();
+    throttler.register(queued);
+    assertThatStage(queued.started).isNotDone();
+
+    // When
+    clock.add(WINDOW_NANOS);
+    throttler.signalSuccess(requests.get(0));
+
+    // Then
+    // gradient = 1, so the limit grows by its square root: 10 + 3.16
+    assertThat(throttler.getLimit()).isEqualTo(13);
+    assertThatStage(queued.started).isSuccess(wasDelayed -> assertThat(wasDelayed).isTrue());
+    assertThat(throttler.getConcurrentRequests()).isEqualTo(10);
+    assertThat(throttler.getQueueSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void should_decrease_limit_when_latency_increases() {
+    // Given
+    List<MockThrottled> requests = register(10);
+    clock.add(WINDOW_NANOS);
+    throttler.signalSuccess(requests.get(0));
+    assertThat(throttler.getLimit()).isEqualTo(13);
+    register(3);
+
+    // When
+    clock.add(4 * WINDOW_NANOS);
+    throttler.signalSuccess(requests.get(1));
+
+    // Then
+    // latency went from 100 to 500 ms, the gradient is clamped to 0.5: 13.16 * 0.5 + 3.63
+    assertThat(throttler.getLimit()).isEqualTo(10);
+  }
+
+  @Test
+  public void should_not_increase_limit_when_underused() {
+    // Given
+    List<MockThrottled> requests = register(2);
+
+    // When
+    clock.add(WINDOW_NANOS);
+    throttler.signalSuccess(requests.get(0));
+
+    // Then
+    assertThat(throttler.getLimit()).isEqualTo(10);
+  }
+
+  @Test
+  public void should_back_off_when_request_times_out() {
+    should_back_off_when_request_dropped(throttler::signalTimeout);
+  }
+
+  @Test
+  public void should_back_off_when_cluster_overloaded() {
+    should_back_off_when_request_dropped(
+        request -> throttler.signalError(request, mock(OverloadedException.class)));
+  }
+
+  private void should_back_off_when_request_dropped(Consumer<MockThrottled> dropCallback) {
+    // Given
+    List<MockThrottled> requests = register(10);
+
+    // When
+    clock.add(WINDOW_NANOS);
+    dropCallback.accept(requests.get(0));
+
+    // Then
+    assertThat(throttler.getLimit()).isEqualTo(5);
+    MockThrottled incoming = new MockThrottled();
+    throttler.register(incoming);
+    assertThatStage(incoming.started).isNotDone();
+    assertThat(throttler.getConcurrentRequests()).isEqualTo(9);
+    assertThat(throttler.getQueueSize()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_not_smooth_back_off() {
+    // Given
+    when(defaultProfile.getDouble(DefaultDriverOption.REQUEST_THROTTLER_ADAPTIVE_SMOOTHING, 0.2))
+        .thenReturn(0.2);
+    throttler = new AdaptiveConcurrencyLimitingRequestThrottler(context, clock);
+    List<MockThrottled> requests = register(10);
+
+    // When
+    clock.add(WINDOW_NANOS);
+    throttler.signalTimeout(requests.get(0));
+
+    // Then
+    // smoothed, this would have been 10 * 0.8 + 5 * 0.2 = 9
+    assertThat(throttler.getLimit()).isEqualTo(5);
+  }
+
+  @Test
+  public void should_not_update_limit_before_end_of_window() {
+    // Given
+    List<MockThrottled> requests = register(10);
+
+    // When
+    clock.add(WINDOW_NANOS - 1);
+    throttler.signalTimeout(requests.get(0));
+
+    // Then
+    assertThat(throttler.getLimit()).isEqualTo(10);
+  }
+
+  @Test
+  public void should_reject_when_queue_is_full() {
+    // Given
+    register(10);
+    for (int i = 0; i < 10; i++) {
+      throttler.register(new MockThrottled());
+    }
+
+    // When
+    MockThrottled incoming = new MockThrottled();
+    throttler.register(incoming);
+
+    // Then
+    assertThatStage(incoming.started)
+        .isFailed(error -> assertThat(error).isInstanceOf(RequestThrottlingException.class));
+  }
+
+  @Test
+  public void should_reject_enqueued_when_closing() {
+    // Given
+    register(10);
+    MockThrottled queued = new MockThrottled();
+    throttler.register(queued);
+
+    // When
+    throttler.close();
+
+    // Then
+    assertThatStage(queued.started)
+        .isFailed(error -> assertThat(error).isInstanceOf(RequestThrottlingException.class));
+  }
+
+  private List<MockThrottled> register(int count) {
+    List<MockThrottled> requests = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      MockThrottled request = new MockThrottled();
+      throttler.register(request);
+      requests.add(request);
+    }
+    return requests;
+  }
+}
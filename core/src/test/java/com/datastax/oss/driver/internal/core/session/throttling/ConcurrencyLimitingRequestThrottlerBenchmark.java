@@ -0,0 +1,142 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.session.throttling;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.api.core.RequestThrottlingException;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverConfig;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.session.throttling.RequestThrottler;
+import com.datastax.oss.driver.api.core.session.throttling.Throttled;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Compares the throughput of {@link ConcurrencyLimitingRequestThrottler} and {@link
+ * LockFreeConcurrencyLimitingRequestThrottler} when many threads register and complete requests at
+ * the same time.
+ *
+ * <p>This is not a unit test (it is not picked up by the build), run it manually with the test
+ * classpath. Two scenarios are measured for 1 to 64 threads:
+ *
+ * <ul>
+ *   <li>unsaturated: the limit is never reached, every request starts immediately. This is the
+ *       common case, where the throttler only acts as a safety net;
+ *   <li>saturated: the limit is half the number of threads, so that half of the requests go through
+ *       the queue.
+ * </ul>
+ *
+ * Each thread has one request in flight at a time, and completes it as soon as it has started.
+ */
+public class ConcurrencyLimitingRequestThrottlerBenchmark {
+
+  private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+  private static final long WARMUP_MILLIS = 1000;
+  private static final long MEASURE_MILLIS = 2000;
+
+  public static void main(String[] args) throws Exception {
+    System.out.printf(
+        "%-12s %8s %20s %20s%n", "scenario", "threads", "locking (ops/s)", "lock-free (ops/s)");
+    for (boolean saturated : new boolean[] {false, true}) {
+      for (int threadCount : THREAD_COUNTS) {
+        int maxConcurrentRequests = saturated ? Math.max(1, threadCount / 2) : 1_000_000;
+        DriverContext context = mockContext(maxConcurrentRequests, threadCount);
+        long locking = measure(ConcurrencyLimitingRequestThrottler::new, context, threadCount);
+        long lockFree =
+            measure(LockFreeConcurrencyLimitingRequestThrottler::new, context, threadCount);
+        System.out.printf(
+            "%-12s %8d %20d %20d%n",
+            saturated ? "saturated" : "unsaturated", threadCount, locking, lockFree);
+      }
+    }
+  }
+
+  private static long measure(
+      Function<DriverContext, RequestThrottler> factory, DriverContext context, int threadCount)
+      throws Exception {
+    RequestThrottler throttler = factory.apply(context);
+    LongAdder operations = new LongAdder();
+    CountDownLatch done = new CountDownLatch(threadCount);
+    long deadline =
+        System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS + MEASURE_MILLIS);
+    long measureStart = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < threadCount; i++) {
+      Thread thread =
+          new Thread(
+              () -> {
+                BenchmarkThrottled request = new BenchmarkThrottled();
+                long now;
+                while ((now = System.nanoTime()) < deadline) {
+                  request.ready = false;
+                  throttler.register(request);
+                  while (!request.ready) {
+                    Thread.yield();
+                  }
+                  throttler.signalSuccess(request);
+                  if (now >= measureStart) {
+                    operations.increment();
+                  }
+                }
+                done.countDown();
+              });
+      thread.setDaemon(true);
+      threads.add(thread);
+    }
+    threads.forEach(Thread::start);
+    done.await();
+    throttler.close();
+    return operations.sum() * 1000 / MEASURE_MILLIS;
+  }
+
+  private static DriverContext mockContext(int maxConcurrentRequests, int maxQueueSize) {
+    DriverContext context = mock(DriverContext.class);
+    DriverConfig config = mock(DriverConfig.class);
+    DriverExecutionProfile profile = mock(DriverExecutionProfile.class);
+    when(context.getSessionName()).thenReturn("benchmark");
+    when(context.getConfig()).thenReturn(config);
+    when(config.getDefaultProfile()).thenReturn(profile);
+    when(profile.getInt(DefaultDriverOption.REQUEST_THROTTLER_MAX_CONCURRENT_REQUESTS))
+        .thenReturn(maxConcurrentRequests);
+    when(profile.getInt(DefaultDriverOption.REQUEST_THROTTLER_MAX_QUEUE_SIZE))
+        .thenReturn(maxQueueSize);
+    return context;
+  }
+
+  private static class BenchmarkThrottled implements Throttled {
+
+    private volatile boolean ready;
+
+    @Override
+    public void onThrottleReady(boolean wasDelayed) {
+      ready = true;
+    }
+
+    @Override
+    public void onThrottleFailure(@NonNull RequestThrottlingException error) {
+      throw new AssertionError("Unexpected throttling failure", error);
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.session.throttling;
+
+import static com.datastax.oss.driver.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverConfig;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.internal.core.session.throttling.NodeConcurrencyLimiter.Permit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class NodeConcurrencyLimiterTest {
+
+  @Mock private DriverContext context;
+  @Mock private DriverConfig config;
+  @Mock private DriverExecutionProfile defaultProfile;
+  @Mock private Node node1;
+  @Mock private Node node2;
+  @Mock private Node node3;
+
+  @Before
+  public void setup() {
+    when(context.getConfig()).thenReturn(config);
+    when(config.getDefaultProfile()).thenReturn(defaultProfile);
+
+    when(node1.getDatacenter()).thenReturn("dc1");
+    when(node2.getDatacenter()).thenReturn("dc1");
+    when(node3.getDatacenter()).thenReturn("dc2");
+  }
+
+  @Test
+  public void should_always_acquire_when_disabled() {
+    // Given
+    NodeConcurrencyLimiter limiter = newLimiter(0, 0);
+
+    // When
+    for (int i = 0; i < 100; i++) {
+      assertThat(limiter.tryAcquire(node1)).isNotNull();
+    }
+
+    // Then
+    assertThat(limiter.isEnabled()).isFalse();
+    assertThat(limiter.getInFlight(node1)).isEqualTo(0);
+  }
+
+  @Test
+  public void should_limit_requests_per_node() {
+    // Given
+    NodeConcurrencyLimiter limiter = newLimiter(2, 0);
+
+    // When
+    Permit permit = limiter.tryAcquire(node1);
+    assertThat(permit).isNotNull();
+    assertThat(limiter.tryAcquire(node1)).isNotNull();
+
+    // Then
+    assertThat(limiter.tryAcquire(node1)).isNull();
+    assertThat(limiter.getInFlight(node1)).isEqualTo(2);
+    // Other nodes are not affected
+    assertThat(limiter.tryAcquire(node2)).isNotNull();
+
+    // When
+    permit.release();
+
+    // Then
+    assertThat(limiter.getInFlight(node1)).isEqualTo(1);
+    assertThat(limiter.tryAcquire(node1)).isNotNull();
+  }
+
+  @Test
+  public void should_limit_requests_per_datacenter() {
+    // Given
+    NodeConcurrencyLimiter limiter = newLimiter(0, 2);
+
+    // When
+    assertThat(limiter.tryAcquire(node1)).isNotNull();
+    Permit permit = limiter.tryAcquire(node2);
+    assertThat(permit).isNotNull();
+
+    // Then
+    assertThat(limiter.tryAcquire(node1)).isNull();
+    assertThat(limiter.tryAcquire(node2)).isNull();
+    assertThat(limiter.getInFlight("dc1")).isEqualTo(2);
+    // Other datacenters are not affected
+    assertThat(limiter.tryAcquire(node3)).isNotNull();
+
+    // When
+    permit.release();
+
+    // Then
+    assertThat(limiter.tryAcquire(node1)).isNotNull();
+  }
+
+  @Test
+  public void should_not_hold_node_capacity_if_datacenter_is_saturated() {
+    // Given
+    NodeConcurrencyLimiter limiter = newLimiter(5, 1);
+    assertThat(limiter.tryAcquire(node1)).isNotNull();
+
+    // When
+    Permit permit = limiter.tryAcquire(node2);
+
+    // Then
+    assertThat(permit).isNull();
+    assertThat(limiter.getInFlight(node2)).isEqualTo(0);
+    assertThat(limiter.getInFlight("dc1")).isEqualTo(1);
+  }
+
+  @Test
+  public void should_release_permit_only_once() {
+    // Given
+    NodeConcurrencyLimiter limiter = newLimiter(5, 5);
+    Permit permit = limiter.tryAcquire(node1);
+    assertThat(limiter.tryAcquire(node1)).isNotNull();
+
+    // When
+    permit.release();
+    permit.release();
+
+    // Then
+    assertThat(limiter.getInFlight(node1)).isEqualTo(1);
+    assertThat(limiter.getInFlight("dc1")).isEqualTo(1);
+  }
+
+  @Test
+  public void should_release_capacity_in_original_datacenter_if_node_moved() {
+    // Given
+    NodeConcurrencyLimiter limiter = newLimiter(0, 5);
+    Permit permit = limiter.tryAcquire(node1);
+    assertThat(limiter.getInFlight("dc1")).isEqualTo(1);
+
+    // When
+    // a topology refresh changes the node's datacenter while the request is in flight
+    when(node1.getDatacenter()).thenReturn("dc2");
+    assertThat(limiter.tryAcquire(node3)).isNotNull();
+    permit.release();
+
+    // Then
+    assertThat(limiter.getInFlight("dc1")).isEqualTo(0);
+    assertThat(limiter.getInFlight("dc2")).isEqualTo(1);
+  }
+
+  private NodeConcurrencyLimiter newLimiter(int maxPerNode, int maxPerDatacenter) {
+    when(defaultProfile.getInt(
+            DefaultDriverOption.REQUEST_THROTTLER_PER_NODE_MAX_CONCURRENT_REQUESTS, 0))
+        .thenReturn(maxPerNode);
+    when(defaultProfile.getInt(
+            DefaultDriverOption.REQUEST_THROTTLER_PER_DATACENTER_MAX_CONCURRENT_REQUESTS, 0))
+        .thenReturn(maxPerDatacenter);
+    return new NodeConcurrencyLimiter(context);
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.driver.internal.core.tracker;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.api.core.tracker.RequestTracker;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableList;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MultiplexingRequestTrackerTest {
+
+  @Mock private RequestTracker clientTracker;
+  @Mock private RequestTracker componentTracker1;
+  @Mock private RequestTracker componentTracker2;
+  @Mock private Request request;
+  @Mock private DriverExecutionProfile profile;
+  @Mock private Node node;
+
+  @Test
+  public void should_forward_events_to_all_trackers_even_if_one_fails() {
+    // Given
+    MultiplexingRequestTracker tracker =
+        new MultiplexingRequestTracker(
+            clientTracker, ImmutableList.of(componentTracker1, componentTracker2));
+    doThrow(new RuntimeException("mock error"))
+        .when(clientTracker)
+        .onSuccess(request, 42, profile, node);
+
+    // When
+    tracker.onSuccess(request, 42, profile, node);
+
+    // Then
+    verify(componentTracker1).onSuccess(request, 42, profile, node);
+    verify(componentTracker2).onSuccess(request, 42, profile, node);
+  }
+
+  @Test
+  public void should_only_close_client_tracker() throws Exception {
+    // Given
+    MultiplexingRequestTracker tracker =
+        new MultiplexingRequestTracker(
+            clientTracker, ImmutableList.of(componentTracker1, componentTracker2));
+
+    // When
+    tracker.close();
+
+    // Then
+    verify(clientTracker).close();
+    verify(componentTracker1, never()).close();
+    verify(componentTracker2, never()).close();
+  }
+
+  @Test
+  public void should_forward_events_if_client_tracker_is_noop() throws Exception {
+    // Given
+    MultiplexingRequestTracker tracker =
+        new MultiplexingRequestTracker(
+            new NoopRequestTracker(null), ImmutableList.of(componentTracker1));
+
+    // When
+    tracker.onNodeSuccess(request, 42, profile, node);
+    tracker.close();
+
+    // Then
+    verify(componentTracker1).onNodeSuccess(request, 42, profile, node);
+    verify(componentTracker1, never()).close();
+  }
+}